@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * Generates payloads shaped like the ones returned by an AEM instance. Generation is seeded, so all the runs of a
+ * benchmark see the same data.
+ */
+public final class BenchmarkPayloads {
+
+    public static final String[] TOPICS = {
+            "org/apache/sling/api/resource/Resource/ADDED",
+            "org/apache/sling/api/resource/Resource/CHANGED",
+            "org/apache/sling/api/resource/Resource/REMOVED",
+            "com/day/cq/wcm/core/page",
+            "com/adobe/granite/workflow/event",
+            "org/apache/sling/event/notification/job/FINISHED"
+    };
+
+    private static final String[] LOG_LEVELS = {"*INFO*", "*INFO*", "*INFO*", "*DEBUG*", "*WARN*"};
+
+    private static final String[] LOGGERS = {
+            "org.apache.sling.jcr.resource.internal.JcrResourceListener",
+            "com.day.cq.wcm.core.impl.PageManagerImpl",
+            "com.adobe.granite.workflow.core.WorkflowSessionImpl",
+            "org.apache.jackrabbit.oak.plugins.index.IndexUpdate"
+    };
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * @param count number of events
+     * @return a {@code /system/console/events.json} body listing the newest events first, as the web console; the
+     * event at {@code /content/bench/page-<count-1>} is the most recent one
+     */
+    public static String eventsJson(int count) {
+        Random random = new Random(count);
+        StringBuilder sb = new StringBuilder(count * 400);
+        sb.append("{\"status\":\"Event Admin: ").append(count).append(" events\",\"data\":[");
+        for (int i = count - 1; i >= 0; i--) {
+            if (i < count - 1) {
+                sb.append(',');
+            }
+            String topic = TOPICS[random.nextInt(TOPICS.length)];
+            sb.append("{\"id\":\"").append(i).append("\",\"topic\":\"").append(topic)
+                    .append("\",\"received\":").append(1700000000000L + i)
+                    .append(",\"category\":\"").append(topic, 0, topic.lastIndexOf('/'))
+                    .append("\",\"info\":\"path=/content/bench/page-").append(i)
+                    .append("\",\"properties\":{\"path\":\"/content/bench/page-").append(i)
+                    .append("\",\"userid\":\"admin\",\"resourceType\":\"wcm/foundation/components/page\"");
+            if (random.nextInt(4) == 0) {
+                sb.append(",\"paths\":[\"/content/bench/page-").append(i).append("/jcr:content\",\"/content/bench/page-")
+                        .append(i).append("/jcr:content/par\"]");
+            }
+            sb.append(",\"event.application\":\"").append(Long.toHexString(random.nextLong())).append("\"}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * @param count number of instances
+     * @return a {@code /etc/workflow/instances.json} body
+     */
+    public static String workflowInstancesJson(int count) {
+        StringBuilder sb = new StringBuilder(count * 80).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"uri\":\"/var/workflow/instances/server0/2024-01-15/request_for_activation_").append(i)
+                    .append("\"}");
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * @param nodes number of child nodes
+     * @return a content tree as returned by {@code .infinity.json}
+     */
+    public static String contentTreeJson(int nodes) {
+        Random random = new Random(nodes);
+        StringBuilder sb = new StringBuilder(nodes * 200);
+        sb.append("{\"jcr:primaryType\":\"cq:Page\",\"jcr:content\":{\"jcr:primaryType\":\"cq:PageContent\",")
+                .append("\"jcr:title\":\"Benchmark\",\"cq:lastModified\":\"Mon Jan 15 2024 10:02:00 GMT+0100\",")
+                .append("\"par\":{\"jcr:primaryType\":\"nt:unstructured\"");
+        for (int i = 0; i < nodes; i++) {
+            sb.append(",\"text_").append(i).append("\":{\"jcr:primaryType\":\"nt:unstructured\",")
+                    .append("\"sling:resourceType\":\"wcm/foundation/components/text\",\"text\":\"")
+                    .append(Long.toHexString(random.nextLong())).append("\",\"textIsRich\":").append(i % 2 == 0)
+                    .append(",\"cq:tags\":[\"bench:a\",\"bench:").append(i % 7).append("\"]}");
+        }
+        return sb.append("}}}").toString();
+    }
+
+    /**
+     * @param lines number of lines
+     * @param start timestamp of the first line, each line being one second after the previous one
+     * @return a replication agent log as returned by {@code <agent>.log.html}
+     */
+    public static String replicationLog(int lines, Date start) {
+        SimpleDateFormat format = new SimpleDateFormat("dd.MM.yyyy HH:mm:ss");
+        StringBuilder sb = new StringBuilder(lines * 120);
+        for (int i = 0; i < lines; i++) {
+            sb.append(format.format(new Date(start.getTime() + i * 1000L)))
+                    .append(" - INFO - publish : Sending POST request to http://localhost:4503/bin/receive?sling:authRequestLogin=1 ")
+                    .append("/content/bench/page-").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes an {@code error.log} of about {@code sizeMb} megabytes into {@code <quickstart>/logs}. A single
+     * {@code *ERROR*} line is written at the end, so that the whole file is scanned.
+     *
+     * @param quickstart the quickstart folder
+     * @param sizeMb     the approximate size of the file, in megabytes
+     * @return the log file
+     * @throws IOException if the file cannot be written
+     */
+    public static File errorLog(File quickstart, long sizeMb) throws IOException {
+        File logs = new File(quickstart, "logs");
+        Files.createDirectories(logs.toPath());
+        File log = new File(logs, "error.log");
+        Random random = new Random(sizeMb);
+        long target = sizeMb * 1024 * 1024;
+        long written = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(log.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; written < target; i++) {
+                String line = String.format("15.01.2024 10:%02d:%02d.%03d %s [qtp%d-%d] %s Processed /content/bench/page-%d in %d ms%n",
+                        (i / 60000) % 60, (i / 1000) % 60, i % 1000, LOG_LEVELS[random.nextInt(LOG_LEVELS.length)],
+                        random.nextInt(1000000), random.nextInt(300), LOGGERS[random.nextInt(LOGGERS.length)], i,
+                        random.nextInt(500));
+                // keep a single error line so that the whole file is scanned
+                w.write(line.replace("*WARN*", "*INFO*"));
+                written += line.length();
+            }
+            w.write("15.01.2024 11:00:00.000 *ERROR* [main] com.adobe.bench.Benchmark Something went wrong\n");
+        }
+        return log;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.util.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TestUtil#getMD5Checksum} and {@link TestUtil#binaryCompare} on in-memory binaries, so that only the
+ * client side cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    @Param({"1", "64"})
+    public int sizeMb;
+
+    private byte[] binary;
+    private byte[] copy;
+
+    @Setup
+    public void setUp() {
+        binary = new byte[sizeMb * 1024 * 1024];
+        new Random(sizeMb).nextBytes(binary);
+        copy = binary.clone();
+    }
+
+    @Benchmark
+    public String md5Checksum() {
+        return TestUtil.getMD5Checksum(new ByteArrayInputStream(binary));
+    }
+
+    @Benchmark
+    public boolean binaryCompare() {
+        return TestUtil.binaryCompare(new ByteArrayInputStream(binary), new ByteArrayInputStream(copy));
+    }
+}
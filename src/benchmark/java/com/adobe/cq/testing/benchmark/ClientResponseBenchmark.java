@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.client.ReplicationClient;
+import com.adobe.cq.testing.client.WorkflowClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side processing of large text and JSON responses served by a local mock server:
+ * {@link ReplicationClient#findInLog} on a replication agent log and
+ * {@link WorkflowClient#getWorkflowInstanceURLs} on a long instance list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientResponseBenchmark {
+
+    private static final String AGENT = "/etc/replication/agents.author/publish";
+
+    @Param({"10000", "100000"})
+    public int lines;
+
+    private ReplicationClient replicationClient;
+    private WorkflowClient workflowClient;
+    private Date lastLineTime;
+    private String[] patterns;
+
+    @Setup
+    public void setUp() throws Exception {
+        Date start = new Date(1705309320000L);
+        lastLineTime = new Date(start.getTime() + (lines - 1) * 1000L);
+        patterns = new String[]{"/content/bench/page-" + (lines - 1)};
+        String log = BenchmarkPayloads.replicationLog(lines, start);
+        String instances = BenchmarkPayloads.workflowInstancesJson(lines);
+
+        Spark.port(0);
+        Spark.get(AGENT + ".log.html", (req, res) -> log);
+        Spark.get("/etc/workflow/instances.json", (req, res) -> instances);
+        Spark.awaitInitialization();
+        URI url = URI.create("http://localhost:" + Spark.port());
+        replicationClient = new ReplicationClient(url, "admin", "admin");
+        workflowClient = new WorkflowClient(url, "admin", "admin");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Benchmark
+    public boolean findInLog() throws Exception {
+        return replicationClient.findInLog(AGENT, patterns, lastLineTime);
+    }
+
+    @Benchmark
+    public List<URI> workflowInstanceUrls() throws Exception {
+        return workflowClient.getWorkflowInstanceURLs(null);
+    }
+}
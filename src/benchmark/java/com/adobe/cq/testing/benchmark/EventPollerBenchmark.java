@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.polling.EventLogReader;
+import com.adobe.cq.testing.polling.EventPoller;
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.sling.testing.clients.SlingClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and searching the OSGi event log: {@link EventPoller#containsEvent} on an already parsed log, and
+ * {@link EventPoller#getEventsSince} including the download of {@code events.json} from a local mock server.
+ * {@code updateReader} is the cost of a poll of {@link EventPoller} through an {@link EventLogReader} which
+ * already read the log, {@code getLatestEventTimestamp} the start of a wait.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventPollerBenchmark {
+
+    @Param({"1000", "50000"})
+    public int events;
+
+    private JsonNode parsedEvents;
+    private String lastPath;
+    private SlingClient client;
+    private EventLogReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        String body = BenchmarkPayloads.eventsJson(events);
+        parsedEvents = JsonStreamUtils.getMapper().readTree(body).get("data");
+        // the array lists the newest events first
+        lastPath = "/content/bench/page-0";
+
+        Spark.port(0);
+        Spark.get("/system/console/events.json", (req, res) -> body);
+        Spark.awaitInitialization();
+        client = new SlingClient(URI.create("http://localhost:" + Spark.port()), "admin", "admin");
+        reader = new EventLogReader(client, 0);
+        reader.update();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Benchmark
+    public boolean containsLastEvent() {
+        return EventPoller.containsEvent(parsedEvents, parsedEvents.get(events - 1).get("topic").textValue(),
+                lastPath);
+    }
+
+    @Benchmark
+    public boolean containsMissingEvent() {
+        return EventPoller.containsEvent(parsedEvents, BenchmarkPayloads.TOPICS[0], "/content/missing");
+    }
+
+    @Benchmark
+    public JsonNode getRecentEvents() throws Exception {
+        return EventPoller.getEventsSince(client, 1700000000000L + events - 10);
+    }
+
+    @Benchmark
+    public int updateReader() throws Exception {
+        return reader.update();
+    }
+
+    @Benchmark
+    public long getLatestEventTimestamp() throws Exception {
+        return EventPoller.getLatestEventTimestamp(client);
+    }
+}
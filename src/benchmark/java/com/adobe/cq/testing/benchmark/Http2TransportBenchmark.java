@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.client.pool.ConnectionPoolRegistry;
+import com.adobe.cq.testing.client.transport.H2TestServer;
+import com.adobe.cq.testing.client.transport.Http2Transport;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of many threads sharing a {@link CQClient} over HTTP/1.1 and over the {@link Http2Transport}.
+ * {@code http1} uses the default pool of the client (10 connections per route), {@code http1-pooled} the
+ * {@link ConnectionPoolRegistry} (50 per route) and {@code http2} a single multiplexed connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class Http2TransportBenchmark {
+
+    @Param({"http1", "http1-pooled", "http2"})
+    public String transport;
+
+    @Param({"0", "20"})
+    public long latencyMs;
+
+    private H2TestServer server;
+    private Http2Transport http2Transport;
+    private ConnectionPoolRegistry registry;
+    private CQClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new H2TestServer("http2".equals(transport)).setLatency(latencyMs).start();
+        CQClient.Builder builder = CQClient.Builder.create(server.getUrl(), "admin", "admin");
+        if ("http2".equals(transport)) {
+            http2Transport = new Http2Transport();
+            builder.useHttp2Transport(http2Transport);
+        } else if ("http1-pooled".equals(transport)) {
+            registry = new ConnectionPoolRegistry();
+            builder.useSharedConnectionPool(registry, ConnectionPoolRegistry.BASIC_AUTH);
+        }
+        client = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        if (http2Transport != null) {
+            http2Transport.close();
+        }
+        if (registry != null) {
+            registry.shutdown();
+        }
+        server.close();
+    }
+
+    @Benchmark
+    public SlingHttpResponse get() throws Exception {
+        return client.doGet("/content/bench.json", 200);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.junit.assertion.GraniteAssert;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GraniteAssert#assertJsonEquals} on equal content trees, with and without ignored properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonAssertBenchmark {
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    private String expected;
+    private String actual;
+    private final List<String> ignored = Arrays.asList("cq:lastModified", "jcr:uuid");
+
+    @Setup
+    public void setUp() {
+        expected = BenchmarkPayloads.contentTreeJson(nodes);
+        actual = new String(expected.toCharArray());
+    }
+
+    @Benchmark
+    public void ignoreOrder() {
+        GraniteAssert.assertJsonEquals(expected, actual);
+    }
+
+    @Benchmark
+    public void ignoreProperties() {
+        GraniteAssert.assertJsonEquals(expected, actual, ignored);
+    }
+
+    @Benchmark
+    public void strictOrder() {
+        GraniteAssert.assertJsonEquals(expected, actual, null, null, false);
+    }
+}
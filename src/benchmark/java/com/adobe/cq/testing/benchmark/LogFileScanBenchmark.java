@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.junit.rules.logfile.LogFileRule;
+import com.adobe.cq.testing.junit.rules.logfile.LogFileRuleConfig;
+import org.apache.commons.io.FileUtils;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan of an {@code error.log} by the {@link LogFileRule}, as done before each annotated test. The log only
+ * contains an error on its last line, so the whole file is read. Use {@code -p logSizeMb=2048} to reproduce the
+ * logs of long running instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LogFileScanBenchmark {
+
+    @Param({"64"})
+    public long logSizeMb;
+
+    private File quickstart;
+    private LogFileRule rule;
+    private FrameworkMethod method;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        quickstart = Files.createTempDirectory("logfile-benchmark").toFile();
+        BenchmarkPayloads.errorLog(quickstart, logSizeMb);
+        System.setProperty("granite.it.default.quickstart.folders", quickstart.getAbsolutePath());
+        rule = new LogFileRule();
+        method = new FrameworkMethod(LogFileScanBenchmark.class.getMethod("annotated"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(quickstart);
+    }
+
+    @Benchmark
+    public List<String> scan() throws Throwable {
+        final List<String>[] errors = new List[1];
+        rule.apply(new Statement() {
+            @Override
+            public void evaluate() {
+                errors[0] = rule.getErrors();
+            }
+        }, method, this).evaluate();
+        if (errors[0].size() != 1) {
+            throw new IllegalStateException("Expected one error, got " + errors[0]);
+        }
+        return errors[0];
+    }
+
+    /**
+     * Carries the default rule configuration, the end marker of the default configuration is never found.
+     */
+    @LogFileRuleConfig
+    public void annotated() {
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.http.HttpStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of the page and JSON calls of {@link CQClient} against the {@link AemStandInServer}, with a
+ * configurable server latency and ratio of failing requests. Failed page creations are retried by
+ * {@link CQClient#createPageWithRetry}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class StandInClientBenchmark {
+
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    @Param({"0", "0.1"})
+    public double errorRate;
+
+    private AemStandInServer server;
+    private CQClient client;
+    private final AtomicLong pages = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new AemStandInServer().start();
+        server.setRandomSeed(42).setLatency(latencyMs);
+        if (errorRate > 0) {
+            server.injectErrors(AemStandInServer.WCM_COMMAND_PATH, errorRate, HttpStatus.SC_BAD_REQUEST);
+        }
+        for (int i = 0; i < 100; i++) {
+            server.getRepository().put("/content/bench/node-" + i, "nt:unstructured", "title", "Node " + i);
+        }
+        client = new CQClient(server.getUrl(), "admin", "admin");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public void createAndDeletePage() throws Exception {
+        String name = "page-" + pages.incrementAndGet();
+        client.createPageWithRetry(name, name, "/content", "", 10000, 10);
+        client.deletePageWithRetry("/content/" + name, true, false, 10000, 10);
+    }
+
+    @Benchmark
+    public JsonNode getJsonTree() throws Exception {
+        return client.doGetJson("/content/bench", 1);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.benchmark;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.client.pool.ConnectionPoolRegistry;
+import com.adobe.cq.testing.junit.runners.ParallelClassRunner;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import com.adobe.cq.testing.polling.StatusPoller;
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.http.HttpStatus;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wall clock time of a suite of poll-heavy tests run by {@link ParallelClassRunner}, on the executors of
+ * {@link ThreadUtils} with platform or virtual threads. Each test waits with a {@link StatusPoller} for a page of
+ * the {@link AemStandInServer} that appears after a random delay, as a test waiting for replication or a workflow
+ * would. The runner is allowed to run all the tests at the same time. Virtual threads need a Java 21 JVM: on older
+ * ones both runs use platform threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    // read by the test methods, which JUnit instantiates itself
+    private static volatile CQClient client;
+    private static volatile long maxWait;
+    private static final Queue<String> PATHS = new ConcurrentLinkedQueue<>();
+    private static volatile int count;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000"})
+    public int tests;
+
+    @Param({"1000"})
+    public long maxWaitMs;
+
+    @Param({"5"})
+    public long latencyMs;
+
+    private AemStandInServer server;
+    private ConnectionPoolRegistry registry;
+    private ScheduledExecutorService publisher;
+    private final AtomicLong runs = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty(ThreadUtils.VIRTUAL_THREADS_PROP, String.valueOf("virtual".equals(threads)));
+        System.setProperty(ParallelClassRunner.THREADS_PROP, String.valueOf(tests));
+        server = new AemStandInServer().start();
+        server.setLatency(latencyMs);
+        // the connections must not be the bottleneck
+        registry = new ConnectionPoolRegistry();
+        registry.setMaxTotal(tests);
+        registry.setMaxPerRoute(tests);
+        client = CQClient.Builder.create(server.getUrl(), "admin", "admin")
+                .useSharedConnectionPool(registry, ConnectionPoolRegistry.BASIC_AUTH).build();
+        maxWait = maxWaitMs;
+        count = tests;
+        publisher = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @Setup(Level.Invocation)
+    public void schedulePages() {
+        long run = runs.incrementAndGet();
+        PATHS.clear();
+        for (int i = 0; i < tests; i++) {
+            String path = "/content/bench/run-" + run + "/page-" + i;
+            PATHS.add(path);
+            publisher.schedule(() -> server.getRepository().put(path, "cq:Page"),
+                    ThreadLocalRandom.current().nextLong(maxWaitMs), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        publisher.shutdownNow();
+        client.close();
+        registry.shutdown();
+        server.close();
+        System.clearProperty(ThreadUtils.VIRTUAL_THREADS_PROP);
+        System.clearProperty(ParallelClassRunner.THREADS_PROP);
+    }
+
+    @Benchmark
+    public void pollingSuite() {
+        Result result = JUnitCore.runClasses(PollingTests.class);
+        if (!result.wasSuccessful()) {
+            throw new IllegalStateException(result.getFailures().toString());
+        }
+    }
+
+    /**
+     * Runs the single method of the class once per test
+     */
+    public static class RepeatingRunner extends ParallelClassRunner {
+
+        public RepeatingRunner(Class<?> klass) throws InitializationError {
+            super(klass);
+        }
+
+        @Override
+        protected List<FrameworkMethod> computeTestMethods() {
+            return Collections.nCopies(count, super.computeTestMethods().get(0));
+        }
+    }
+
+    @RunWith(RepeatingRunner.class)
+    public static class PollingTests {
+
+        @Test
+        public void waitForPage() throws Exception {
+            String path = PATHS.poll();
+            new StatusPoller(path + ".json", client, HttpStatus.SC_OK).poll(maxWait + 30000, 50);
+        }
+    }
+}
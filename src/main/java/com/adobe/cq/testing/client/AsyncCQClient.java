@@ -0,0 +1,294 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client;
+
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.http.NameValuePair;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.SlingClientConfig;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>Asynchronous companion of {@link CQClient}. Every page operation returns a {@link CompletableFuture}
+ * that completes with the {@link SlingHttpResponse} of the underlying blocking call, or exceptionally with
+ * the {@link ClientException} it threw.</p>
+ *
+ * <p>Obtain it with {@code client.adaptTo(AsyncCQClient.class)}: the adapted client shares the http client,
+ * and thus the connection pool, of the original one. Operations run on a bounded executor, by default a
+ * shared pool of {@value #DEFAULT_THREADS} threads (the default number of connections per route), which can
+ * be resized with the {@value #THREADS_PROP} system property or replaced per client with
+ * {@link #setExecutor(Executor)}. On virtual threads, see {@code ThreadUtils}, each operation gets its own thread
+ * and waits for a connection of the pool; {@value #THREADS_PROP} then only bounds them when it is set.</p>
+ *
+ * <pre>
+ * AsyncCQClient async = adminClient.adaptTo(AsyncCQClient.class);
+ * List&lt;CompletableFuture&lt;SlingHttpResponse&gt;&gt; pages = new ArrayList&lt;&gt;();
+ * for (int i = 0; i &lt; 100; i++) {
+ *     pages.add(async.createPageAsync("page" + i, "Page " + i, "/content/test-site", templatePath));
+ * }
+ * AsyncCQClient.awaitAll(pages);
+ * </pre>
+ */
+public class AsyncCQClient extends CQClient {
+
+    /**
+     * System property used to size the default executor
+     */
+    public static final String THREADS_PROP = "cq.testing.async.threads";
+
+    /**
+     * Default number of threads of the shared executor
+     */
+    public static final int DEFAULT_THREADS = 10;
+
+    private volatile Executor executor;
+
+    /**
+     * Constructor used by Builders and adaptTo(). <b>Should never be called directly from the code.</b>
+     *
+     * @param http   the underlying HttpClient to be used
+     * @param config sling specific configs
+     * @throws ClientException if the client could not be created
+     */
+    public AsyncCQClient(CloseableHttpClient http, SlingClientConfig config) throws ClientException {
+        super(http, config);
+    }
+
+    /**
+     * Handy constructor easy to use in simple tests. Creates a client that uses basic authentication.
+     *
+     * @param url      url of the server (including context path)
+     * @param user     username for basic authentication
+     * @param password password for basic authentication
+     * @throws ClientException never, kept for uniformity with the other constructors
+     */
+    public AsyncCQClient(URI url, String user, String password) throws ClientException {
+        super(url, user, password);
+    }
+
+    /**
+     * A blocking client operation to be executed asynchronously.
+     *
+     * @param <T> the result type of the operation
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T call() throws ClientException;
+    }
+
+    /**
+     * Sets the executor used by this client instance. The executor should be bounded to the size of the
+     * connection pool, otherwise extra operations only wait for a free connection.
+     *
+     * @param executor the executor to run the operations on, or {@code null} to use the shared default
+     * @return this client
+     */
+    public AsyncCQClient setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @return the executor used by this client instance
+     */
+    public Executor getExecutor() {
+        Executor e = executor;
+        return e != null ? e : DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Runs any blocking operation of this (or another) client asynchronously on the executor of this client.
+     *
+     * @param operation the operation to run
+     * @param <T>       the result type of the operation
+     * @return a future completing with the result of the operation
+     */
+    public <T> CompletableFuture<T> supplyAsync(Operation<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return operation.call();
+            } catch (ClientException e) {
+                throw new CompletionException(e);
+            }
+        }, getExecutor());
+    }
+
+    /**
+     * Asynchronous version of {@link #createPage(String, String, String, String, int...)}
+     *
+     * @param pageName       name of the page
+     * @param pageTitle      title of the page
+     * @param parentPath     path to the parent page
+     * @param templatePath   path to the template
+     * @param expectedStatus list of expected HTTP Status to be returned, if not set, 200 is assumed.
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> createPageAsync(String pageName, String pageTitle, String parentPath,
+                                                                String templatePath, int... expectedStatus) {
+        return supplyAsync(() -> createPage(pageName, pageTitle, parentPath, templatePath, expectedStatus));
+    }
+
+    /**
+     * Asynchronous version of {@link #deletePage(String[], boolean, boolean, int...)}
+     *
+     * @param pagePaths      array of paths to be deleted
+     * @param force          force param passed to wcmCommands
+     * @param shallow        shallow param passed to wcmCommands
+     * @param expectedStatus list of expected HTTP status to be returned
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> deletePageAsync(String[] pagePaths, boolean force, boolean shallow,
+                                                                int... expectedStatus) {
+        return supplyAsync(() -> deletePage(pagePaths, force, shallow, expectedStatus));
+    }
+
+    /**
+     * Asynchronous version of {@link #copyPage(String[], String, String, String, String, boolean, int...)}
+     *
+     * @param srcPaths       list of pages to copy
+     * @param destName       name given to the copied page at new location
+     * @param destPath       destination of copy operation
+     * @param destParentPath target location of the copy operation
+     * @param before         if set, the copied page will be ordered before the page with this label (Name)
+     * @param shallow        if true, the only the page itself gets copied
+     * @param expectedStatus list of expected HTTP Status to be returned, if not set, 200 is assumed.
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> copyPageAsync(String[] srcPaths, String destName, String destPath,
+                                                              String destParentPath, String before, boolean shallow,
+                                                              int... expectedStatus) {
+        return supplyAsync(() -> copyPage(srcPaths, destName, destPath, destParentPath, before, shallow,
+                expectedStatus));
+    }
+
+    /**
+     * Asynchronous version of {@link #movePage(String[], String, String, String, String, boolean, boolean, String[], int...)}
+     *
+     * @param srcPaths       list of pages to move
+     * @param destName       name given to the moved page at new location
+     * @param destPath       destination of move operation
+     * @param destParentPath target location of the move operation
+     * @param before         if set, the moved page will be ordered before the page with this label (Name)
+     * @param shallow        if true, the only the page itself gets moved
+     * @param integrity      if true, no auto adjustment of referred pages will be done
+     * @param adjusts        list of referrer page paths that need adjusting
+     * @param expectedStatus list of expected HTTP Status to be returned, if not set, 200 is assumed.
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> movePageAsync(String[] srcPaths, String destName, String destPath,
+                                                              String destParentPath, String before, boolean shallow,
+                                                              boolean integrity, String[] adjusts,
+                                                              int... expectedStatus) {
+        return supplyAsync(() -> movePage(srcPaths, destName, destPath, destParentPath, before, shallow, integrity,
+                adjusts, expectedStatus));
+    }
+
+    /**
+     * Asynchronous version of {@link #setPageProperties(String, List, int...)}
+     *
+     * @param pagePath       path of the page to be edited
+     * @param props          list of name/value string pairs to be set
+     * @param expectedStatus list of expected HTTP Status to be returned, if not set, 200 is assumed.
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> setPagePropertiesAsync(String pagePath, List<NameValuePair> props,
+                                                                       int... expectedStatus) {
+        return supplyAsync(() -> setPageProperties(pagePath, props, expectedStatus));
+    }
+
+    /**
+     * Asynchronous version of {@link #createVersion(String, String, String, int...)}
+     *
+     * @param pagePath       path of the page we want to create a version of
+     * @param comment        comment to be set for this version
+     * @param label          Version label to be set
+     * @param expectedStatus list of expected HTTP Status to be returned, if not set, 200 is assumed
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> createVersionAsync(String pagePath, String comment, String label,
+                                                                   int... expectedStatus) {
+        return supplyAsync(() -> createVersion(pagePath, comment, label, expectedStatus));
+    }
+
+    /**
+     * Asynchronous version of {@link #rolloutPage(String, String[], boolean, boolean, boolean, int...)}
+     *
+     * @param srcPath          the blue print path
+     * @param targetPaths      the live copy paths
+     * @param deep             if set to false, page is the fallback
+     * @param reset            reset
+     * @param useBackgroundJob if set to true background jobs are used for rollout
+     * @param expectedStatus   list of expected HTTP Status to be returned, if not set, 200 is assumed
+     * @return a future completing with the response
+     */
+    public CompletableFuture<SlingHttpResponse> rolloutPageAsync(String srcPath, String[] targetPaths, boolean deep,
+                                                                 boolean reset, boolean useBackgroundJob,
+                                                                 int... expectedStatus) {
+        return supplyAsync(() -> rolloutPage(srcPath, targetPaths, deep, reset, useBackgroundJob, expectedStatus));
+    }
+
+    /**
+     * Waits for all the futures to complete and returns their results in the same order. All the futures are
+     * awaited even if some fail; the first failure is then rethrown.
+     *
+     * @param futures the futures to wait for
+     * @param <T>     the result type
+     * @return the results, in the iteration order of {@code futures}
+     * @throws ClientException      if any of the operations failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> List<T> awaitAll(Collection<? extends CompletableFuture<? extends T>> futures)
+            throws ClientException, InterruptedException {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException e) {
+            // fall through, the failure is reported below in order
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<? extends T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ClientException) {
+                    throw (ClientException) cause;
+                }
+                throw new ClientException("Asynchronous operation failed", cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lazily creates the shared executor, so that the threads only exist when the async client is used.
+     */
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = ThreadUtils.newExecutor("cq-async-client",
+                Integer.getInteger(THREADS_PROP, DEFAULT_THREADS), System.getProperty(THREADS_PROP) != null, true);
+    }
+}
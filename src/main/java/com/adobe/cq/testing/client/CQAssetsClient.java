@@ -21,9 +21,12 @@ import com.adobe.cq.testing.client.assets.dto.FailedRendition;
 import com.adobe.cq.testing.client.assets.dto.InitiateUploadFile;
 import com.adobe.cq.testing.client.assets.dto.InitiateUploadResponse;
 import com.adobe.cq.testing.client.assets.dto.ProcessedAsset;
+import com.adobe.cq.testing.client.pool.ConnectionPoolRegistry;
+import com.adobe.cq.testing.polling.Backoff;
+import com.adobe.cq.testing.polling.BackoffPolling;
+import com.adobe.cq.testing.util.JsonStreamUtils;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
@@ -48,7 +51,6 @@ import org.apache.sling.testing.clients.util.HttpUtils;
 import org.apache.sling.testing.clients.util.JsonUtils;
 import org.apache.sling.testing.clients.util.ResourceUtil;
 import org.apache.sling.testing.clients.util.ServerErrorRetryStrategy;
-import org.apache.sling.testing.clients.util.poller.Polling;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,6 +78,12 @@ public class CQAssetsClient extends CQClient {
     private static final String DAM_ASSET_STATE = "dam:assetState";
     private static final String DAM_ASSET_STATE_PROCESSED = "processed";
     private static final String DBA_CONTENT_DAM_INITIATE_UPLOAD = "/content/dam.initiateUpload.json";
+
+    /**
+     * Name of the {@link ConnectionPoolRegistry} pool of the requests to the blob storage
+     */
+    public static final String STORAGE_POOL = "blob-storage";
+
     private final DirectBinaryAccessSupport binaryAccessSupport = new DirectBinaryAccessSupport();
     private final CloseableHttpClient storageClient;
 
@@ -163,9 +171,26 @@ public class CQAssetsClient extends CQClient {
      */
     public ProcessedAsset waitAssetProcessed(String assetPath, long timeout, long delay)
             throws ClientException, TimeoutException, InterruptedException {
+        return waitAssetProcessed(assetPath, timeout, Backoff.forDelay(delay));
+    }
+
+    /**
+     * Wait for an asset to complete processing. The asset state will be checked at least once. If the timeout is 0 or
+     * less, then the asset state will be executed exactly once.
+     *
+     * @param assetPath Path to an asset
+     * @param timeout total time to wait, in milliseconds
+     * @param backoff strategy computing the time to wait between polls of asset status
+     * @return ProcessedAsset
+     * @throws ClientException if something fails during the request/response cycle, or if the asset failed to process
+     * @throws TimeoutException if the wait times out
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public ProcessedAsset waitAssetProcessed(String assetPath, long timeout, Backoff backoff)
+            throws ClientException, TimeoutException, InterruptedException {
         ProcessedAsset processedAsset = new ProcessedAsset();
         processedAsset.setAssetPath(assetPath);
-        Polling p = new Polling() {
+        BackoffPolling p = new BackoffPolling() {
             private String assetStatus;
 
             @Override
@@ -183,7 +208,7 @@ public class CQAssetsClient extends CQClient {
                 return "Asset " + assetPath + " has not been processed after %1$d ms";
             }
         };
-        p.poll(timeout, delay);
+        p.poll(timeout, backoff);
 
         // check if there are any failures
         processedAsset.setFailedRenditions(getAssetProcessingFailures(assetPath));
@@ -275,9 +300,9 @@ public class CQAssetsClient extends CQClient {
         storageClient = HttpClientBuilder.create()
             .useSystemProperties()
             .setUserAgent("Java")
-            // Connection
-            .setMaxConnPerRoute(10)
-            .setMaxConnTotal(100)
+            // Connection, shared by all the instances of the client
+            .setConnectionManager(ConnectionPoolRegistry.getDefault().getConnectionManager(STORAGE_POOL))
+            .setConnectionManagerShared(true)
             // Interceptors
             .addInterceptorLast(new TestDescriptionInterceptor())
             .addInterceptorLast(new DelayRequestInterceptor(SystemPropertiesConfig.getHttpDelay()))
@@ -389,17 +414,16 @@ public class CQAssetsClient extends CQClient {
      */
     private InitiateUploadResponse initiateUpload(String fileName, String parentPath, long fileSize) throws ClientException {
         String requestPath = parentPath + ".initiateUpload.json";
+        HttpEntity entity = MultipartEntityBuilder.create()
+                .addTextBody("fileName", fileName)
+                .addTextBody("fileSize", Long.toString(fileSize))
+                .setCharset(StandardCharsets.UTF_8)
+                .build();
+
+        SlingHttpResponse response = doStreamPost(requestPath, entity, null, HttpStatus.SC_OK);
         try {
-            HttpEntity entity = MultipartEntityBuilder.create()
-                    .addTextBody("fileName", fileName)
-                    .addTextBody("fileSize", Long.toString(fileSize))
-                    .setCharset(StandardCharsets.UTF_8)
-                    .build();
-
-            SlingHttpResponse response = doPost(requestPath, entity, HttpStatus.SC_OK);
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(response.getContent(), InitiateUploadResponse.class);
-        } catch (IOException e) {
+            return JsonStreamUtils.readValue(response, InitiateUploadResponse.class);
+        } catch (ClientException e) {
             throw new ClientException("Unable to parse JSON response for initiateUpload - " +
                     " requestPath: " + requestPath + ", fileName: " + fileName + ", fileSize: " + fileSize, e);
         }
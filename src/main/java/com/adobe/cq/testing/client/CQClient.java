@@ -15,39 +15,62 @@
  */
 package com.adobe.cq.testing.client;
 
+import com.adobe.cq.testing.client.cache.JsonResponseCache;
+import com.adobe.cq.testing.client.metrics.MetricsInterceptor;
+import com.adobe.cq.testing.client.metrics.MetricsRecorder;
+import com.adobe.cq.testing.client.pool.ConnectionPoolRegistry;
+import com.adobe.cq.testing.client.transport.Http2Transport;
+import com.adobe.cq.testing.client.transport.Http2TransportClient;
+import com.adobe.cq.testing.polling.Backoff;
+import com.adobe.cq.testing.polling.BackoffPolling;
+import com.adobe.cq.testing.util.JsonStreamUtils;
 import com.adobe.cq.testing.util.WCMCommands;
 import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.NameValuePair;
 import org.apache.http.annotation.Contract;
 import org.apache.http.annotation.ThreadingBehavior;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.protocol.HttpProcessorBuilder;
+import org.apache.http.protocol.RequestUserAgent;
+import org.apache.http.util.EntityUtils;
 import org.apache.sling.testing.Constants;
 import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingClient;
 import org.apache.sling.testing.clients.SlingClientConfig;
 import org.apache.sling.testing.clients.SlingHttpResponse;
+import org.apache.sling.testing.clients.SystemPropertiesConfig;
+import org.apache.sling.testing.clients.interceptors.DelayRequestInterceptor;
+import org.apache.sling.testing.clients.interceptors.TestDescriptionInterceptor;
+import org.apache.sling.testing.clients.interceptors.UserAgentInterceptor;
 import org.apache.sling.testing.clients.util.FormEntityBuilder;
 import org.apache.sling.testing.clients.util.HttpUtils;
-import org.apache.sling.testing.clients.util.JsonUtils;
 import org.apache.sling.testing.clients.util.ResourceUtil;
-import org.apache.sling.testing.clients.util.poller.Polling;
+import org.apache.sling.testing.clients.util.ServerErrorRetryStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 import static org.apache.http.HttpStatus.SC_CREATED;
+import static org.apache.http.HttpStatus.SC_NOT_MODIFIED;
 import static org.apache.http.HttpStatus.SC_OK;
 
 /**
@@ -57,7 +80,7 @@ import static org.apache.http.HttpStatus.SC_OK;
  * <p>It extends from {@link SlingClient} which in turn provides functions for
  * manipulating repository nodes directly.</p>
  */
-@Contract(threading = ThreadingBehavior.IMMUTABLE)
+@Contract(threading = ThreadingBehavior.SAFE)
 public class CQClient extends SlingClient {
     public static Logger LOG = LoggerFactory.getLogger(CQClient.class);
 
@@ -71,6 +94,11 @@ public class CQClient extends SlingClient {
      */
     protected final WCMCommands wcmCommands = new WCMCommands(this);
 
+    /**
+     * Cache of the {@link #doGetJson(String, int, int...)} responses, {@code null} when disabled
+     */
+    private volatile JsonResponseCache jsonCache;
+
     /**
      * Constructor used by Builders and adaptTo(). <b>Should never be called directly from the code.</b>
      * See AbstractSlingClient#AbstractSlingClient(CloseableHttpClient, SlingClientConfig)
@@ -99,6 +127,162 @@ public class CQClient extends SlingClient {
         super(url, user, password);
     }
 
+    /**
+     * Returns the JSON content of a node. Same as {@link SlingClient#doGetJson(String, int, int...)}, except that
+     * the response is parsed from the entity stream instead of being buffered as a String first.
+     *
+     * @param path           the path to the content node
+     * @param depth          the number of levels to go down the tree, -1 for infinity
+     * @param expectedStatus list of allowed HTTP Status to be returned. If not set, 200 is assumed.
+     * @return a {@link JsonNode} mapping to the requested content node.
+     * @throws ClientException if something fails during request/response processing
+     */
+    @Override
+    public JsonNode doGetJson(String path, int depth, int... expectedStatus) throws ClientException {
+        String jsonPath = path + (depth == -1 ? ".infinity.json" : "." + depth + ".json");
+        int[] expected = HttpUtils.getExpectedStatus(SC_OK, expectedStatus);
+        JsonResponseCache cache = jsonCache;
+        if (cache == null) {
+            return JsonStreamUtils.readTree(doStreamGet(jsonPath, null, null, expected));
+        }
+
+        JsonNode cached = cache.getFresh(jsonPath);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Header> conditional = cache.getConditionalHeaders(jsonPath);
+        if (!conditional.isEmpty()) {
+            int[] accepted = Arrays.copyOf(expected, expected.length + 1);
+            accepted[expected.length] = SC_NOT_MODIFIED;
+            long generation = cache.getGeneration();
+            SlingHttpResponse response = doStreamGet(jsonPath, null, conditional, accepted);
+            if (response.getStatusLine().getStatusCode() != SC_NOT_MODIFIED) {
+                return readAndCache(cache, jsonPath, response, generation);
+            }
+            EntityUtils.consumeQuietly(response.getEntity());
+            cached = cache.revalidated(jsonPath);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long generation = cache.getGeneration();
+        return readAndCache(cache, jsonPath, doStreamGet(jsonPath, null, null, expected), generation);
+    }
+
+    /**
+     * @param generation the generation of the cache read before sending the request, the response is not stored
+     *                   if a write invalidated the cache meanwhile
+     */
+    private JsonNode readAndCache(JsonResponseCache cache, String jsonPath, SlingHttpResponse response,
+                                  long generation) throws ClientException {
+        int status = response.getStatusLine().getStatusCode();
+        Header etag = response.getFirstHeader("ETag");
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        JsonNode node = JsonStreamUtils.readTree(response);
+        if (status != SC_OK) {
+            return node;
+        }
+        return cache.put(jsonPath, node, etag != null ? etag.getValue() : null,
+                lastModified != null ? lastModified.getValue() : null, generation);
+    }
+
+    /**
+     * <p>Same as {@link SlingClient#exists(String)}, except that no request is made if a fresh response for the
+     * path is found in the JSON cache.</p>
+     *
+     * @param path path to check
+     * @return true if the path exists
+     * @throws ClientException if something fails during request/response cycle
+     */
+    @Override
+    public boolean exists(String path) throws ClientException {
+        JsonResponseCache cache = jsonCache;
+        if (cache != null && cache.containsFresh(path)) {
+            return true;
+        }
+        return super.exists(path);
+    }
+
+    /**
+     * <p>Executes the request like {@link SlingClient#doStreamRequest(HttpUriRequest, List, int...)}. When the JSON
+     * cache is enabled, any request other than GET or HEAD invalidates the cached responses of the target path, of
+     * its ancestors and of its descendants. Requests to servlets under {@code /bin/} (e.g. WCM commands), which
+     * address content through their parameters, invalidate the whole cache.</p>
+     *
+     * @param request        the request to be executed
+     * @param headers        optional headers to be added to the request
+     * @param expectedStatus if passed, the response status is checked against it/them
+     * @return the response, with the entity not consumed
+     * @throws ClientException if the request could not be executed
+     */
+    @Override
+    public SlingHttpResponse doStreamRequest(HttpUriRequest request, List<Header> headers, int... expectedStatus)
+            throws ClientException {
+        JsonResponseCache cache = jsonCache;
+        if (cache == null || "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            return super.doStreamRequest(request, headers, expectedStatus);
+        }
+        // invalidate before, so that the reads sent during the write are not served from the cache, and after, so
+        // that the responses to the reads sent before the write are not stored, see JsonResponseCache#put
+        invalidate(cache, request);
+        try {
+            return super.doStreamRequest(request, headers, expectedStatus);
+        } finally {
+            invalidate(cache, request);
+        }
+    }
+
+    private void invalidate(JsonResponseCache cache, HttpUriRequest request) {
+        String path = request.getURI().getPath();
+        String contextPath = getUrl().getPath();
+        if (contextPath != null && contextPath.length() > 1) {
+            contextPath = contextPath.endsWith("/") ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+            if (path.startsWith(contextPath + "/")) {
+                path = path.substring(contextPath.length());
+            }
+        }
+        if (path.startsWith("/bin/")) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(path);
+        }
+    }
+
+    /**
+     * <p>Enables the client side cache of {@link #doGetJson(String, int, int...)} responses for this client
+     * instance. A cached response is returned without any request during {@code ttl} milliseconds; after that, it
+     * is revalidated with a conditional request when the server sent an {@code ETag} or {@code Last-Modified}
+     * header. Writes done through this client invalidate the affected entries, writes done by other clients are
+     * only seen once the entry expires.</p>
+     *
+     * <p>The cache is not shared with the clients obtained through {@link #adaptTo(Class)}.</p>
+     *
+     * @param ttl time in milliseconds during which a response is served from the cache
+     * @return this client
+     */
+    public CQClient enableJsonCache(long ttl) {
+        this.jsonCache = new JsonResponseCache(ttl);
+        return this;
+    }
+
+    /**
+     * Disables and clears the JSON cache of this client.
+     *
+     * @return this client
+     */
+    public CQClient disableJsonCache() {
+        this.jsonCache = null;
+        return this;
+    }
+
+    /**
+     * @return the JSON cache of this client, with its hit/miss statistics, or {@code null} if it is not enabled
+     */
+    public JsonResponseCache getJsonCache() {
+        return jsonCache;
+    }
+
     /**
      * Creates a CQ page in the repository.
      *
@@ -133,8 +317,30 @@ public class CQClient extends SlingClient {
                                                  final String parentPath, final String templatePath,
                                                  long timeout, long delay, final int... expectedStatus)
             throws ClientException, InterruptedException {
+        return createPageWithRetry(pageName, pageTitle, parentPath, templatePath, timeout, Backoff.forDelay(delay),
+                expectedStatus);
+    }
 
-        class CreatePagePolling extends Polling {
+    /**
+     * Tries to create a CQ page until the request succeeds or timeout is reached
+     *
+     * @param pageName       name of the page
+     * @param pageTitle      title of the page
+     * @param parentPath     path to the parent page
+     * @param templatePath   path to the template definition
+     * @param timeout        max execution time, in milliseconds
+     * @param backoff        strategy computing the time to wait between retries
+     * @param expectedStatus list of expected HTTP Status to be returned, if not set, 200 is assumed.
+     * @return a {@link SlingHttpResponse}
+     * @throws ClientException      if something fails during the request/response cycle
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public SlingHttpResponse createPageWithRetry(final String pageName, final String pageTitle,
+                                                 final String parentPath, final String templatePath,
+                                                 long timeout, Backoff backoff, final int... expectedStatus)
+            throws ClientException, InterruptedException {
+
+        class CreatePagePolling extends BackoffPolling {
             SlingHttpResponse response;
 
             @Override
@@ -146,7 +352,7 @@ public class CQClient extends SlingClient {
 
         CreatePagePolling createPolling = new CreatePagePolling();
         try {
-            createPolling.poll(timeout, delay);
+            createPolling.poll(timeout, backoff);
         } catch (TimeoutException e) {
             throw new ClientException("Failed to create page " + pageName + " in " + createPolling.getWaited(), e);
         }
@@ -185,11 +391,30 @@ public class CQClient extends SlingClient {
     public SlingHttpResponse deletePageWithRetry(final String pagePath, final boolean force, final boolean shallow,
                                                  long timeout, long delay, final int... expectedStatus)
             throws ClientException, InterruptedException {
+        return deletePageWithRetry(pagePath, force, shallow, timeout, Backoff.forDelay(delay), expectedStatus);
+    }
+
+    /**
+     * Tries to deletes a CQ page multiple times if the request fails
+     *
+     * @param pagePath       the path to delete
+     * @param force          passed to wcmCommands
+     * @param shallow        passed to wcmCommands
+     * @param timeout        max execution time, in milliseconds
+     * @param backoff        strategy computing the time to wait between retries
+     * @param expectedStatus list of expected HTTP status to be returned
+     * @return the response
+     * @throws ClientException      if the page(s) wre not deleted
+     * @throws InterruptedException if the method was interrupted
+     */
+    public SlingHttpResponse deletePageWithRetry(final String pagePath, final boolean force, final boolean shallow,
+                                                 long timeout, Backoff backoff, final int... expectedStatus)
+            throws ClientException, InterruptedException {
 
         // The deletePage call might fail with a server-side StaleItemStateException, as we're deleting a page
         // that we just created and CQ listeners might still be making modifications to it.
         // Retry a few times if that happens - this is an "unusual" use case that we don't need to solve server-side.
-        class DeletePagePolling extends Polling {
+        class DeletePagePolling extends BackoffPolling {
             SlingHttpResponse response;
 
             @Override
@@ -201,7 +426,7 @@ public class CQClient extends SlingClient {
 
         DeletePagePolling deletePagePolling = new DeletePagePolling();
         try {
-            deletePagePolling.poll(timeout, delay);
+            deletePagePolling.poll(timeout, backoff);
         } catch (TimeoutException e) {
             throw new ClientException("Could not delete page " + pagePath + " as user " + getUser(), e);
         }
@@ -231,8 +456,21 @@ public class CQClient extends SlingClient {
      * @throws InterruptedException if interrupted
      */
     public boolean pageExistsWithRetry(String pagePath, int timeout) throws InterruptedException {
+        return pageExistsWithRetry(pagePath, timeout, Backoff.forDelay(500));
+    }
+
+    /**
+     * Polls on whether a CQ page exists or not
+     *
+     * @param pagePath The path of the page
+     * @param timeout  Timeout in milliseconds for the poller
+     * @param backoff  strategy computing the time to wait between retries
+     * @return whether the CQ page exists
+     * @throws InterruptedException if interrupted
+     */
+    public boolean pageExistsWithRetry(String pagePath, int timeout, Backoff backoff) throws InterruptedException {
         try {
-            new Polling(() -> pageExists(pagePath)).poll(timeout, 500);
+            new BackoffPolling(() -> pageExists(pagePath)).poll(timeout, backoff);
         } catch (TimeoutException e) {
             return false;
         }
@@ -571,9 +809,9 @@ public class CQClient extends SlingClient {
         params.add(new BasicNameValuePair("cs", Boolean.toString(caseSensitive)));
         params.add(new BasicNameValuePair("wwo", Boolean.toString(wholeWordOnly)));
 
-        SlingHttpResponse exec = doGet(searchPath, params, SC_OK);
+        SlingHttpResponse exec = doStreamGet(searchPath, params, null, SC_OK);
 
-        return JsonUtils.getJsonNodeFromString(exec.getContent());
+        return JsonStreamUtils.readTree(exec);
     }
 
     /**
@@ -632,8 +870,128 @@ public class CQClient extends SlingClient {
 
     public static abstract class InternalBuilder<T extends CQClient> extends SlingClient.InternalBuilder<T> {
 
+        private MetricsRecorder metricsRecorder;
+        private ConnectionPoolRegistry poolRegistry;
+        private String authContext = ConnectionPoolRegistry.BASIC_AUTH;
+        private Http2Transport http2Transport;
+        private URI url;
+
         protected InternalBuilder(URI url, String user, String password) {
             super(url, user, password);
+            this.url = url;
+            if (Boolean.getBoolean(MetricsRecorder.ENABLED_PROP)) {
+                metricsRecorder = MetricsRecorder.getDefault();
+            }
+            if (Boolean.getBoolean(ConnectionPoolRegistry.SHARED_PROP)) {
+                poolRegistry = ConnectionPoolRegistry.getDefault();
+            }
+        }
+
+        @Override
+        public InternalBuilder<T> setUrl(URI url) {
+            super.setUrl(url);
+            this.url = url;
+            return this;
+        }
+
+        /**
+         * Records the latency, bytes and status of every request of the client into the default
+         * {@link MetricsRecorder}. Also enabled for all builders by the {@value MetricsRecorder#ENABLED_PROP}
+         * system property.
+         *
+         * @return this builder
+         */
+        public InternalBuilder<T> enableMetrics() {
+            return enableMetrics(MetricsRecorder.getDefault());
+        }
+
+        /**
+         * Records the latency, bytes and status of every request of the client into {@code recorder}.
+         *
+         * @param recorder the recorder collecting the metrics, or {@code null} to disable them
+         * @return this builder
+         */
+        public InternalBuilder<T> enableMetrics(MetricsRecorder recorder) {
+            this.metricsRecorder = recorder;
+            return this;
+        }
+
+        /**
+         * Uses the connections of the default {@link ConnectionPoolRegistry} for the target host, shared with the
+         * other clients of the same host using basic authentication. Also enabled for all builders by the
+         * {@value ConnectionPoolRegistry#SHARED_PROP} system property.
+         *
+         * @return this builder
+         */
+        public InternalBuilder<T> useSharedConnectionPool() {
+            return useSharedConnectionPool(ConnectionPoolRegistry.getDefault(), ConnectionPoolRegistry.BASIC_AUTH);
+        }
+
+        /**
+         * Uses the connections of a registry for the target host and auth context.
+         *
+         * @param registry the registry of the shared pools, or {@code null} for a pool owned by the client
+         * @param authContext identifies the clients allowed to share the connections, see
+         *                    {@link ConnectionPoolRegistry}
+         * @return this builder
+         */
+        public InternalBuilder<T> useSharedConnectionPool(ConnectionPoolRegistry registry, String authContext) {
+            this.poolRegistry = registry;
+            this.authContext = authContext;
+            return this;
+        }
+
+        /**
+         * Sends the requests of the client over the default {@link Http2Transport}, which multiplexes the concurrent
+         * requests of all the clients of a host over a single connection. Requires the optional
+         * {@code httpclient5} dependency and a server supporting HTTP/2.
+         *
+         * @return this builder
+         */
+        public InternalBuilder<T> useHttp2Transport() {
+            return useHttp2Transport(Http2Transport.getDefault());
+        }
+
+        /**
+         * Sends the requests of the client over an HTTP/2 transport. Only the interceptors added by this library
+         * (test description, user agent, request delay, cookies and metrics) run with this transport, the ones
+         * added with {@code addInterceptorFirst/Last} are ignored.
+         *
+         * @param transport the transport, or {@code null} for the default HTTP/1.1 connections
+         * @return this builder
+         */
+        public InternalBuilder<T> useHttp2Transport(Http2Transport transport) {
+            this.http2Transport = transport;
+            return this;
+        }
+
+        @Override
+        protected CloseableHttpClient buildHttpClient() {
+            if (http2Transport != null) {
+                HttpProcessorBuilder processor = HttpProcessorBuilder.create()
+                        .add(new RequestUserAgent(SystemPropertiesConfig.getDefaultUserAgent()))
+                        .add(new TestDescriptionInterceptor())
+                        .add(new UserAgentInterceptor())
+                        .add(new DelayRequestInterceptor(SystemPropertiesConfig.getHttpDelay()))
+                        .add(new RequestAddCookies())
+                        .add(new ResponseProcessCookies());
+                if (metricsRecorder != null) {
+                    MetricsInterceptor metrics = new MetricsInterceptor(metricsRecorder, url.getRawPath());
+                    processor.add((HttpRequestInterceptor) metrics).add((HttpResponseInterceptor) metrics);
+                }
+                return new Http2TransportClient(http2Transport, processor.build(), new ServerErrorRetryStrategy());
+            }
+            if (poolRegistry != null) {
+                // closing the client must not close the connections of the other clients
+                httpClientBuilder()
+                        .setConnectionManager(poolRegistry.getConnectionManager(url, authContext))
+                        .setConnectionManagerShared(true);
+            }
+            if (metricsRecorder != null) {
+                // last, so that the delay added by other interceptors is not measured
+                addInterceptorLast(new MetricsInterceptor(metricsRecorder, url.getRawPath()));
+            }
+            return super.buildHttpClient();
         }
     }
 
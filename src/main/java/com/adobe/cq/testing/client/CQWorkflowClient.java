@@ -15,6 +15,7 @@
  */
 package com.adobe.cq.testing.client;
 
+import com.adobe.cq.testing.client.cache.WorkflowModelCache;
 import com.adobe.cq.testing.client.workflow.EventType;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.http.HttpEntity;
@@ -65,7 +66,10 @@ public class CQWorkflowClient extends WorkflowClient {
     public SlingHttpResponse createNewModelPage(String modelName, String modelTitle, int... expectedStatusRange)
             throws ClientException {
         // create the model page
-        return cqClient.createPage(modelName, modelTitle, ROOT_PATH_MODEL, CQ_MODEL_PAGE_TEMPLATE, expectedStatusRange);
+        SlingHttpResponse response = cqClient.createPage(modelName, modelTitle, ROOT_PATH_MODEL,
+                CQ_MODEL_PAGE_TEMPLATE, expectedStatusRange);
+        invalidateModel(ROOT_PATH_MODEL + modelName);
+        return response;
     }
 
     /**
@@ -77,7 +81,9 @@ public class CQWorkflowClient extends WorkflowClient {
      * @throws ClientException if the request fails
      */
     public SlingHttpResponse saveModel(String modelPath, int... expectedStatus) throws ClientException {
-        return doPost(modelPath + SAVE_SUFFIX, null, expectedStatus);
+        SlingHttpResponse response = doPost(modelPath + SAVE_SUFFIX, null, expectedStatus);
+        invalidateModel(modelPath);
+        return response;
     }
 
     /**
@@ -106,6 +112,7 @@ public class CQWorkflowClient extends WorkflowClient {
                 .build();
 
         doPost("/libs/cq/workflow/launcher", form, HttpStatus.SC_OK);
+        invalidateLaunchers();
     }
 
     /**
@@ -158,6 +165,14 @@ public class CQWorkflowClient extends WorkflowClient {
 
         // save the launcher
         doPost("/libs/cq/workflow/launcher", form.build(), HttpStatus.SC_OK);
+        invalidateLaunchers();
+    }
+
+    private void invalidateLaunchers() {
+        WorkflowModelCache cache = getModelCache();
+        if (cache != null) {
+            cache.invalidateLaunchers();
+        }
     }
 
     /**
@@ -168,7 +183,10 @@ public class CQWorkflowClient extends WorkflowClient {
      * @throws ClientException if the request fails
      */
     public Map<String, String> getWorkflowLauncher(String launcherId) throws ClientException {
-        JsonNode launchers = this.doGetJson("/etc/workflow/launcher/config", 1);
+        WorkflowModelCache cache = getModelCache();
+        // the cached node is shared, it is only read
+        JsonNode launchers = cache != null ? cache.getLaunchers(this::requestWorkflowLaunchers)
+                : requestWorkflowLaunchers();
         JsonNode launcherNode = launchers.get(launcherId);
 
         if (null == launcherNode)
@@ -184,6 +202,10 @@ public class CQWorkflowClient extends WorkflowClient {
         return launcher;
     }
 
+    private JsonNode requestWorkflowLaunchers() throws ClientException {
+        return this.doGetJson("/etc/workflow/launcher/config", 1);
+    }
+
     /**
      * Enables or disables the workflow launcher
      *
@@ -212,7 +234,16 @@ public class CQWorkflowClient extends WorkflowClient {
                 : "/etc/workflow/models/" + workflowModel;
         workflowModel = workflowModel.endsWith("/jcr:content") ? workflowModel
                 : workflowModel+"/jcr:content" ;
-        JsonNode json = this.adaptTo(JsonClient.class).doGetJson(workflowModel, 0);
+        String modelPath = workflowModel;
+        WorkflowModelCache cache = getModelCache();
+        if (cache != null) {
+            return cache.isTransient(modelPath, () -> requestWorkflowTransient(modelPath));
+        }
+        return requestWorkflowTransient(modelPath);
+    }
+
+    private boolean requestWorkflowTransient(String modelPath) throws ClientException {
+        JsonNode json = this.adaptTo(JsonClient.class).doGetJson(modelPath, 0);
         return (!json.path("transient").isMissingNode()) && (json.get("transient").asText().equalsIgnoreCase("true"));
     }
 }
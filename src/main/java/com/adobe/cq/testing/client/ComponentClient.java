@@ -227,7 +227,7 @@ public class ComponentClient extends CQClient {
         // check if path even exists
         if(!this.exists(componentPath)) return null;
         // Get the json for this node
-        JsonNode node = adaptTo(JsonClient.class).doGetJson(componentPath, 1);
+        JsonNode node = doGetJson(componentPath, 1);
         // check if the node has a sling:resourceType property
         if (node.get("sling:resourceType").isMissingNode()) {
             throw new ClientException(componentPath + " is not pointing to a foundation component node, no " +
@@ -254,7 +254,7 @@ public class ComponentClient extends CQClient {
         // check if path even exists
         if(!this.exists(componentPath)) return null;
         // Get the json for this node
-        JsonNode node = adaptTo(JsonClient.class).doGetJson(componentPath, 1);
+        JsonNode node = doGetJson(componentPath, 1);
         // check if the node has a sling:resourceType property
         if (node.get("sling:resourceType").isMissingNode()) {
             throw new ClientException(componentPath + " is not pointing to a foundation component node, no " +
@@ -16,6 +16,7 @@
 package com.adobe.cq.testing.client;
 
 import com.adobe.cq.testing.client.jobs.*;
+import com.adobe.cq.testing.util.JsonStreamUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.http.NameValuePair;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -24,7 +25,6 @@ import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingClientConfig;
 import org.apache.sling.testing.clients.SlingHttpResponse;
 import org.apache.sling.testing.clients.util.HttpUtils;
-import org.apache.sling.testing.clients.util.JsonUtils;
 
 import java.net.URI;
 import java.util.ArrayList;
@@ -56,11 +56,10 @@ public class JobsClient extends CQClient {
      * @throws ClientException if the HTTP call fails
      */
     public JobsStatistics getJobsStatistics() throws ClientException {
-        SlingHttpResponse exec = doGet(QE_QUEUES_ALL_PATH);
-        HttpUtils.verifyHttpStatus(exec, HttpUtils.getExpectedStatus(SC_OK));
+        SlingHttpResponse exec = doStreamGet(QE_QUEUES_ALL_PATH, null, null, SC_OK);
 
         // get the node for all the jobs statistics
-        JsonNode statsJson = JsonUtils.getJsonNodeFromString(exec.getContent());
+        JsonNode statsJson = JsonStreamUtils.readTree(exec);
         JsonNode data = statsJson.get("data");
 
         JobsStatistics jobsStatistics = new JobsStatistics();
@@ -89,12 +88,12 @@ public class JobsClient extends CQClient {
      * @throws ClientException if the call to the quickstart fails
      */
     public JobsList getJobs(String topic) throws ClientException {
-        SlingHttpResponse exec = doGet(QE_JOBS_SERVLET_PATH + "." + QE_JOBS_ALL_SELECTOR + "." + QE_JOBS_JSON_EXTENSION,
-                Collections.<NameValuePair>singletonList(new BasicNameValuePair("topic", topic)),
+        SlingHttpResponse exec = doStreamGet(QE_JOBS_SERVLET_PATH + "." + QE_JOBS_ALL_SELECTOR + "." + QE_JOBS_JSON_EXTENSION,
+                Collections.<NameValuePair>singletonList(new BasicNameValuePair("topic", topic)), null,
                 SC_OK);
 
         // get the node for all the jobs statistics
-        JsonNode statsJson = JsonUtils.getJsonNodeFromString(exec.getContent());
+        JsonNode statsJson = JsonStreamUtils.readTree(exec);
         JsonNode data = statsJson.get("data");
 
         ArrayList<JobDescriptor> active = extractJobDescriptors(data.get("active"));
@@ -16,6 +16,7 @@
 package com.adobe.cq.testing.client;
 
 import com.adobe.cq.testing.client.notification.Notification;
+import com.adobe.cq.testing.util.JsonStreamUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.sling.testing.clients.ClientException;
@@ -146,14 +147,8 @@ public class NotificationClient extends CQClient {
             params.add("limit", String.valueOf(limit));
         }
 
-        SlingHttpResponse exec = doGet(NOTIFICATION_MESSAGES_PATH + ".json", params.getList(), SC_OK);
-        JsonNode messages = JsonUtils.getJsonNodeFromString(exec.getContent()).get("messages");
-
-        for (Iterator<JsonNode> it = messages.elements(); it.hasNext(); ) {
-            JsonNode message = it.next();
-            Notification notification = new Notification(message);
-            notifications.add(notification);
-        }
+        SlingHttpResponse exec = doStreamGet(NOTIFICATION_MESSAGES_PATH + ".json", params.getList(), null, SC_OK);
+        JsonStreamUtils.forEachElement(exec, "messages", message -> notifications.add(new Notification(message)));
 
         return notifications;
     }
@@ -15,9 +15,9 @@
  */
 package com.adobe.cq.testing.client;
 
+import com.adobe.cq.testing.util.JsonStreamUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
@@ -112,8 +112,7 @@ public class PackageManagerClient extends CQClient {
         private void initFromJson(String json) throws ClientException {
             JsonNode node;
             try {
-                ObjectMapper mapper = new ObjectMapper();
-                node = mapper.readTree(json);
+                node = JsonStreamUtils.getMapper().readTree(json);
             } catch (JsonProcessingException e) {
                 throw new ClientException("Unable to parse package properties json: " + json, e);
             } catch (IOException e) {
@@ -532,10 +531,9 @@ public class PackageManagerClient extends CQClient {
                 .addTextBody("jsonInTextarea", "true")
                 .build();
         SlingHttpResponse exec = doPost("/crx/packmgr/service/exec.json", mpe, SC_OK);
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode root;
         try {
-            root = mapper.readTree(exec.getContent().replaceAll("</?textarea>", ""));
+            root = JsonStreamUtils.getMapper().readTree(exec.getContent().replaceAll("</?textarea>", ""));
         } catch (Exception ex) {
             throw new ClientException("Unable to parse JSON response to upload request.", ex);
         }
@@ -15,6 +15,9 @@
  */
 package com.adobe.cq.testing.client;
 
+import com.adobe.cq.testing.polling.Backoff;
+import com.adobe.cq.testing.polling.BackoffPolling;
+import com.adobe.cq.testing.polling.PollingHub;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
@@ -27,7 +30,6 @@ import org.apache.sling.testing.clients.SlingClientConfig;
 import org.apache.sling.testing.clients.SlingHttpResponse;
 import org.apache.sling.testing.clients.util.FormEntityBuilder;
 import org.apache.sling.testing.clients.util.HttpUtils;
-import org.apache.sling.testing.clients.util.poller.Polling;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
@@ -236,7 +238,7 @@ public class ReplicationClient extends CQClient {
                 .build();
 
         try {
-            new Polling() {
+            new BackoffPolling() {
                 @Override
                 public Boolean call() throws Exception {
                     doPost(agentPath + "/jcr:content", entity, SC_OK);
@@ -406,6 +408,20 @@ public class ReplicationClient extends CQClient {
      * @throws InterruptedException to mark this method as waiting
      */
     public void waitAgentReplicationQueueIsEmpty(final String agentPath) throws InterruptedException, ClientException {
+        waitAgentReplicationQueueIsEmpty(agentPath, TimeUnit.MINUTES.toMillis(1), Backoff.forDelay(100));
+    }
+
+    /**
+     * Waits until the queue of the requested agent is empty
+     *
+     * @param agentPath path to the agent
+     * @param timeout max time to wait, in milliseconds
+     * @param backoff strategy computing the time to wait between two checks of the queue
+     * @throws ClientException if the queue is not empty after {@code timeout} expires
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public void waitAgentReplicationQueueIsEmpty(final String agentPath, long timeout, Backoff backoff)
+            throws InterruptedException, ClientException {
         // Check if the agent exists and the client has access to the queue
         try {
             getAgentReplicationQueue(agentPath);
@@ -413,9 +429,21 @@ public class ReplicationClient extends CQClient {
             throw new ClientException("Could not access the Queue for Replication Agent " + agentPath, e);
         }
 
+        if (PollingHub.isEnabled()) {
+            // the waiters of the same queue share one request per interval
+            try {
+                PollingHub.getDefault().waitUntil(PollingHub.Resource.replicationQueue(this, agentPath),
+                        queue -> !queue.elements().hasNext(), timeout, backoff.nextDelay(1));
+                return;
+            } catch (TimeoutException e) {
+                throw new ClientException("The queue for replication agent " + agentPath
+                        + " was not empty after " + timeout + "ms", e);
+            }
+        }
+
         EmptyReplicationQueuePoller polling = new EmptyReplicationQueuePoller(this, agentPath);
         try {
-            polling.poll(TimeUnit.MINUTES.toMillis(1), 100);
+            polling.poll(timeout, backoff);
         } catch (TimeoutException e) {
             throw new ClientException("The queue for replication agent " + agentPath +
                     "was not empty after " + polling.getWaited() + "." +
@@ -474,7 +502,7 @@ public class ReplicationClient extends CQClient {
         return false;
     }
 
-    public static class EmptyReplicationQueuePoller extends Polling {
+    public static class EmptyReplicationQueuePoller extends BackoffPolling {
         private final ReplicationClient client;
         private final String agentPath;
         private JsonNode queue;
@@ -61,7 +61,8 @@ public class TogglesClient extends CQClient {
     }
 
     /**
-     * Checks whether a toggle is enabled or not.
+     * Checks whether a toggle is enabled or not. This downloads the toggles on every call, use
+     * {@link com.adobe.cq.testing.junit.rules.toggles.TogglesCache} to check many toggles.
      *
      * @param toggle the toggle to check
      * @return true if the toggle is enabled
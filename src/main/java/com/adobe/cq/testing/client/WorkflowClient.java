@@ -15,9 +15,14 @@
  */
 package com.adobe.cq.testing.client;
 
+import com.adobe.cq.testing.client.cache.WorkflowModelCache;
 import com.adobe.cq.testing.client.workflow.*;
+import com.adobe.cq.testing.polling.Backoff;
+import com.adobe.cq.testing.polling.WorkflowInstanceHistoryPoller;
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.adobe.cq.testing.util.ThreadUtils;
+import com.adobe.cq.testing.util.TokenBucket;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.http.NameValuePair;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -38,8 +43,22 @@ import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.http.HttpStatus.*;
 
@@ -125,6 +144,23 @@ public class WorkflowClient extends CQClient {
         }
     }
 
+    /**
+     * Number of workflow instances fetched at the same time by
+     * {@link #getWorkflowInstances(Status, String, String, DateTime, DateTime)}
+     */
+    public static final int DEFAULT_FETCH_PARALLELISM = 8;
+
+    /**
+     * System property enabling the workflow model cache for all the clients, see {@link #enableModelCache(int)}
+     */
+    public static final String MODEL_CACHE_PROP = "cq.testing.workflow.modelcache";
+
+    /**
+     * Cache of the workflow models and launchers, {@code null} when disabled
+     */
+    private volatile WorkflowModelCache modelCache =
+            Boolean.getBoolean(MODEL_CACHE_PROP) ? new WorkflowModelCache() : null;
+
     public WorkflowClient(CloseableHttpClient http, SlingClientConfig config) throws ClientException {
         super(http, config);
     }
@@ -133,6 +169,71 @@ public class WorkflowClient extends CQClient {
         super(serverUrl, user, password);
     }
 
+    /**
+     * <p>Enables the cache of the workflow models and launchers for this client instance:
+     * {@link #getWorkflowModel(String, String, int...)}, {@link #getWorkflowModelAsJSON(String, String, int...)},
+     * {@link #getWorkflowModels(String, int...)} and, in {@link CQWorkflowClient}, the launchers and the transient
+     * flags are only requested once. Calls passing an expected status always send the request.</p>
+     *
+     * <p>Deploying, updating or deleting a model, or editing a launcher, through this client invalidates the
+     * affected entries. Writes done by other clients are not seen. The cache is not shared with the clients
+     * obtained through {@link #adaptTo(Class)}. It is enabled for all the clients by setting
+     * {@value #MODEL_CACHE_PROP} to {@code true}.</p>
+     *
+     * @param maxEntries maximum number of entries, the least recently used ones being evicted
+     * @return this client
+     */
+    public WorkflowClient enableModelCache(int maxEntries) {
+        this.modelCache = new WorkflowModelCache(maxEntries);
+        return this;
+    }
+
+    /**
+     * Same as {@link #enableModelCache(int)} with {@value WorkflowModelCache#DEFAULT_MAX_ENTRIES} entries
+     *
+     * @return this client
+     */
+    public WorkflowClient enableModelCache() {
+        return enableModelCache(WorkflowModelCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Disables and clears the model cache of this client.
+     *
+     * @return this client
+     */
+    public WorkflowClient disableModelCache() {
+        this.modelCache = null;
+        return this;
+    }
+
+    /**
+     * @return the model cache of this client, with its hit/miss statistics, or {@code null} if it is not enabled
+     */
+    public WorkflowModelCache getModelCache() {
+        return modelCache;
+    }
+
+    /**
+     * @param expectedStatus the expected status passed to a read
+     * @return the model cache to use for the read, or {@code null}
+     */
+    WorkflowModelCache modelCacheFor(int... expectedStatus) {
+        return expectedStatus == null || expectedStatus.length == 0 ? modelCache : null;
+    }
+
+    /**
+     * Invalidates the cached entries of a model written by this client
+     *
+     * @param modelId the id of the model
+     */
+    void invalidateModel(String modelId) {
+        WorkflowModelCache cache = modelCache;
+        if (cache != null) {
+            cache.invalidateModel(modelId);
+        }
+    }
+
     /**
      * Creates a new workflow model in the repository by sending a model
      * definition.<br>
@@ -175,7 +276,9 @@ public class WorkflowClient extends CQClient {
             String url = response.getHeaders("Location")[0].getValue();
 
             // return the model id
-            return getPath(url).toString();
+            String modelId = getPath(url).toString();
+            invalidateModel(modelId);
+            return modelId;
         }
         return null;
     }
@@ -214,7 +317,9 @@ public class WorkflowClient extends CQClient {
             String url = response.getHeaders("Location")[0].getValue();
 
             // return the model id
-            return getPath(url).toString();
+            String modelId = getPath(url).toString();
+            invalidateModel(modelId);
+            return modelId;
         }
         return null;
     }
@@ -469,6 +574,7 @@ public class WorkflowClient extends CQClient {
     public SlingHttpResponse deleteModel(String modelId, int... expectedStatus) throws ClientException {
         String url = modelId + ".json";
         SlingHttpResponse exec = doDelete(url, null, null);
+        invalidateModel(modelId);
         // check the returned status
         HttpUtils.verifyHttpStatus(exec, HttpUtils.getExpectedStatus(SC_NO_CONTENT, expectedStatus));
         return exec;
@@ -526,6 +632,7 @@ public class WorkflowClient extends CQClient {
         // build the request
         SlingHttpResponse exec = doPost(modelId, FormEntityBuilder.create().addParameter("model", model).addParameter("type", modelType)
                 .build());
+        invalidateModel(modelId);
         // check the returned status
         HttpUtils.verifyHttpStatus(exec, HttpUtils.getExpectedStatus(SC_OK, expectedStatus));
         return exec;
@@ -537,8 +644,7 @@ public class WorkflowClient extends CQClient {
         String model = ResourceUtil.readResourceAsString(modelSourcePath);
 
         // read as JSON
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode node = mapper.readValue(model, ObjectNode.class);
+        ObjectNode node = JsonStreamUtils.getMapper().readValue(model, ObjectNode.class);
 
         // add the modelId
         node.put("id", modelId);
@@ -726,6 +832,98 @@ public class WorkflowClient extends CQClient {
         }
     }
 
+    /**
+     * Starts an instance of a model for each payload, with at most {@code concurrency} start requests in flight and
+     * at most {@code startsPerSecond} requests sent per second, to put a realistic load on the workflow engine. A
+     * failed start does not stop the others, it is reported by its {@link WorkflowStart}.
+     *
+     * @param modelId
+     *            the workflow model id to be used
+     * @param payloads
+     *            the payload JCR paths, one instance is started for each
+     * @param startsPerSecond
+     *            the max rate of start requests, 0 for no limit
+     * @param concurrency
+     *            the max number of start requests in flight
+     * @return the started instances and the time at which they were submitted, in the order of the payloads
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public List<WorkflowStart> startWorkflows(String modelId, Stream<String> payloads, double startsPerSecond,
+                                              int concurrency) throws InterruptedException {
+        return startWorkflows(modelId, payloads, startsPerSecond, concurrency, null);
+    }
+
+    /**
+     * Starts an instance of a model for each payload, as
+     * {@link #startWorkflows(String, Stream, double, int)}, notifying each start as soon as its request completed
+     *
+     * @param modelId
+     *            the workflow model id to be used
+     * @param payloads
+     *            the payload JCR paths, one instance is started for each
+     * @param startsPerSecond
+     *            the max rate of start requests, 0 for no limit
+     * @param concurrency
+     *            the max number of start requests in flight
+     * @param listener
+     *            called by the start threads with each start, failed or not, or null
+     * @return the started instances and the time at which they were submitted, in the order of the payloads
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public List<WorkflowStart> startWorkflows(String modelId, Stream<String> payloads, double startsPerSecond,
+                                              int concurrency, Consumer<WorkflowStart> listener)
+            throws InterruptedException {
+        int threads = Math.max(1, concurrency);
+        TokenBucket rate = TokenBucket.of(startsPerSecond);
+        Semaphore inFlight = new Semaphore(threads);
+        List<Future<WorkflowStart>> starts = new ArrayList<>();
+        // inFlight bounds the starts
+        ExecutorService executor = ThreadUtils.newExecutor("workflow-start", threads, false, true);
+        try {
+            for (String payload : (Iterable<String>) payloads::iterator) {
+                inFlight.acquire();
+                try {
+                    rate.acquire();
+                    starts.add(executor.submit(() -> {
+                        long submitted = System.currentTimeMillis();
+                        long start = System.nanoTime();
+                        WorkflowStart workflowStart;
+                        try {
+                            String instance = startWorkflow(modelId, payload);
+                            workflowStart = new WorkflowStart(payload, instance, submitted,
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), null);
+                        } catch (ClientException | RuntimeException e) {
+                            workflowStart = new WorkflowStart(payload, null, submitted,
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e);
+                        } finally {
+                            inFlight.release();
+                        }
+                        if (listener != null) {
+                            listener.accept(workflowStart);
+                        }
+                        return workflowStart;
+                    }));
+                } catch (InterruptedException | RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+
+            List<WorkflowStart> result = new ArrayList<>();
+            for (Future<WorkflowStart> start : starts) {
+                try {
+                    result.add(start.get());
+                } catch (ExecutionException e) {
+                    // the start task catches its failures
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Convenience functions to update/set the comment in the workflow instance
      * metadata.
@@ -814,6 +1012,34 @@ public class WorkflowClient extends CQClient {
      * @throws ClientException if the call to the backend requesting the JSON fails
      */
     public List<URI> getWorkflowInstanceURLs(Status wfStatus, int... expectedStatus) throws ClientException {
+        ArrayList<URI> wfInstances = new ArrayList<>();
+        // keep only the URI's
+        try (Stream<JsonNode> instances = streamWorkflowInstanceEntries(wfStatus, expectedStatus)) {
+            for (JsonNode instance : (Iterable<JsonNode>) instances::iterator) {
+                wfInstances.add(toURI(instance));
+            }
+        }
+        // return the result
+        return wfInstances;
+    }
+
+    /**
+     * Streams the workflow instance URI's that are visible for the user, as
+     * {@link #getWorkflowInstanceURLs(Status, int...)}, parsing the instances list as the stream is consumed. The
+     * memory used does not depend on the number of instances. Close the stream when it is not consumed entirely.
+     *
+     * @param wfStatus the status of the instances, or null for all of them
+     * @param expectedStatus HTTP Status to check for or, if not set, 200 is assumed
+     * @return the workflow instance handles
+     * @throws ClientException if the call to the backend requesting the JSON fails
+     */
+    public Stream<URI> streamWorkflowInstanceURLs(Status wfStatus, int... expectedStatus) throws ClientException {
+        return streamWorkflowInstanceEntries(wfStatus, expectedStatus)
+                .map(instance -> URI.create(instance.get("uri").asText()));
+    }
+
+    private Stream<JsonNode> streamWorkflowInstanceEntries(Status wfStatus, int... expectedStatus)
+            throws ClientException {
         // default Status
         String status = "";
         // if a specific Status filter is set
@@ -821,23 +1047,18 @@ public class WorkflowClient extends CQClient {
             status = "." + wfStatus.getString();
         }
         // execute the request
-        SlingHttpResponse exec = doGet(MANAGE_WF_INSTANCES_PATH + status + ".json");
-        // check the returned status
-        HttpUtils.verifyHttpStatus(exec, HttpUtils.getExpectedStatus(SC_OK, expectedStatus));
-        // parse the returned content into a JSON node
-        JsonNode rootNode = JsonUtils.getJsonNodeFromString(exec.getContent());
-        // turn it into a string array
-        ArrayList<URI> wfInstances = new ArrayList<>();
-        // iterate over the URI's
-        for (JsonNode aRootNode : rootNode) {
-            try {
-                wfInstances.add(new URI(aRootNode.get("uri").asText()));
-            } catch (URISyntaxException e) {
-                throw new ClientException("Error parsing url: " + aRootNode.get("uri").asText(), e);
-            }
+        SlingHttpResponse exec = doStreamGet(MANAGE_WF_INSTANCES_PATH + status + ".json", null, null,
+                HttpUtils.getExpectedStatus(SC_OK, expectedStatus));
+        // stream the returned array
+        return JsonStreamUtils.streamElements(exec, null);
+    }
+
+    private static URI toURI(JsonNode instance) throws ClientException {
+        try {
+            return new URI(instance.get("uri").asText());
+        } catch (URISyntaxException e) {
+            throw new ClientException("Error parsing url: " + instance.get("uri").asText(), e);
         }
-        // return the result
-        return wfInstances;
     }
 
     /**
@@ -863,6 +1084,18 @@ public class WorkflowClient extends CQClient {
         if (listType == null)
             listType = MODEL_LIST_TYPE_URI;
 
+        WorkflowModelCache cache = modelCacheFor(expectedStatus);
+        if (cache != null) {
+            String type = listType;
+            // the cached list is shared, the caller gets a copy
+            return new ArrayList<>(cache.getModels(type,
+                    () -> Collections.unmodifiableList(requestWorkflowModels(type))));
+        }
+        return requestWorkflowModels(listType, expectedStatus);
+    }
+
+    private ArrayList<String> requestWorkflowModels(String listType, int... expectedStatus) throws ClientException {
+
         // execute the request
         SlingHttpResponse exec = doGet(MANAGE_WF_MODELS_PATH + ".json",
                 Collections.<NameValuePair>singletonList(new BasicNameValuePair("format", listType)),
@@ -907,6 +1140,15 @@ public class WorkflowClient extends CQClient {
      *             If requesting the JSON fails for any reason
      */
     public String getWorkflowModelAsJSON(String modelId, String version, int... expectedStatus) throws ClientException {
+        WorkflowModelCache cache = modelCacheFor(expectedStatus);
+        if (cache != null) {
+            return cache.getModel(modelId, version, () -> requestWorkflowModelAsJSON(modelId, version));
+        }
+        return requestWorkflowModelAsJSON(modelId, version, expectedStatus);
+    }
+
+    private String requestWorkflowModelAsJSON(String modelId, String version, int... expectedStatus)
+            throws ClientException {
         // if no specific version was requested
         if (version == null || "HEAD".equals(version)) {
             version = "";
@@ -980,41 +1222,64 @@ public class WorkflowClient extends CQClient {
         return new WorkflowInstance(JsonUtils.getJsonNodeFromString(exec.getContent()));
     }
 
+    /**
+     * Returns the workflow instances matching the filters, fetched with up to {@value #DEFAULT_FETCH_PARALLELISM}
+     * concurrent requests.
+     *
+     * @param wfStatus the status of the instances, or null for all of them
+     * @param model the model id of the instances, or null for any model
+     * @param payload the prefix of the payload of the instances, or null for any payload
+     * @param startTimeLimit the instances started before are skipped, or null for no limit
+     * @param endTimeLimit the instances ended after are skipped, or null for no limit
+     * @return the matching instances, in the order of the instances list
+     * @throws ClientException if the instances cannot be listed
+     * @see #streamWorkflowInstances(Status, String, String, DateTime, DateTime, int)
+     */
     public List<WorkflowInstance> getWorkflowInstances(Status wfStatus, String model, String payload, DateTime startTimeLimit,
                                                        DateTime endTimeLimit) throws ClientException {
-        List<URI> urls = getWorkflowInstanceURLs(wfStatus);
-        List<WorkflowInstance> workflows = new ArrayList<>();
-
-        // get all the workflows and add them to a list
-        for (URI url : urls) {
-            WorkflowInstance workflowInstance;
-            try {
-                workflowInstance = getWorkflowInstance(getPath(url).toString());
-            } catch (ClientException e) {
-                continue;
-            }
-
-            Date start = workflowInstance.getStartTime();
-            Date end = workflowInstance.getEndTime();
-            DateTime wfStart = (null==start) ? null : new DateTime(start);
-            DateTime wfEnd = (null==end) ? null : new DateTime(end);
-
-            // skip the items if they don't match the criteria
-            if (model != null && !workflowInstance.getModelId().equals(model))
-                continue;
-            if (payload != null && !workflowInstance.getPayload().startsWith(payload))
-                continue;
-            if (null != startTimeLimit  && null != wfStart && wfStart.isBefore(startTimeLimit)) {
-                continue;
-            }
-            if (null != endTimeLimit  && null != wfEnd && wfEnd.isAfter(endTimeLimit)) {
-                continue;
-            }
-
-            workflows.add(workflowInstance);
+        try (Stream<WorkflowInstance> instances = streamWorkflowInstances(wfStatus, model, payload, startTimeLimit,
+                endTimeLimit, DEFAULT_FETCH_PARALLELISM)) {
+            return instances.collect(Collectors.toList());
         }
+    }
 
-        return workflows;
+    /**
+     * <p>Returns the workflow instances matching the filters. The instances are filtered first on the fields of the
+     * instances list, so that only the candidates are requested, then on the fetched instances. The list is parsed
+     * and the instances are requested while the stream is consumed, up to {@code parallelism} at a time ahead of the consumer: stopping
+     * early, e.g. with {@code findFirst()}, saves the remaining requests.</p>
+     *
+     * <p>The instances that can not be fetched, e.g. deleted since they were listed, are skipped. Close the stream
+     * when it is not consumed entirely.</p>
+     *
+     * @param wfStatus the status of the instances, or null for all of them
+     * @param model the model id of the instances, or null for any model
+     * @param payload the prefix of the payload of the instances, or null for any payload
+     * @param startTimeLimit the instances started before are skipped, or null for no limit
+     * @param endTimeLimit the instances ended after are skipped, or null for no limit
+     * @param parallelism the max number of instances requested at the same time
+     * @return the matching instances, in the order of the instances list
+     * @throws ClientException if the instances cannot be listed
+     */
+    public Stream<WorkflowInstance> streamWorkflowInstances(Status wfStatus, String model, String payload,
+                                                            DateTime startTimeLimit, DateTime endTimeLimit,
+                                                            int parallelism) throws ClientException {
+        InstanceFilter filter = new InstanceFilter(model, payload, startTimeLimit, endTimeLimit);
+        // the fields missing from the list are checked on the fetched instance
+        Stream<JsonNode> entries = streamWorkflowInstanceEntries(wfStatus);
+        Iterator<String> candidates = entries
+                .filter(entry -> filter.accepts(entry.path("model").asText(null), entry.path("payload").asText(null),
+                        parseJSONDate(entry.path("startTime")), parseJSONDate(entry.path("endTime"))))
+                .map(entry -> getPath(URI.create(entry.get("uri").asText())).toString())
+                .iterator();
+
+        int threads = Math.max(1, parallelism);
+        // the window of the iterator bounds the fetches in flight
+        ExecutorService executor = ThreadUtils.newExecutor("workflow-instances", threads, false, true);
+        Iterator<WorkflowInstance> iterator = new InstanceIterator(candidates, executor, threads, filter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(entries::close)
+                .onClose(executor::shutdownNow);
     }
 
     public List<WorkflowInstance> getWorkflowInstances(Status wfStatus) throws ClientException {
@@ -1041,24 +1306,142 @@ public class WorkflowClient extends CQClient {
 	 */
 	public List<HistoryItem> getWorkflowInstanceHistory(String instanceURI, int... expectedStatus)
 			throws ClientException {
-		// get the data
+		try (Stream<HistoryItem> items = streamWorkflowInstanceHistory(instanceURI, expectedStatus)) {
+			return items.collect(Collectors.toCollection(ArrayList::new));
+		}
+	}
+
+    /**
+     * Streams the workflow history of a specific workflow instance, parsing the history items as the stream is
+     * consumed. The memory used does not depend on the length of the history, and {@code anyMatch()} stops
+     * reading it. Close the stream when it is not consumed entirely.
+     *
+     * @param instanceURI
+     *            the workflow instance uri
+     * @param expectedStatus
+     *            provide the status code that is expected, default is 200 OK.
+     * @return the history items
+     * @throws ClientException if the request failed
+     */
+    public Stream<HistoryItem> streamWorkflowInstanceHistory(String instanceURI, int... expectedStatus)
+            throws ClientException {
         List<NameValuePair> params = Collections.<NameValuePair>singletonList(new BasicNameValuePair("workflow", instanceURI));
-		SlingHttpResponse exec = doGet("/libs/cq/workflow/content/console/history.json", params,
+        SlingHttpResponse exec = doStreamGet("/libs/cq/workflow/content/console/history.json", params, null,
                 HttpUtils.getExpectedStatus(SC_OK, expectedStatus));
+        // read the history items via wrapper objects
+        return JsonStreamUtils.streamElements(exec, "historyItems").map(HistoryItem::new);
+    }
 
-		// return the json in a light wrapper for easy data extraction
-		List<HistoryItem> listHistoryItems = new ArrayList<>();
-		JsonNode workflowHistoryNode = JsonUtils.getJsonNodeFromString(exec.getContent());
-		JsonNode historyNode = workflowHistoryNode.get("historyItems");
-		Iterator<JsonNode> historyEntryIterator = historyNode.elements();
-		while (historyEntryIterator.hasNext()) {
-			// read the history items and store it in the list via wrapper
-			// object
-			listHistoryItems.add(new HistoryItem(historyEntryIterator.next()));
-		}
+    /**
+     * Waits until the history of every given workflow instance contains {@code expectedProcess} with
+     * {@code expectedStatus}, as {@link WorkflowInstanceHistoryPoller} does for a single instance. The histories
+     * are fetched concurrently by at most {@code parallelism} threads, and an instance is not fetched anymore
+     * once it reached the state.
+     *
+     * @param instanceURIs
+     *            the workflow instance uris
+     * @param expectedProcess
+     *            the process title that is expected to be found in the history items
+     * @param expectedStatus
+     *            the status of that history item, e.g. {@link HistoryItem#STATUS_COMPLETED}
+     * @param timeout
+     *            max time to wait for all the instances, in milliseconds
+     * @param backoff
+     *            strategy computing the time to wait between two checks of the same instance
+     * @param parallelism
+     *            max number of histories fetched at the same time
+     * @return for each instance, in the order of {@code instanceURIs}, the time in milliseconds since the epoch at
+     *         which it reached the expected state: the end date of the matching history item, as recorded by the
+     *         server with a precision of one second, or the time at which the state was first seen if the item has
+     *         no end date
+     * @throws ClientException if some instances did not reach the state after {@code timeout}
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public Map<String, Long> waitWorkflowInstancesHistory(Collection<String> instanceURIs, String expectedProcess,
+                                                          String expectedStatus, long timeout, Backoff backoff,
+                                                          int parallelism)
+            throws ClientException, InterruptedException {
+        Set<String> instances = new LinkedHashSet<>(instanceURIs);
+        Map<String, Long> reached = new ConcurrentHashMap<>();
+        AtomicReference<Exception> lastException = new AtomicReference<>();
+        CountDownLatch pending = new CountDownLatch(instances.size());
+
+        ScheduledExecutorService scheduler = ThreadUtils.newScheduledExecutor("workflow-history",
+                Math.max(1, parallelism), true);
+        try {
+            for (String instance : instances) {
+                scheduler.execute(new Runnable() {
+                    private int attempts;
+
+                    @Override
+                    public void run() {
+                        attempts++;
+                        try {
+                            HistoryItem item = WorkflowInstanceHistoryPoller.findState(
+                                    getWorkflowInstanceHistory(instance), expectedProcess, expectedStatus);
+                            if (item != null) {
+                                Date end = item.getEndDate();
+                                reached.put(instance, end != null ? end.getTime() : System.currentTimeMillis());
+                                pending.countDown();
+                                return;
+                            }
+                        } catch (ClientException | RuntimeException e) {
+                            // a history that can not be read yet is checked again, as by the poller
+                            lastException.set(e);
+                        }
+                        try {
+                            scheduler.schedule(this, backoff.nextDelay(attempts), TimeUnit.MILLISECONDS);
+                        } catch (RejectedExecutionException e) {
+                            // the wait is over
+                        }
+                    }
+                });
+            }
 
-		return listHistoryItems;
-	}
+            if (!pending.await(timeout, TimeUnit.MILLISECONDS)) {
+                List<String> missing = new ArrayList<>(instances);
+                missing.removeAll(reached.keySet());
+                throw new ClientException(missing.size() + " of " + instances.size() + " workflow instances did not"
+                        + " reach " + expectedProcess + " " + expectedStatus + " after " + timeout + "ms: "
+                        + missing, lastException.get());
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (String instance : instances) {
+            result.put(instance, reached.get(instance));
+        }
+        return result;
+    }
+
+    /**
+     * Waits until the history of every given workflow instance contains {@code expectedProcess} with
+     * {@code expectedStatus}, checking each instance every {@code delay} ms with up to 10 concurrent requests.
+     *
+     * @param instanceURIs
+     *            the workflow instance uris
+     * @param expectedProcess
+     *            the process title that is expected to be found in the history items
+     * @param expectedStatus
+     *            the status of that history item, e.g. {@link HistoryItem#STATUS_COMPLETED}
+     * @param timeout
+     *            max time to wait for all the instances, in milliseconds
+     * @param delay
+     *            time to wait between two checks of the same instance, in milliseconds
+     * @return for each instance, the time in milliseconds at which it reached the expected state, see
+     *         {@link #waitWorkflowInstancesHistory(Collection, String, String, long, Backoff, int)}
+     * @throws ClientException if some instances did not reach the state after {@code timeout}
+     * @throws InterruptedException to mark this method as waiting
+     * @see #waitWorkflowInstancesHistory(Collection, String, String, long, Backoff, int)
+     */
+    public Map<String, Long> waitWorkflowInstancesHistory(Collection<String> instanceURIs, String expectedProcess,
+                                                          String expectedStatus, long timeout, long delay)
+            throws ClientException, InterruptedException {
+        return waitWorkflowInstancesHistory(instanceURIs, expectedProcess, expectedStatus, timeout,
+                Backoff.forDelay(delay), 10);
+    }
 
     /**
      * Set the status of an running workflow instance.
@@ -1094,14 +1477,123 @@ public class WorkflowClient extends CQClient {
      * @return the parsed Date object or null if parsing cannot be done
      */
     public static Date parseJSONDate(String date) {
-        Locale store = Locale.getDefault();
-        Locale.setDefault(Locale.ENGLISH);
         try {
-            return new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy").parse(date);
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.ENGLISH).parse(date);
         } catch (ParseException e) {
             return null;
-        } finally {
-            Locale.setDefault(store);
+        }
+    }
+
+    private static Date parseJSONDate(JsonNode date) {
+        if (date.isNumber()) {
+            return new Date(date.asLong());
+        }
+        return date.isTextual() ? parseJSONDate(date.asText()) : null;
+    }
+
+    /**
+     * Filters of {@link #streamWorkflowInstances(Status, String, String, DateTime, DateTime, int)}, a null value
+     * of an instance matching any filter
+     */
+    private static final class InstanceFilter {
+        private final String model;
+        private final String payload;
+        private final DateTime startTimeLimit;
+        private final DateTime endTimeLimit;
+
+        InstanceFilter(String model, String payload, DateTime startTimeLimit, DateTime endTimeLimit) {
+            this.model = model;
+            this.payload = payload;
+            this.startTimeLimit = startTimeLimit;
+            this.endTimeLimit = endTimeLimit;
+        }
+
+        boolean accepts(String instanceModel, String instancePayload, Date start, Date end) {
+            if (model != null && instanceModel != null && !instanceModel.equals(model))
+                return false;
+            if (payload != null && instancePayload != null && !instancePayload.startsWith(payload))
+                return false;
+            if (startTimeLimit != null && start != null && new DateTime(start).isBefore(startTimeLimit))
+                return false;
+            return endTimeLimit == null || end == null || !new DateTime(end).isAfter(endTimeLimit);
+        }
+
+        boolean accepts(WorkflowInstance instance) {
+            // the model and the payload are required once the instance is fetched
+            if ((model != null && instance.getModelId() == null) || (payload != null && instance.getPayload() == null))
+                return false;
+            return accepts(instance.getModelId(), instance.getPayload(), instance.getStartTime(),
+                    instance.getEndTime());
+        }
+    }
+
+    /**
+     * Fetches the instances of a list of paths, keeping up to {@code parallelism} requests ahead of the consumer
+     */
+    private final class InstanceIterator implements Iterator<WorkflowInstance> {
+        private final Iterator<String> paths;
+        private final ExecutorService executor;
+        private final int parallelism;
+        private final InstanceFilter filter;
+        private final Deque<Future<WorkflowInstance>> window = new ArrayDeque<>();
+        private WorkflowInstance next;
+
+        InstanceIterator(Iterator<String> paths, ExecutorService executor, int parallelism, InstanceFilter filter) {
+            this.paths = paths;
+            this.executor = executor;
+            this.parallelism = parallelism;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                while (window.size() < parallelism && paths.hasNext()) {
+                    String path = paths.next();
+                    window.add(executor.submit(() -> {
+                        try {
+                            return getWorkflowInstance(path);
+                        } catch (ClientException e) {
+                            // deleted since listed, skipped
+                            return null;
+                        }
+                    }));
+                }
+                if (window.isEmpty()) {
+                    executor.shutdown();
+                    return false;
+                }
+                WorkflowInstance instance = await(window.poll());
+                if (instance != null && filter.accepts(instance)) {
+                    next = instance;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public WorkflowInstance next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            WorkflowInstance instance = next;
+            next = null;
+            return instance;
+        }
+
+        private WorkflowInstance await(Future<WorkflowInstance> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new IllegalStateException("Interrupted while fetching the workflow instances", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
         }
     }
 
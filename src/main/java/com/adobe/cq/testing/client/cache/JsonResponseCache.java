@@ -0,0 +1,313 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.message.BasicHeader;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Client side cache of JSON GET responses, keyed by the requested path including the depth selector and the
+ * extension (e.g. {@code /content/page/jcr:content.1.json}).</p>
+ *
+ * <p>An entry is served without any request while it is younger than the TTL. Once expired, it is revalidated
+ * with a conditional request if the server sent an {@code ETag} or {@code Last-Modified} header, and fetched
+ * again otherwise. Writes invalidate the entries of the written resource, its ancestors and its descendants, see
+ * {@link #invalidate(String)}.</p>
+ *
+ * <p>The cache holds at most {@code maxEntries} entries, evicting the least recently used ones. Returned nodes
+ * are copies, so callers can modify them freely.</p>
+ */
+public class JsonResponseCache {
+
+    /**
+     * Default maximum number of entries
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String JSON = ".json";
+    private static final String INFINITY = "infinity";
+
+    private final long ttl;
+
+    private final Map<String, Entry> entries;
+
+    // incremented by each invalidation, a response requested meanwhile may be stale and is not stored
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param ttl time in milliseconds during which an entry is served without contacting the server
+     */
+    public JsonResponseCache(long ttl) {
+        this(ttl, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param ttl        time in milliseconds during which an entry is served without contacting the server
+     * @param maxEntries maximum number of entries kept in the cache
+     */
+    public JsonResponseCache(long ttl, final int maxEntries) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the entry for {@code key} if it is still fresh, and counts a hit.
+     *
+     * @param key the requested path
+     * @return a copy of the cached node, or {@code null} if there is no fresh entry
+     */
+    public synchronized JsonNode getFresh(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.isFresh()) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.node.deepCopy();
+    }
+
+    /**
+     * @param resourcePath path of a resource, without the depth selector and extension
+     * @return {@code true} if a fresh entry exists for any representation of the resource
+     */
+    public synchronized boolean containsFresh(String resourcePath) {
+        String path = normalize(resourcePath);
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().isFresh() && path.equals(resourcePath(e.getKey()))) {
+                hits.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the headers to send to revalidate an expired entry.
+     *
+     * @param key the requested path
+     * @return the conditional headers, empty if there is no entry or if it cannot be revalidated
+     */
+    public synchronized List<Header> getConditionalHeaders(String key) {
+        List<Header> headers = new ArrayList<>(2);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.etag != null) {
+                headers.add(new BasicHeader(HttpHeaders.IF_NONE_MATCH, entry.etag));
+            }
+            if (entry.lastModified != null) {
+                headers.add(new BasicHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified));
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Marks the entry as fresh again after the server answered a conditional request with 304.
+     *
+     * @param key the requested path
+     * @return a copy of the cached node, or {@code null} if the entry was invalidated meanwhile
+     */
+    public synchronized JsonNode revalidated(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        revalidations.incrementAndGet();
+        entry.fetched = System.currentTimeMillis();
+        return entry.node.deepCopy();
+    }
+
+    /**
+     * @return the current generation, to be read before sending a request whose response is passed to
+     *         {@link #put(String, JsonNode, String, String, long)}
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Stores a node fetched from the server, and counts a miss. The node is not stored if the cache was
+     * invalidated since the request was sent, as the response may predate the write.
+     *
+     * @param key          the requested path
+     * @param node         the parsed response
+     * @param etag         the {@code ETag} header of the response, or {@code null}
+     * @param lastModified the {@code Last-Modified} header of the response, or {@code null}
+     * @param generation   the {@link #getGeneration() generation} read before sending the request
+     * @return a copy of {@code node}, to be returned to the caller
+     */
+    public synchronized JsonNode put(String key, JsonNode node, String etag, String lastModified, long generation) {
+        misses.incrementAndGet();
+        if (generation == this.generation) {
+            entries.put(key, new Entry(node, etag, lastModified));
+        }
+        return node.deepCopy();
+    }
+
+    /**
+     * Removes the entries of {@code path}, of its ancestors (whose JSON may embed it) and of its descendants.
+     *
+     * @param path the path of the written resource, with or without the depth selector and {@code .json} extension
+     */
+    public synchronized void invalidate(String path) {
+        generation++;
+        String written = resourcePath(path);
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+            String cached = resourcePath(it.next());
+            if (isSameOrAncestor(written, cached) || isSameOrAncestor(cached, written)) {
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    /**
+     * @return the number of entries currently cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of reads served without contacting the server
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of reads answered with 304 by the server
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * @return the number of reads that downloaded the full response
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries removed because of writes
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonResponseCache{hits=" + hits + ", revalidations=" + revalidations + ", misses=" + misses
+                + ", invalidations=" + invalidations + ", size=" + size() + "}";
+    }
+
+    /**
+     * Strips the {@code .json} extension and the depth selector of a cached request from {@code path} (e.g.
+     * {@code /content/dam/foo.png.1.json} becomes {@code /content/dam/foo.png}). The other dots belong to the
+     * node name.
+     *
+     * @param path a request path
+     * @return the path of the addressed resource
+     */
+    static String resourcePath(String path) {
+        String p = normalize(path);
+        if (!p.endsWith(JSON)) {
+            return p;
+        }
+        p = p.substring(0, p.length() - JSON.length());
+        int dot = p.lastIndexOf('.');
+        if (dot > p.lastIndexOf('/') && isDepth(p.substring(dot + 1))) {
+            p = p.substring(0, dot);
+        }
+        return p;
+    }
+
+    private static boolean isDepth(String selector) {
+        if (INFINITY.equals(selector)) {
+            return true;
+        }
+        if (selector.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < selector.length(); i++) {
+            if (!Character.isDigit(selector.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String path) {
+        String p = path;
+        int query = p.indexOf('?');
+        if (query >= 0) {
+            p = p.substring(0, query);
+        }
+        while (p.length() > 1 && p.endsWith("/")) {
+            p = p.substring(0, p.length() - 1);
+        }
+        return p;
+    }
+
+    private static boolean isSameOrAncestor(String ancestor, String path) {
+        return path.equals(ancestor) || "/".equals(ancestor) || path.startsWith(ancestor + "/");
+    }
+
+    private final class Entry {
+        private final JsonNode node;
+        private final String etag;
+        private final String lastModified;
+        private long fetched = System.currentTimeMillis();
+
+        private Entry(JsonNode node, String etag, String lastModified) {
+            this.node = node;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - fetched < ttl;
+        }
+    }
+}
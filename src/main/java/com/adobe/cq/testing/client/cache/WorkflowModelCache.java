@@ -0,0 +1,222 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.cache;
+
+import org.apache.sling.testing.clients.ClientException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Client side cache of the workflow models and launchers read by a {@code WorkflowClient}: the model
+ * definitions by id and version, the model lists, the launcher configurations and the transient flags of the
+ * models.</p>
+ *
+ * <p>The entries do not expire. A given version of a model never changes, so only the {@code HEAD} version, the
+ * lists and the transient flags are invalidated when the client writes a model, see {@link #invalidateModel(String)},
+ * and the launchers when it writes a launcher, see {@link #invalidateLaunchers()}. Writes done by other clients
+ * are not seen.</p>
+ *
+ * <p>The cache holds at most {@code maxEntries} entries, evicting the least recently used ones. The cached values
+ * must be immutable, or copied by the caller.</p>
+ */
+public class WorkflowModelCache {
+
+    /**
+     * Default maximum number of entries
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+
+    /**
+     * Version of the latest definition of a model
+     */
+    public static final String HEAD = "HEAD";
+
+    private static final String MODEL = "model ";
+    private static final String MODELS = "models ";
+    private static final String TRANSIENT = "transient ";
+    private static final String LAUNCHERS = "launchers";
+
+    private final Map<String, Object> entries;
+
+    // incremented by each invalidation, a value loaded meanwhile may be stale and is not stored
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public WorkflowModelCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries maximum number of entries kept in the cache
+     */
+    public WorkflowModelCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Loads a value from the server on a request
+     *
+     * @param <T> the type of the value
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws ClientException;
+    }
+
+    /**
+     * @param modelId the model id
+     * @param version the version, {@code null} or {@value #HEAD} for the latest one
+     * @param loader downloads the definition as JSON
+     * @return the definition of the model
+     * @throws ClientException if the definition is not cached and could not be downloaded
+     */
+    public String getModel(String modelId, String version, Loader<String> loader) throws ClientException {
+        return get(MODEL + modelId + " " + (version == null ? HEAD : version), loader);
+    }
+
+    /**
+     * @param listType the type of list, see {@code WorkflowClient.MODEL_LIST_TYPE_ID}
+     * @param loader downloads the list
+     * @return the model ids or uris
+     * @throws ClientException if the list is not cached and could not be downloaded
+     */
+    public <T> T getModels(String listType, Loader<T> loader) throws ClientException {
+        return get(MODELS + listType, loader);
+    }
+
+    /**
+     * @param modelPath the path of the model content
+     * @param loader checks the transient flag of the model
+     * @return true if the model is transient
+     * @throws ClientException if the flag is not cached and could not be checked
+     */
+    public boolean isTransient(String modelPath, Loader<Boolean> loader) throws ClientException {
+        return get(TRANSIENT + modelPath, loader);
+    }
+
+    /**
+     * @param loader downloads the configurations of all the launchers
+     * @return the configurations of the launchers
+     * @throws ClientException if the configurations are not cached and could not be downloaded
+     */
+    public <T> T getLaunchers(Loader<T> loader) throws ClientException {
+        return get(LAUNCHERS, loader);
+    }
+
+    private <T> T get(String key, Loader<T> loader) throws ClientException {
+        long loadedGeneration;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            T value = (T) entries.get(key);
+            if (value != null) {
+                hits.incrementAndGet();
+                return value;
+            }
+            loadedGeneration = generation;
+        }
+        // not holding the lock while waiting for the server
+        misses.incrementAndGet();
+        T value = loader.load();
+        synchronized (this) {
+            if (value != null && loadedGeneration == generation) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes the latest definition of a model, the model lists and the transient flags, after the model was
+     * deployed, updated or deleted
+     *
+     * @param modelId the model id
+     */
+    public synchronized void invalidateModel(String modelId) {
+        generation++;
+        String head = MODEL + modelId + " " + HEAD;
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            if (key.equals(head) || key.startsWith(MODELS) || key.startsWith(TRANSIENT)) {
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the launcher configurations, after a launcher was created or edited
+     */
+    public synchronized void invalidateLaunchers() {
+        generation++;
+        if (entries.remove(LAUNCHERS) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    /**
+     * @return the number of entries currently cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of reads served without contacting the server
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of reads that contacted the server
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries removed because of writes
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WorkflowModelCache{hits=" + hits + ", misses=" + misses + ", invalidations=" + invalidations
+                + ", size=" + size() + "}";
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.metrics;
+
+/**
+ * <p>Maps a request path to the endpoint template its metrics are grouped under.</p>
+ *
+ * <p>The {@link #DEFAULT} normalizer keeps the paths of servlets and fixed resources (under {@code /bin},
+ * {@code /libs}, {@code /system}, {@code /crx}, {@code /mnt}, {@code /services} and {@code /etc.clientlibs}) and
+ * replaces repository paths by {@code *}, keeping the selectors and extension:</p>
+ * <ul>
+ *     <li>{@code /bin/wcmcommand} stays {@code /bin/wcmcommand}</li>
+ *     <li>{@code /libs/granite/qe/jobs.all.json} stays {@code /libs/granite/qe/jobs.all.json}</li>
+ *     <li>{@code /content/dam/folder.initiateUpload.json} becomes {@code *.initiateUpload.json}</li>
+ *     <li>{@code /content/site/page/jcr:content} becomes {@code *}</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface EndpointNormalizer {
+
+    String[] FIXED_ROOTS = {"/bin/", "/libs/", "/system/", "/crx/", "/mnt/", "/services/", "/etc.clientlibs/"};
+
+    EndpointNormalizer DEFAULT = path -> {
+        String p = path;
+        int query = p.indexOf('?');
+        if (query >= 0) {
+            p = p.substring(0, query);
+        }
+        for (String root : FIXED_ROOTS) {
+            if (p.startsWith(root)) {
+                return p;
+            }
+        }
+        int slash = p.lastIndexOf('/');
+        int dot = p.indexOf('.', slash + 1);
+        return dot >= 0 ? "*" + p.substring(dot) : "*";
+    };
+
+    /**
+     * @param path the path of the request, without scheme and host
+     * @return the endpoint template
+     */
+    String normalize(String path);
+}
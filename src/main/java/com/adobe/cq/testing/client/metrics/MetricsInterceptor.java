@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.metrics;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+import org.apache.sling.testing.clients.interceptors.HttpRequestResponseInterceptor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Records the latency, the bytes sent and received and the status of every request into a
+ * {@link MetricsRecorder}. The latency is measured from the moment the request leaves the interceptor chain
+ * until the response headers are received. The received bytes are counted as the response body is read.</p>
+ *
+ * <p>Register it last, so that delays added by other interceptors are not measured, e.g. with
+ * {@code CQClient.InternalBuilder#enableMetrics()}.</p>
+ */
+public class MetricsInterceptor implements HttpRequestResponseInterceptor {
+
+    private static final String START_ATTR = MetricsInterceptor.class.getName() + ".start";
+    private static final String STATS_ATTR = MetricsInterceptor.class.getName() + ".stats";
+
+    private final MetricsRecorder recorder;
+
+    // context path of the client, without trailing slash, empty if none
+    private final String basePath;
+
+    public MetricsInterceptor() {
+        this(MetricsRecorder.getDefault());
+    }
+
+    public MetricsInterceptor(MetricsRecorder recorder) {
+        this(recorder, null);
+    }
+
+    /**
+     * @param recorder the recorder of the requests
+     * @param basePath the context path of the client (e.g. {@code /author} for {@code http://host/author}),
+     *                 removed from the request paths so that the endpoints are normalized as on a root context
+     */
+    public MetricsInterceptor(MetricsRecorder recorder, String basePath) {
+        this.recorder = recorder;
+        String base = basePath != null ? basePath : "";
+        while (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        this.basePath = base;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        EndpointStats stats = recorder.getStats(request.getRequestLine().getMethod(),
+                pathOf(request.getRequestLine().getUri()));
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null && entity.getContentLength() > 0) {
+                stats.addBytesOut(entity.getContentLength());
+            }
+        }
+        context.setAttribute(STATS_ATTR, stats);
+        context.setAttribute(START_ATTR, System.nanoTime());
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) {
+        Object start = context.getAttribute(START_ATTR);
+        Object stats = context.getAttribute(STATS_ATTR);
+        if (!(start instanceof Long) || !(stats instanceof EndpointStats)) {
+            return;
+        }
+        EndpointStats endpointStats = (EndpointStats) stats;
+        endpointStats.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - (Long) start),
+                response.getStatusLine().getStatusCode());
+        context.removeAttribute(START_ATTR);
+        if (response.getEntity() != null) {
+            response.setEntity(new CountingEntity(response.getEntity(), endpointStats));
+        }
+    }
+
+    String pathOf(String uri) {
+        String path;
+        try {
+            path = URI.create(uri).getRawPath();
+            if (path == null) {
+                path = uri;
+            }
+        } catch (IllegalArgumentException e) {
+            int query = uri.indexOf('?');
+            path = query >= 0 ? uri.substring(0, query) : uri;
+        }
+        if (!basePath.isEmpty() && path.startsWith(basePath)
+                && (path.length() == basePath.length() || path.charAt(basePath.length()) == '/')) {
+            path = path.length() == basePath.length() ? "/" : path.substring(basePath.length());
+        }
+        return path;
+    }
+
+    private static final class CountingEntity extends HttpEntityWrapper {
+        private final EndpointStats stats;
+
+        private CountingEntity(HttpEntity wrapped, EndpointStats stats) {
+            super(wrapped);
+            this.stats = stats;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        stats.addBytesIn(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) {
+                        stats.addBytesIn(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (InputStream in = getContent()) {
+                IOUtils.copy(in, outStream);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.metrics;
+
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Collects the {@link EndpointStats} of the requests intercepted by {@link MetricsInterceptor}, grouped by
+ * {@code METHOD template} where the template is computed by an {@link EndpointNormalizer}.</p>
+ *
+ * <p>All the clients built with metrics enabled record into the {@link #getDefault() default} recorder unless
+ * told otherwise. The recorder is thread safe and can be shared by tests running in parallel.</p>
+ */
+public class MetricsRecorder {
+
+    /**
+     * System property enabling the metrics for all the clients built through {@code CQClient.InternalBuilder}
+     */
+    public static final String ENABLED_PROP = "cq.testing.metrics";
+
+    private static final MetricsRecorder DEFAULT = new MetricsRecorder();
+
+    private static final String[] PERCENTILES = {"p50", "p90", "p99", "p99.9"};
+    private static final double[] PERCENTILE_VALUES = {50, 90, 99, 99.9};
+
+    private final EndpointNormalizer normalizer;
+
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public MetricsRecorder() {
+        this(EndpointNormalizer.DEFAULT);
+    }
+
+    public MetricsRecorder(EndpointNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * @return the recorder shared by the whole JVM
+     */
+    public static MetricsRecorder getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param method the HTTP method
+     * @param path   the path of the request
+     * @return the statistics of the endpoint the request belongs to
+     */
+    public EndpointStats getStats(String method, String path) {
+        String endpoint = method + " " + normalizer.normalize(path);
+        return endpoints.computeIfAbsent(endpoint, EndpointStats::new);
+    }
+
+    /**
+     * @return a snapshot of the statistics of all the endpoints, slowest p99 first
+     */
+    public List<EndpointStats> getEndpoints() {
+        List<EndpointStats> result = new ArrayList<>(endpoints.values());
+        result.sort(Comparator.comparingLong((EndpointStats s) -> s.getLatency().getValueAtPercentile(99))
+                .reversed().thenComparing(EndpointStats::getEndpoint));
+        return result;
+    }
+
+    /**
+     * Forgets all the recorded statistics.
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * @return the report as JSON, with latencies in milliseconds
+     */
+    public ObjectNode toJson() {
+        ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+        ArrayNode array = root.putArray("endpoints");
+        for (EndpointStats stats : getEndpoints()) {
+            LatencyHistogram latency = stats.getLatency();
+            ObjectNode node = array.addObject();
+            node.put("endpoint", stats.getEndpoint());
+            node.put("count", latency.getCount());
+            node.put("min", millis(latency.getMin()));
+            node.put("mean", millis(latency.getMean()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                node.put(PERCENTILES[i], millis(latency.getValueAtPercentile(PERCENTILE_VALUES[i])));
+            }
+            node.put("max", millis(latency.getMax()));
+            node.put("bytesIn", stats.getBytesIn());
+            node.put("bytesOut", stats.getBytesOut());
+            ObjectNode statuses = node.putObject("statuses");
+            for (Map.Entry<Integer, Long> e : stats.getStatuses().entrySet()) {
+                statuses.put(String.valueOf(e.getKey()), e.getValue());
+            }
+        }
+        return root;
+    }
+
+    /**
+     * @return the report as CSV, with latencies in milliseconds and statuses as {@code status:count} pairs
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("endpoint,count,min,mean");
+        for (String p : PERCENTILES) {
+            sb.append(',').append(p);
+        }
+        sb.append(",max,bytesIn,bytesOut,statuses\n");
+        for (EndpointStats stats : getEndpoints()) {
+            LatencyHistogram latency = stats.getLatency();
+            sb.append('"').append(stats.getEndpoint().replace("\"", "\"\"")).append('"')
+                    .append(',').append(latency.getCount())
+                    .append(',').append(millis(latency.getMin()))
+                    .append(',').append(millis(latency.getMean()));
+            for (double p : PERCENTILE_VALUES) {
+                sb.append(',').append(millis(latency.getValueAtPercentile(p)));
+            }
+            sb.append(',').append(millis(latency.getMax()))
+                    .append(',').append(stats.getBytesIn())
+                    .append(',').append(stats.getBytesOut())
+                    .append(',');
+            String sep = "";
+            for (Map.Entry<Integer, Long> e : stats.getStatuses().entrySet()) {
+                sb.append(sep).append(e.getKey()).append(':').append(e.getValue());
+                sep = " ";
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes {@code baseName.json} and {@code baseName.csv} into {@code dir}, replacing existing files.
+     *
+     * @param dir      the directory, created if needed
+     * @param baseName the name of the files, without extension
+     * @throws IOException if the files cannot be written
+     */
+    public void writeReports(File dir, String baseName) throws IOException {
+        Files.createDirectories(dir.toPath());
+        try (Writer w = Files.newBufferedWriter(new File(dir, baseName + ".json").toPath(), StandardCharsets.UTF_8)) {
+            JsonStreamUtils.getMapper().writerWithDefaultPrettyPrinter().writeValue(w, toJson());
+        }
+        try (Writer w = Files.newBufferedWriter(new File(dir, baseName + ".csv").toPath(), StandardCharsets.UTF_8)) {
+            w.write(toCsv());
+        }
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros / 10) / 100.0;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.pool;
+
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Registry of connection managers shared by the clients talking to the same host with the same auth context,
+ * so that clients created per test or per thread reuse the open (and already TLS negotiated) connections instead
+ * of opening new ones.</p>
+ *
+ * <p>The auth context only needs to differ when the connections themselves carry the identity, as with client
+ * certificates or NTLM. Basic and token authentication send the credentials with each request, so the clients of
+ * all the users of an instance share the {@value #BASIC_AUTH} pool.</p>
+ *
+ * <p>Pool sizes and eviction are configured by system properties, or through the setters which also apply to the
+ * pools already created. Idle and expired connections are closed by a single background thread.</p>
+ */
+public class ConnectionPoolRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPoolRegistry.class);
+
+    /**
+     * System property making all the clients built through {@code CQClient.InternalBuilder} use the default registry
+     */
+    public static final String SHARED_PROP = "cq.testing.pool.shared";
+
+    public static final String MAX_TOTAL_PROP = "cq.testing.pool.maxTotal";
+    public static final String MAX_PER_ROUTE_PROP = "cq.testing.pool.maxPerRoute";
+    public static final String IDLE_TIMEOUT_PROP = "cq.testing.pool.idleTimeout";
+    public static final String VALIDATE_AFTER_INACTIVITY_PROP = "cq.testing.pool.validateAfterInactivity";
+
+    /**
+     * Auth context of the clients sending their credentials with each request
+     */
+    public static final String BASIC_AUTH = "basic";
+
+    private static final ConnectionPoolRegistry DEFAULT = new ConnectionPoolRegistry();
+
+    private final ConcurrentMap<String, PoolingHttpClientConnectionManager> pools = new ConcurrentHashMap<>();
+
+    private volatile int maxTotal = Integer.getInteger(MAX_TOTAL_PROP, 200);
+    private volatile int maxPerRoute = Integer.getInteger(MAX_PER_ROUTE_PROP, 50);
+    private volatile long idleTimeout = Long.getLong(IDLE_TIMEOUT_PROP, 30000L);
+    private final int validateAfterInactivity = Integer.getInteger(VALIDATE_AFTER_INACTIVITY_PROP, 2000);
+
+    private ScheduledExecutorService evictor;
+    private ScheduledFuture<?> eviction;
+
+    /**
+     * @return the registry shared by the whole JVM
+     */
+    public static ConnectionPoolRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param url the url of the target host, only the scheme, host and port are considered
+     * @param authContext the auth context of the client, e.g. {@link #BASIC_AUTH}
+     * @return the connection manager to share, created on first use. The clients using it must not shut it down,
+     *         see {@link org.apache.http.impl.client.HttpClientBuilder#setConnectionManagerShared(boolean)}
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager(URI url, String authContext) {
+        return getConnectionManager(key(url, authContext));
+    }
+
+    /**
+     * @param name the name of a pool not bound to a single host, e.g. for the uploads to the blob storage
+     * @return the connection manager to share, created on first use
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager(String name) {
+        PoolingHttpClientConnectionManager pool = pools.get(name);
+        if (pool != null) {
+            return pool;
+        }
+        // created outside of the map, so that the lock of the registry is never taken while holding a lock of the map
+        PoolingHttpClientConnectionManager created = createPool();
+        pool = pools.putIfAbsent(name, created);
+        if (pool != null) {
+            created.shutdown();
+            return pool;
+        }
+        startEviction();
+        LOG.debug("Created connection pool {} with {} connections, {} per route", name, maxTotal, maxPerRoute);
+        return created;
+    }
+
+    /**
+     * @param url the url of the target host
+     * @param authContext the auth context of the client
+     * @return the totals of the pool, or {@code null} if it was not created
+     */
+    public PoolStats getStats(URI url, String authContext) {
+        PoolingHttpClientConnectionManager pool = pools.get(key(url, authContext));
+        return pool == null ? null : pool.getTotalStats();
+    }
+
+    /**
+     * @return the totals (leased, pending, available and max connections) of all the pools, by name
+     */
+    public Map<String, PoolStats> getAllStats() {
+        Map<String, PoolStats> stats = new TreeMap<>();
+        for (Map.Entry<String, PoolingHttpClientConnectionManager> e : pools.entrySet()) {
+            stats.put(e.getKey(), e.getValue().getTotalStats());
+        }
+        return stats;
+    }
+
+    /**
+     * @param maxTotal maximum number of connections of each pool
+     */
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+        pools.values().forEach(pool -> pool.setMaxTotal(maxTotal));
+    }
+
+    /**
+     * @param maxPerRoute maximum number of connections of each pool to a single route
+     */
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+        pools.values().forEach(pool -> pool.setDefaultMaxPerRoute(maxPerRoute));
+    }
+
+    /**
+     * @param idleTimeout time in milliseconds after which an unused connection is closed, {@code 0} to keep them
+     */
+    public synchronized void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        if (evictor != null) {
+            scheduleEviction();
+        }
+    }
+
+    /**
+     * Closes the idle and expired connections of all the pools now
+     */
+    public void closeIdleConnections() {
+        for (PoolingHttpClientConnectionManager pool : pools.values()) {
+            pool.closeExpiredConnections();
+            if (idleTimeout > 0) {
+                pool.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Shuts down all the pools and the eviction thread. The clients still using them fail, new clients get
+     * new pools.
+     */
+    public void shutdown() {
+        // not holding the lock of the registry, see getConnectionManager
+        for (Map.Entry<String, PoolingHttpClientConnectionManager> e : pools.entrySet()) {
+            if (pools.remove(e.getKey(), e.getValue())) {
+                e.getValue().shutdown();
+            }
+        }
+        synchronized (this) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+                eviction = null;
+            }
+        }
+    }
+
+    private PoolingHttpClientConnectionManager createPool() {
+        // same socket factories as HttpClientBuilder.useSystemProperties()
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                        .build());
+        pool.setMaxTotal(maxTotal);
+        pool.setDefaultMaxPerRoute(maxPerRoute);
+        pool.setValidateAfterInactivity(validateAfterInactivity);
+        return pool;
+    }
+
+    private synchronized void startEviction() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "connection-pool-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduleEviction();
+        }
+    }
+
+    private void scheduleEviction() {
+        if (eviction != null) {
+            eviction.cancel(false);
+        }
+        // check a few times per idle timeout, but not more often than every second
+        long period = Math.max(1000, idleTimeout > 0 ? idleTimeout / 4 : 5000);
+        eviction = evictor.scheduleWithFixedDelay(this::closeIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    static String key(URI url, String authContext) {
+        int port = url.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(url.getScheme()) ? 443 : 80;
+        }
+        return url.getScheme() + "://" + url.getHost() + ":" + port + " " + authContext;
+    }
+}
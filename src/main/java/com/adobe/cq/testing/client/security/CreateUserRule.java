@@ -96,7 +96,9 @@ public class CreateUserRule extends ExternalResource implements UserRule {
 
         // Wait until user exists
         new Polling(() -> c.getSuccessfulUserConfig().getUser().exists()).poll(5000, 500);
-        userClient.set(new CQClient(adminAuthor.getUrl(), c.getUsername(), c.getPassword()));
+        // share the connections of all the created users instead of opening a new pool per test
+        userClient.set(CQClient.Builder.create(adminAuthor.getUrl(), c.getUsername(), c.getPassword())
+                .useSharedConnectionPool().build());
     }
 
     @Override
@@ -17,10 +17,10 @@
 package com.adobe.cq.testing.client.security;
 
 import com.adobe.cq.testing.client.SecurityClient;
+import com.adobe.cq.testing.polling.BackoffPolling;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import org.apache.sling.testing.clients.ClientException;
-import org.apache.sling.testing.clients.util.poller.Polling;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,7 +49,7 @@ public class ExtendedCQPermissions extends CQPermissions {
     public JsonNode changePermissionsWithRetry(PermissionConfig config, long timeout, long delay,
                                                int... expectedStatus) throws ClientException, InterruptedException {
 
-        class ChangePermissionsPolling extends Polling {
+        class ChangePermissionsPolling extends BackoffPolling {
             JsonNode permissions = JsonNodeFactory.instance.objectNode();
 
             @Override
@@ -97,7 +97,7 @@ public class ExtendedCQPermissions extends CQPermissions {
     public JsonNode getPermissionsWithRetry(String authorizableId, String path, int depth,
                                    long timeout, long delay, int... expectedStatus) throws
             ClientException, InterruptedException {
-        class GetPermissionsPolling extends Polling {
+        class GetPermissionsPolling extends BackoffPolling {
             JsonNode permissions = JsonNodeFactory.instance.objectNode();
 
             @Override
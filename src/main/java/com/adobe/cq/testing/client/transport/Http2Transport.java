@@ -0,0 +1,208 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.transport;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.sling.testing.timeouts.TimeoutsProvider;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>HTTP/2 connections to the AEM instances, multiplexing all the concurrent requests to a host over a single
+ * connection. TLS connections negotiate HTTP/2 with ALPN, plain connections use HTTP/2 with prior knowledge
+ * (h2c). The server must support HTTP/2, there is no fallback to HTTP/1.1.</p>
+ *
+ * <p>The transport is thread safe and independent of the users, it is meant to be shared by all the clients of
+ * the JVM through {@link #getDefault()}. Through {@link Http2TransportClient}, request bodies above
+ * {@value #STREAMING_THRESHOLD} bytes or of unknown length are streamed, and response bodies are read while they
+ * arrive, so large uploads and downloads are not held in memory.</p>
+ */
+public class Http2Transport implements Closeable {
+
+    /**
+     * System property with the maximum number of concurrent requests over a connection
+     */
+    public static final String MAX_STREAMS_PROP = "cq.testing.http2.maxConcurrentStreams";
+
+    /**
+     * Request bodies up to this length are buffered, so that they can be sent again; it is also the size of the
+     * buffers of the streamed bodies
+     */
+    static final int STREAMING_THRESHOLD = 64 * 1024;
+
+    private static Http2Transport defaultTransport;
+
+    private final CloseableHttpAsyncClient client;
+    private final long timeout;
+    // write the streamed request bodies, the I/O reactor must not block
+    private final ExecutorService bodyWriters;
+
+    /**
+     * Creates a transport with the {@value #MAX_STREAMS_PROP} concurrent requests per connection, 100 by default
+     */
+    public Http2Transport() {
+        this(Integer.getInteger(MAX_STREAMS_PROP, 100));
+    }
+
+    /**
+     * @param maxConcurrentStreams maximum number of concurrent requests over a connection
+     */
+    // the H2 async client has no connection manager to take a ConnectionConfig, the connect timeout is set per request
+    @SuppressWarnings("deprecation")
+    public Http2Transport(int maxConcurrentStreams) {
+        // same timeout as the connections of SlingClient
+        this.timeout = TimeUnit.SECONDS.toMillis(
+                TimeoutsProvider.getInstance().getTimeout("sling.client.connection.timeout.seconds", 60));
+        this.client = H2AsyncClientBuilder.create()
+                .useSystemProperties()
+                .setH2Config(H2Config.custom()
+                        .setMaxConcurrentStreams(maxConcurrentStreams)
+                        .setPushEnabled(false)
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(Timeout.ofMilliseconds(timeout))
+                        .build())
+                .setTlsStrategy(ClientTlsStrategyBuilder.create().useSystemProperties().build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(timeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(timeout))
+                        .build())
+                // cookies, authentication and retries are handled by the HttpClient 4 side, see Http2TransportClient
+                .disableCookieManagement()
+                .disableAutomaticRetries()
+                .disableAuthCaching()
+                .build();
+        this.client.start();
+        this.bodyWriters = ThreadUtils.newExecutor("http2-body", maxConcurrentStreams, false, true);
+    }
+
+    /**
+     * @return the transport shared by the whole JVM, created on first use
+     */
+    public static synchronized Http2Transport getDefault() {
+        if (defaultTransport == null) {
+            defaultTransport = new Http2Transport();
+        }
+        return defaultTransport;
+    }
+
+    /**
+     * Sends a request and waits for the complete response, for small exchanges
+     *
+     * @param request the request, with an absolute URI
+     * @return the buffered response
+     * @throws IOException if the request fails or times out
+     */
+    public SimpleHttpResponse execute(SimpleHttpRequest request) throws IOException {
+        Future<SimpleHttpResponse> future = client.execute(request, null);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SocketTimeoutException("No response to " + request + " after " + timeout + "ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends a request and waits for the head of the response, the body is then read while it arrives
+     *
+     * @param request the request, with an absolute URI, and its body producer if any
+     * @param description the request line, for the errors
+     * @return the response, to be closed if its body is not read to the end
+     * @throws IOException if the request fails or no response arrives in time
+     */
+    StreamingResponseConsumer stream(AsyncRequestProducer request, String description) throws IOException {
+        StreamingResponseConsumer consumer = new StreamingResponseConsumer(STREAMING_THRESHOLD);
+        Future<Void> exchange = client.execute(request, consumer, new FutureCallback<Void>() {
+            @Override
+            public void completed(Void result) {
+            }
+
+            @Override
+            public void failed(Exception cause) {
+                consumer.fail(cause);
+            }
+
+            @Override
+            public void cancelled() {
+                consumer.fail(new InterruptedIOException("Cancelled " + description));
+            }
+        });
+        consumer.setExchange(exchange);
+        try {
+            consumer.getHead().get(timeout, TimeUnit.MILLISECONDS);
+            return consumer;
+        } catch (InterruptedException e) {
+            exchange.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + description);
+        } catch (TimeoutException e) {
+            exchange.cancel(true);
+            throw new SocketTimeoutException("No response to " + description + " after " + timeout + "ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * @return the executor writing the streamed request bodies
+     */
+    ExecutorService getBodyWriters() {
+        return bodyWriters;
+    }
+
+    /**
+     * Closes the connections, the requests in progress fail
+     */
+    @Override
+    public void close() {
+        synchronized (Http2Transport.class) {
+            if (defaultTransport == this) {
+                defaultTransport = null;
+            }
+        }
+        client.close(CloseMode.GRACEFUL);
+        bodyWriters.shutdownNow();
+    }
+}
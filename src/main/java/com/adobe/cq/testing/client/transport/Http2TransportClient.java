@@ -0,0 +1,329 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.transport;
+
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityProducer;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.auth.AUTH;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.NonRepeatableRequestException;
+import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Lookup;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.cookie.CookieSpecProvider;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.cookie.DefaultCookieSpecProvider;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>{@link CloseableHttpClient} sending the requests over an {@link Http2Transport}, so that the clients keep the
+ * {@code SlingClient} API and {@code SlingHttpResponse} responses. Built by
+ * {@code CQClient.InternalBuilder#useHttp2Transport()}.</p>
+ *
+ * <p>The HttpClient 4 request and response interceptors of the processor run around each exchange, with the
+ * context of the client: cookies, preemptive or challenged basic authentication and the retry strategy work as
+ * with the default transport. Redirects are followed by the transport.</p>
+ *
+ * <p>Request bodies up to 64 KB of known length are buffered, so that a retry or the answer to an authentication
+ * challenge sends them again. Larger bodies are streamed from the entity, sent again only if it is repeatable.
+ * The response is returned once its head arrives and its entity reads the body while it arrives; closing the
+ * response before the end of the body resets the stream, not the connection.</p>
+ */
+public class Http2TransportClient extends CloseableHttpClient {
+
+    // connection specific headers are forbidden in HTTP/2, the length is set by the transport
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(Arrays.asList("connection", "keep-alive",
+            "proxy-connection", "transfer-encoding", "upgrade", "te", "host", "content-length", "expect"));
+
+    private static final Lookup<CookieSpecProvider> COOKIE_SPECS = RegistryBuilder.<CookieSpecProvider>create()
+            .register(CookieSpecs.DEFAULT, new DefaultCookieSpecProvider())
+            .build();
+
+    private final Http2Transport transport;
+    private final HttpProcessor processor;
+    private final ServiceUnavailableRetryStrategy retryStrategy;
+
+    /**
+     * @param transport the transport sending the requests, not closed with this client
+     * @param processor the interceptors of the requests and responses
+     * @param retryStrategy decides which responses are retried, may be {@code null}
+     */
+    public Http2TransportClient(Http2Transport transport, HttpProcessor processor,
+                                ServiceUnavailableRetryStrategy retryStrategy) {
+        this.transport = transport;
+        this.processor = processor;
+        this.retryStrategy = retryStrategy;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context)
+            throws IOException {
+        HttpClientContext ctx = HttpClientContext.adapt(context != null ? context : new BasicHttpContext());
+        ctx.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, target);
+        ctx.setAttribute(HttpClientContext.HTTP_ROUTE, new HttpRoute(target));
+        ctx.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+        if (ctx.getCookieSpecRegistry() == null) {
+            ctx.setCookieSpecRegistry(COOKIE_SPECS);
+        }
+
+        RequestBody body = null;
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null) {
+                body = new RequestBody(entity, transport.getBodyWriters());
+            }
+        }
+
+        try {
+            Credentials credentials = getCredentials(target, ctx);
+            if (credentials != null && isPreemptive(target, ctx)) {
+                request.addHeader(new BasicScheme().authenticate(credentials, request, ctx));
+            }
+            processor.process(request, ctx);
+
+            for (int attempt = 1; ; attempt++) {
+                CloseableHttpResponse response = send(target, request, body);
+                if (response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED && credentials != null
+                        && !request.containsHeader(AUTH.WWW_AUTH_RESP)) {
+                    response.close();
+                    request.addHeader(new BasicScheme().authenticate(credentials, request, ctx));
+                    response = send(target, request, body);
+                }
+                ctx.setAttribute(HttpCoreContext.HTTP_RESPONSE, response);
+                processor.process(response, ctx);
+
+                if (retryStrategy == null || !retryStrategy.retryRequest(response, attempt, ctx)) {
+                    return response;
+                }
+                response.close();
+                Thread.sleep(retryStrategy.getRetryInterval());
+            }
+        } catch (HttpException e) {
+            throw new ClientProtocolException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrying " + request.getRequestLine());
+        }
+    }
+
+    private CloseableHttpResponse send(HttpHost target, HttpRequest request, RequestBody body)
+            throws IOException, HttpException {
+        URI uri = request instanceof HttpUriRequest && ((HttpUriRequest) request).getURI().isAbsolute()
+                ? ((HttpUriRequest) request).getURI()
+                : URI.create(target.toURI() + request.getRequestLine().getUri());
+
+        AsyncRequestBuilder h2Request = AsyncRequestBuilder.create(request.getRequestLine().getMethod()).setUri(uri);
+        for (Header header : request.getAllHeaders()) {
+            String name = header.getName().toLowerCase(Locale.ROOT);
+            if (!SKIPPED_HEADERS.contains(name) && !(body != null && "content-type".equals(name))) {
+                h2Request.addHeader(header.getName(), header.getValue());
+            }
+        }
+        if (body != null) {
+            h2Request.setEntity(body.newProducer());
+        }
+
+        StreamingResponseConsumer exchange = transport.stream(h2Request.build(),
+                request.getRequestLine().toString());
+        org.apache.hc.core5.http.HttpResponse h2Response = exchange.getHead().join();
+
+        org.apache.hc.core5.http.ProtocolVersion version = h2Response.getVersion();
+        int status = h2Response.getCode();
+        String reason = h2Response.getReasonPhrase() != null ? h2Response.getReasonPhrase()
+                : EnglishReasonPhraseCatalog.INSTANCE.getReason(status, null);
+        StreamedResponse response = new StreamedResponse(new BasicStatusLine(version != null
+                ? new ProtocolVersion("HTTP", version.getMajor(), version.getMinor())
+                : new ProtocolVersion("HTTP", 2, 0), status, reason), exchange);
+        for (org.apache.hc.core5.http.Header header : h2Response.getHeaders()) {
+            response.addHeader(header.getName(), header.getValue());
+        }
+        EntityDetails details = exchange.getEntityDetails();
+        if (details != null) {
+            response.setEntity(new InputStreamEntity(exchange.getContent(), details.getContentLength(),
+                    details.getContentType() != null ? ContentType.parse(details.getContentType()) : null));
+        }
+        return response;
+    }
+
+    private static Credentials getCredentials(HttpHost target, HttpClientContext ctx) {
+        CredentialsProvider provider = ctx.getCredentialsProvider();
+        return provider == null ? null : provider.getCredentials(new AuthScope(target));
+    }
+
+    private static boolean isPreemptive(HttpHost target, HttpClientContext ctx) {
+        AuthCache authCache = ctx.getAuthCache();
+        AuthScheme scheme = authCache == null ? null : authCache.get(target);
+        return scheme instanceof BasicScheme;
+    }
+
+    /**
+     * The transport is shared, only this client is closed
+     */
+    @Override
+    public void close() {
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public org.apache.http.params.HttpParams getParams() {
+        return new org.apache.http.params.BasicHttpParams();
+    }
+
+    /**
+     * Like {@code InternalHttpClient}, returns an adapter of the transport: it has the default scheme registry, and
+     * releasing, closing or shutting down does nothing because the transport is shared. It cannot lease a connection,
+     * the streams of the HTTP/2 connection are not exposed.
+     */
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public org.apache.http.conn.ClientConnectionManager getConnectionManager() {
+        return new org.apache.http.conn.ClientConnectionManager() {
+            @Override
+            public org.apache.http.conn.scheme.SchemeRegistry getSchemeRegistry() {
+                return org.apache.http.impl.conn.SchemeRegistryFactory.createDefault();
+            }
+
+            @Override
+            public org.apache.http.conn.ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+                throw new UnsupportedOperationException("The HTTP/2 transport has no connection to lease");
+            }
+
+            @Override
+            public void releaseConnection(org.apache.http.conn.ManagedClientConnection conn, long validDuration,
+                                          TimeUnit timeUnit) {
+            }
+
+            @Override
+            public void closeExpiredConnections() {
+            }
+
+            @Override
+            public void closeIdleConnections(long idletime, TimeUnit timeUnit) {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    /**
+     * Body of a request: buffered up to {@link Http2Transport#STREAMING_THRESHOLD} bytes, so that a retry sends it
+     * again, streamed from the entity otherwise
+     */
+    private static final class RequestBody {
+
+        private final HttpEntity entity;
+        private final org.apache.hc.core5.http.ContentType contentType;
+        // null when streamed
+        private final byte[] bytes;
+        private final Executor writers;
+        private boolean sent;
+
+        RequestBody(HttpEntity entity, Executor writers) throws IOException {
+            this.entity = entity;
+            this.writers = writers;
+            this.contentType = entity.getContentType() != null
+                    ? org.apache.hc.core5.http.ContentType.parse(entity.getContentType().getValue())
+                    : org.apache.hc.core5.http.ContentType.APPLICATION_OCTET_STREAM;
+            long length = entity.getContentLength();
+            this.bytes = length >= 0 && length <= Http2Transport.STREAMING_THRESHOLD
+                    ? EntityUtils.toByteArray(entity) : null;
+        }
+
+        /**
+         * @return a producer sending the body once
+         * @throws NonRepeatableRequestException if the streamed entity was already sent and cannot be sent again
+         */
+        AsyncEntityProducer newProducer() throws NonRepeatableRequestException {
+            if (bytes != null) {
+                return AsyncEntityProducers.create(bytes, contentType);
+            }
+            if (sent && !entity.isRepeatable()) {
+                throw new NonRepeatableRequestException("Cannot send the request entity again, it is not repeatable");
+            }
+            sent = true;
+            return new AbstractClassicEntityProducer(Http2Transport.STREAMING_THRESHOLD, contentType, writers) {
+                @Override
+                protected void produceData(org.apache.hc.core5.http.ContentType type, OutputStream out)
+                        throws IOException {
+                    entity.writeTo(out);
+                }
+            };
+        }
+    }
+
+    private static final class StreamedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private final StreamingResponseConsumer exchange;
+
+        StreamedResponse(BasicStatusLine statusLine, StreamingResponseConsumer exchange) {
+            super(statusLine);
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void close() {
+            // resets the stream if the body was not read to the end
+            exchange.close();
+        }
+    }
+}
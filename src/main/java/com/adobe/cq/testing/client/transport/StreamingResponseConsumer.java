@@ -0,0 +1,180 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.transport;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Hands the response over as soon as its head arrives, the body is then read from {@link #getContent()} while the
+ * frames arrive. The window of the stream only grows as the body is read, so a large body is never held in memory.
+ */
+final class StreamingResponseConsumer implements AsyncResponseConsumer<Void>, Closeable {
+
+    private final CompletableFuture<HttpResponse> head = new CompletableFuture<>();
+    private final SharedInputBuffer buffer;
+    private final InputStream content = new Content();
+    private volatile EntityDetails entityDetails;
+    private volatile FutureCallback<Void> resultCallback;
+    private volatile Exception failure;
+    private volatile Future<?> exchange;
+
+    /**
+     * @param bufferSize the bytes of the body received but not read yet
+     */
+    StreamingResponseConsumer(int bufferSize) {
+        this.buffer = new SharedInputBuffer(bufferSize);
+    }
+
+    /**
+     * @return completed with the head of the response, or with the failure of the exchange
+     */
+    CompletableFuture<HttpResponse> getHead() {
+        return head;
+    }
+
+    /**
+     * @return the details of the body, {@code null} if the response has none
+     */
+    EntityDetails getEntityDetails() {
+        return entityDetails;
+    }
+
+    /**
+     * @return the body, blocking until its bytes arrive; fails if the exchange fails before its end
+     */
+    InputStream getContent() {
+        return content;
+    }
+
+    /**
+     * @param exchange the exchange feeding this consumer, cancelled if the body is closed before its end
+     */
+    void setExchange(Future<?> exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Resets the stream if the body was not fully received, the connection stays open for the other streams
+     */
+    @Override
+    public void close() {
+        if (!buffer.isEndStream()) {
+            Future<?> exchange = this.exchange;
+            if (exchange != null) {
+                exchange.cancel(true);
+            }
+            buffer.abort();
+        }
+    }
+
+    /**
+     * Fails the exchange, before or after the head was received
+     */
+    void fail(Exception cause) {
+        failure = cause;
+        head.completeExceptionally(cause);
+        buffer.abort();
+    }
+
+    @Override
+    public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                                FutureCallback<Void> resultCallback) {
+        this.entityDetails = entityDetails;
+        this.resultCallback = resultCallback;
+        if (entityDetails == null) {
+            buffer.markEndStream();
+            resultCallback.completed(null);
+        }
+        head.complete(response);
+    }
+
+    @Override
+    public void informationResponse(HttpResponse response, HttpContext context) {
+    }
+
+    @Override
+    public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+        buffer.updateCapacity(capacityChannel);
+    }
+
+    @Override
+    public void consume(ByteBuffer src) {
+        buffer.fill(src);
+    }
+
+    @Override
+    public void streamEnd(List<? extends Header> trailers) {
+        buffer.markEndStream();
+        resultCallback.completed(null);
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        fail(cause);
+    }
+
+    @Override
+    public void releaseResources() {
+    }
+
+    private final class Content extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            return checkFailure(buffer.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return len == 0 ? 0 : checkFailure(buffer.read(b, off, len));
+        }
+
+        @Override
+        public int available() {
+            return buffer.length();
+        }
+
+        @Override
+        public void close() {
+            StreamingResponseConsumer.this.close();
+        }
+
+        // an aborted buffer reads as the end of the body
+        private int checkFailure(int read) throws IOException {
+            Exception cause = failure;
+            if (read < 0 && cause != null) {
+                throw cause instanceof IOException ? (IOException) cause
+                        : new IOException("The response body was not fully received", cause);
+            }
+            return read;
+        }
+    }
+}
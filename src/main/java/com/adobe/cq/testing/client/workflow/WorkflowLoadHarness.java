@@ -0,0 +1,244 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.workflow;
+
+import com.adobe.cq.testing.client.WorkflowClient;
+import com.adobe.cq.testing.polling.Backoff;
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.sling.testing.clients.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <p>Measures the throughput of the workflow engine: starts an instance of a model for each payload, under a rate
+ * and concurrency limit, and checks each instance until it is completed or aborted. The history of each completed
+ * instance is read once to compute the dwell time of its steps.</p>
+ *
+ * <p>The checks of an instance start as soon as it is started, so the completion latency of the first instances
+ * does not include the time spent starting the next ones.</p>
+ *
+ * <pre>
+ * WorkflowLoadReport report = new WorkflowLoadHarness(client, modelId)
+ *         .setStartsPerSecond(20)
+ *         .setTimeout(TimeUnit.MINUTES.toMillis(5))
+ *         .run(payloads.stream());
+ * report.writeJson(new File("target/workflow-load.json"));
+ * report.assertAllCompleted();
+ * report.assertCompletionPercentileBelow(95, 10000);
+ * </pre>
+ */
+public class WorkflowLoadHarness {
+    private static final Logger LOG = LoggerFactory.getLogger(WorkflowLoadHarness.class);
+
+    private final WorkflowClient client;
+    private final String modelId;
+
+    private double startsPerSecond = 0;
+    private int concurrency = 10;
+    private int pollParallelism = 10;
+    private Backoff backoff = Backoff.forDelay(500);
+    private long timeout = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * @param client the client starting and checking the instances
+     * @param modelId the workflow model id to be used
+     */
+    public WorkflowLoadHarness(WorkflowClient client, String modelId) {
+        this.client = client;
+        this.modelId = modelId;
+    }
+
+    /**
+     * @param startsPerSecond the max rate of start requests, 0 (default) for no limit
+     * @return this harness
+     */
+    public WorkflowLoadHarness setStartsPerSecond(double startsPerSecond) {
+        this.startsPerSecond = startsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param concurrency the max number of start requests in flight, 10 by default
+     * @return this harness
+     */
+    public WorkflowLoadHarness setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * @param pollParallelism the max number of instances checked at the same time, 10 by default
+     * @return this harness
+     */
+    public WorkflowLoadHarness setPollParallelism(int pollParallelism) {
+        this.pollParallelism = pollParallelism;
+        return this;
+    }
+
+    /**
+     * @param backoff the time to wait between two checks of the same instance, which bounds the accuracy of the
+     *            completion latency. {@code Backoff.forDelay(500)} by default.
+     * @return this harness
+     */
+    public WorkflowLoadHarness setBackoff(Backoff backoff) {
+        this.backoff = backoff;
+        return this;
+    }
+
+    /**
+     * @param timeout max time to wait for the instances after the last one was started, in milliseconds, 5 minutes
+     *            by default
+     * @return this harness
+     */
+    public WorkflowLoadHarness setTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Starts {@code count} instances on the same payload
+     *
+     * @param payload the payload JCR path
+     * @param count the number of instances
+     * @return the report of the run
+     * @throws InterruptedException to mark this method as waiting
+     * @see #run(Stream)
+     */
+    public WorkflowLoadReport run(String payload, int count) throws InterruptedException {
+        return run(Collections.nCopies(count, payload).stream());
+    }
+
+    /**
+     * Starts an instance for each payload and waits until they are all completed or aborted, or the timeout
+     * expired. The instances that could not be started, were aborted or timed out are counted in the report
+     * rather than failing the run, see {@link WorkflowLoadReport#assertAllCompleted()}.
+     *
+     * @param payloads the payload JCR paths, one instance is started for each
+     * @return the report of the run
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public WorkflowLoadReport run(Stream<String> payloads) throws InterruptedException {
+        WorkflowLoadReport report = new WorkflowLoadReport(modelId);
+        Pending pending = new Pending();
+        ScheduledExecutorService scheduler = ThreadUtils.newScheduledExecutor("workflow-load",
+                Math.max(1, pollParallelism), true);
+        try {
+            client.startWorkflows(modelId, payloads, startsPerSecond, concurrency, start -> {
+                report.recordStart(start);
+                if (start.isStarted()) {
+                    pending.add();
+                    scheduler.execute(new Check(start, report, pending, scheduler));
+                }
+            });
+            report.setTimedOut(pending.await(timeout));
+        } finally {
+            scheduler.shutdownNow();
+        }
+        LOG.info("Workflow load of {}: {}", modelId, report);
+        return report;
+    }
+
+    /**
+     * Checks the state of an instance, scheduling itself again until the instance is completed or aborted
+     */
+    private class Check implements Runnable {
+        private final WorkflowStart start;
+        private final WorkflowLoadReport report;
+        private final Pending pending;
+        private final ScheduledExecutorService scheduler;
+        private int attempts;
+
+        Check(WorkflowStart start, WorkflowLoadReport report, Pending pending, ScheduledExecutorService scheduler) {
+            this.start = start;
+            this.report = report;
+            this.pending = pending;
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public void run() {
+            attempts++;
+            try {
+                WorkflowClient.Status status = client.getWorkflowInstance(start.getInstanceURI()).getStatus();
+                if (status == WorkflowClient.Status.COMPLETED) {
+                    long completed = System.currentTimeMillis();
+                    report.recordCompletion(start, completed, getHistory());
+                    pending.remove();
+                    return;
+                }
+                if (status == WorkflowClient.Status.ABORTED) {
+                    report.recordAborted();
+                    pending.remove();
+                    return;
+                }
+            } catch (ClientException | RuntimeException e) {
+                // an instance that can not be read yet is checked again
+                LOG.debug("Failed to check {}", start.getInstanceURI(), e);
+            }
+            try {
+                scheduler.schedule(this, backoff.nextDelay(attempts), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // the run is over
+            }
+        }
+
+        private List<HistoryItem> getHistory() {
+            try {
+                return client.getWorkflowInstanceHistory(start.getInstanceURI());
+            } catch (ClientException | RuntimeException e) {
+                // the completion is still counted, without the dwell times of its steps
+                LOG.warn("Failed to read the history of {}", start.getInstanceURI(), e);
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    /**
+     * Number of started instances that are neither completed nor aborted
+     */
+    private static final class Pending {
+        private int count;
+
+        synchronized void add() {
+            count++;
+        }
+
+        synchronized void remove() {
+            count--;
+            notifyAll();
+        }
+
+        /**
+         * @return the number of instances still pending after {@code timeout} ms
+         */
+        synchronized int await(long timeout) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while (count > 0 && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return count;
+        }
+    }
+}
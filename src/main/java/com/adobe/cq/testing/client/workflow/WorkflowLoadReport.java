@@ -0,0 +1,303 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.workflow;
+
+import com.adobe.cq.testing.client.metrics.LatencyHistogram;
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Throughput and latencies of the workflow instances run by a {@link WorkflowLoadHarness}, in milliseconds:</p>
+ * <ul>
+ *     <li>the duration of the start requests</li>
+ *     <li>the completion latency of each instance, from the start request to the first check seeing it completed,
+ *     so it is accurate to the poll delay of the harness</li>
+ *     <li>the dwell time of each step, from the start to the end date of its history items. These dates are
+ *     returned by the server with a precision of one second.</li>
+ * </ul>
+ * <p>The assertion helpers throw an {@link AssertionError} so they can be used as the checks of a test.</p>
+ */
+public class WorkflowLoadReport {
+
+    private static final String[] PERCENTILES = {"p50", "p95", "p99"};
+    private static final double[] PERCENTILE_VALUES = {50, 95, 99};
+
+    private final String modelId;
+    private final LatencyHistogram startLatency = new LatencyHistogram();
+    private final LatencyHistogram completionLatency = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> dwellTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger failedStarts = new AtomicInteger();
+    private final AtomicInteger aborted = new AtomicInteger();
+    private final AtomicLong firstSubmitted = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastCompleted = new AtomicLong(Long.MIN_VALUE);
+    private volatile int timedOut;
+
+    public WorkflowLoadReport(String modelId) {
+        this.modelId = modelId;
+    }
+
+    /**
+     * Records the start request of an instance
+     *
+     * @param start the started instance
+     */
+    public void recordStart(WorkflowStart start) {
+        submitted.incrementAndGet();
+        firstSubmitted.accumulateAndGet(start.getSubmitted(), Math::min);
+        if (start.isStarted()) {
+            startLatency.record(start.getLatency());
+        } else {
+            failedStarts.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records an instance seen completed
+     *
+     * @param start the start of the instance
+     * @param completed the time at which the instance was seen completed, as returned by
+     *            {@link System#currentTimeMillis()}
+     * @param history the history of the instance
+     */
+    public void recordCompletion(WorkflowStart start, long completed, List<HistoryItem> history) {
+        completionLatency.record(Math.max(0, completed - start.getSubmitted()));
+        lastCompleted.accumulateAndGet(completed, Math::max);
+        for (HistoryItem item : history) {
+            Date startDate = item.getStartDate();
+            Date endDate = item.getEndDate();
+            if (item.getProcess() == null || startDate == null || endDate == null) {
+                continue;
+            }
+            dwellTimes.computeIfAbsent(item.getProcess(), p -> new LatencyHistogram())
+                    .record(Math.max(0, endDate.getTime() - startDate.getTime()));
+        }
+    }
+
+    /**
+     * Records an instance seen aborted
+     */
+    public void recordAborted() {
+        aborted.incrementAndGet();
+    }
+
+    /**
+     * @param timedOut the number of started instances that were neither completed nor aborted in time
+     */
+    public void setTimedOut(int timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    /**
+     * @return the number of start requests sent
+     */
+    public int getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * @return the number of start requests that failed
+     */
+    public int getFailedStarts() {
+        return failedStarts.get();
+    }
+
+    /**
+     * @return the number of instances seen completed
+     */
+    public long getCompleted() {
+        return completionLatency.getCount();
+    }
+
+    /**
+     * @return the number of instances seen aborted
+     */
+    public int getAborted() {
+        return aborted.get();
+    }
+
+    /**
+     * @return the number of started instances that were neither completed nor aborted in time
+     */
+    public int getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return the duration of the start requests, in milliseconds
+     */
+    public LatencyHistogram getStartLatency() {
+        return startLatency;
+    }
+
+    /**
+     * @return the time from the start request to the completion of each instance, in milliseconds
+     */
+    public LatencyHistogram getCompletionLatency() {
+        return completionLatency;
+    }
+
+    /**
+     * @return the dwell times by step title, in milliseconds, in the order the steps were first seen
+     */
+    public Map<String, LatencyHistogram> getDwellTimes() {
+        synchronized (dwellTimes) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(dwellTimes));
+        }
+    }
+
+    /**
+     * @return the time from the first start request to the last completion, in milliseconds, or 0 if no instance
+     *         was completed
+     */
+    public long getDuration() {
+        long last = lastCompleted.get();
+        long first = firstSubmitted.get();
+        return last >= first ? last - first : 0;
+    }
+
+    /**
+     * @return the number of instances completed per second over {@link #getDuration()}
+     */
+    public double getThroughput() {
+        long duration = getDuration();
+        return duration > 0 ? getCompleted() * 1000.0 / duration : 0;
+    }
+
+    /**
+     * @throws AssertionError if some instances failed to start, were aborted or did not complete in time
+     */
+    public void assertAllCompleted() {
+        if (getCompleted() != getSubmitted()) {
+            throw new AssertionError("Only " + getCompleted() + " of " + getSubmitted() + " instances of " + modelId
+                    + " completed: " + getFailedStarts() + " failed to start, " + getAborted() + " aborted, "
+                    + getTimedOut() + " timed out");
+        }
+    }
+
+    /**
+     * @param percentile the percentile to check, e.g. 95
+     * @param maxMillis the max completion latency at that percentile
+     * @throws AssertionError if the completion latency at {@code percentile} is above {@code maxMillis}
+     */
+    public void assertCompletionPercentileBelow(double percentile, long maxMillis) {
+        assertPercentileBelow("completion latency", completionLatency, percentile, maxMillis);
+    }
+
+    /**
+     * @param step the title of the step
+     * @param percentile the percentile to check, e.g. 95
+     * @param maxMillis the max dwell time at that percentile
+     * @throws AssertionError if the step was never completed or its dwell time at {@code percentile} is above
+     *             {@code maxMillis}
+     */
+    public void assertDwellTimePercentileBelow(String step, double percentile, long maxMillis) {
+        LatencyHistogram dwellTime = dwellTimes.get(step);
+        if (dwellTime == null) {
+            throw new AssertionError("No completed step " + step + " in the history of " + modelId
+                    + ", found " + getDwellTimes().keySet());
+        }
+        assertPercentileBelow("dwell time of " + step, dwellTime, percentile, maxMillis);
+    }
+
+    /**
+     * @param minPerSecond the min number of instances completed per second
+     * @throws AssertionError if the throughput is below {@code minPerSecond}
+     */
+    public void assertThroughputAbove(double minPerSecond) {
+        if (getThroughput() < minPerSecond) {
+            throw new AssertionError(String.format("Throughput of %s is %.2f instances/s, expected at least %.2f",
+                    modelId, getThroughput(), minPerSecond));
+        }
+    }
+
+    private void assertPercentileBelow(String name, LatencyHistogram histogram, double percentile, long maxMillis) {
+        long value = histogram.getValueAtPercentile(percentile);
+        if (histogram.getCount() == 0 || value > maxMillis) {
+            throw new AssertionError("p" + percentile + " " + name + " of " + modelId + " is " + value
+                    + "ms over " + histogram.getCount() + " values, expected at most " + maxMillis + "ms");
+        }
+    }
+
+    /**
+     * @return the report as JSON, with latencies in milliseconds
+     */
+    public ObjectNode toJson() {
+        ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+        root.put("model", modelId);
+        root.put("submitted", getSubmitted());
+        root.put("failedStarts", getFailedStarts());
+        root.put("completed", getCompleted());
+        root.put("aborted", getAborted());
+        root.put("timedOut", getTimedOut());
+        root.put("duration", getDuration());
+        root.put("throughput", Math.round(getThroughput() * 100) / 100.0);
+        putHistogram(root.putObject("startLatency"), startLatency);
+        putHistogram(root.putObject("completionLatency"), completionLatency);
+        ObjectNode steps = root.putObject("dwellTimes");
+        for (Map.Entry<String, LatencyHistogram> e : getDwellTimes().entrySet()) {
+            putHistogram(steps.putObject(e.getKey()), e.getValue());
+        }
+        return root;
+    }
+
+    /**
+     * Writes {@link #toJson()} to a file, creating its directory if needed
+     *
+     * @param file the report file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(dir.toPath());
+        try (Writer w = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonStreamUtils.getMapper().writerWithDefaultPrettyPrinter().writeValue(w, toJson());
+        }
+    }
+
+    private static void putHistogram(ObjectNode node, LatencyHistogram histogram) {
+        node.put("count", histogram.getCount());
+        node.put("min", histogram.getMin());
+        node.put("mean", Math.round(histogram.getMean() * 100) / 100.0);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            node.put(PERCENTILES[i], histogram.getValueAtPercentile(PERCENTILE_VALUES[i]));
+        }
+        node.put("max", histogram.getMax());
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client.workflow;
+
+import com.adobe.cq.testing.client.WorkflowClient;
+
+/**
+ * Handle of a workflow instance started by
+ * {@link WorkflowClient#startWorkflows(String, java.util.stream.Stream, double, int)}
+ */
+public class WorkflowStart {
+
+    private final String payload;
+    private final String instanceURI;
+    private final long submitted;
+    private final long latency;
+    private final Exception error;
+
+    public WorkflowStart(String payload, String instanceURI, long submitted, long latency, Exception error) {
+        this.payload = payload;
+        this.instanceURI = instanceURI;
+        this.submitted = submitted;
+        this.latency = latency;
+        this.error = error;
+    }
+
+    /**
+     * @return the payload of the instance
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return the path of the started instance, or null if it could not be started
+     */
+    public String getInstanceURI() {
+        return instanceURI;
+    }
+
+    /**
+     * @return the time at which the start request was sent, in milliseconds as returned by
+     *         {@link System#currentTimeMillis()}
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return the duration of the start request, in milliseconds
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the failure of the start request, or null if the instance was started
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return true if the instance was started
+     */
+    public boolean isStarted() {
+        return error == null && instanceURI != null;
+    }
+
+    @Override
+    public String toString() {
+        return isStarted() ? instanceURI + " (" + payload + ")" : payload + " not started: " + error;
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.client.PackageManagerClient;
+import com.adobe.cq.testing.client.SecurityClient;
+import com.adobe.cq.testing.client.security.AbstractAuthorizable;
+import com.adobe.cq.testing.client.security.Authorizable;
+import com.adobe.cq.testing.client.security.Group;
+import com.adobe.cq.testing.client.security.User;
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.http.HttpStatus;
+import org.apache.sling.testing.clients.AbstractSlingClient;
+import org.junit.rules.ExternalResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Deletes the content created by the tests in the background, so that the teardown of a test does not wait for
+ * it. The pages, authorizables and packages enqueued for the same client are deleted in batches: one
+ * {@code deletePage} command for many pages, one {@link SecurityClient#deleteAuthorizables} call for many
+ * users or groups. A failed deletion is retried {@value #DEFAULT_ATTEMPTS} times before being reported by
+ * {@link #flush(long)}.</p>
+ *
+ * <p>When the {@value #ENABLED_PROP} system property is set, the {@link Page}, {@link EmptyPage},
+ * {@link TemporaryUser} and {@link TemporaryContentAuthorGroup} rules enqueue their content to the default queue
+ * instead of deleting it inline. Add {@link #barrier()} as a class rule of the suite to wait for all the deletions
+ * at its end and fail it if some did not succeed; the default queue is also flushed when the JVM exits.</p>
+ *
+ * <p>Each queue deletes its items on its own background threads, stopped by {@link #close()}.</p>
+ */
+public class CleanupQueue implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CleanupQueue.class);
+
+    /**
+     * System property making the rules delete their content through the default queue
+     */
+    public static final String ENABLED_PROP = "cq.testing.cleanup.async";
+
+    /**
+     * System property with the max number of items deleted by a single batch
+     */
+    public static final String BATCH_PROP = "cq.testing.cleanup.batch";
+
+    public static final int DEFAULT_BATCH = 20;
+
+    public static final int DEFAULT_ATTEMPTS = 3;
+
+    private static final long INTERVAL = 200;
+
+    private static CleanupQueue defaultQueue;
+
+    private final ScheduledExecutorService scheduler = ThreadUtils.newScheduledExecutor("cleanup-queue", 2, false);
+    private final Map<String, Batcher<?>> batchers = new ConcurrentHashMap<>();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    private final int batch;
+    private final int attempts;
+    private int pending;
+
+    /**
+     * @param batch the max number of items deleted by a single batch
+     * @param attempts the number of times a deletion is tried before being reported as failed
+     */
+    public CleanupQueue(int batch, int attempts) {
+        this.batch = Math.max(1, batch);
+        this.attempts = Math.max(1, attempts);
+        scheduler.scheduleWithFixedDelay(this::process, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the queue shared by the whole JVM, created on first use with {@value #BATCH_PROP}. It is flushed when
+     *         the JVM exits and must not be closed.
+     */
+    public static synchronized CleanupQueue getDefault() {
+        if (defaultQueue == null) {
+            defaultQueue = new CleanupQueue(Integer.getInteger(BATCH_PROP, DEFAULT_BATCH), DEFAULT_ATTEMPTS);
+            CleanupQueue queue = defaultQueue;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    queue.flush(TimeUnit.MINUTES.toMillis(1));
+                } catch (Exception e) {
+                    LOG.warn("Could not clean up all the test content", e);
+                }
+            }, "cleanup-queue-shutdown"));
+        }
+        return defaultQueue;
+    }
+
+    /**
+     * @return {@code true} if the {@value #ENABLED_PROP} system property is set
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROP);
+    }
+
+    /**
+     * @return a rule flushing the default queue after the suite or class, and failing it if some content could not
+     *         be deleted
+     */
+    public static ExternalResource barrier() {
+        return new ExternalResource() {
+            @Override
+            protected void after() {
+                List<String> failed;
+                try {
+                    failed = getDefault().flush(TimeUnit.MINUTES.toMillis(5));
+                } catch (TimeoutException e) {
+                    throw new AssertionError(e.getMessage(), e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AssertionError("Interrupted while cleaning up the test content", e);
+                }
+                if (!failed.isEmpty()) {
+                    throw new AssertionError("Could not clean up " + failed);
+                }
+            }
+        };
+    }
+
+    /**
+     * Queues a page for deletion. The pages of the same client are deleted by a single command.
+     *
+     * @param client the client deleting the page
+     * @param path the path of the page
+     */
+    public void deletePage(CQClient client, String path) {
+        enqueue(key("pages", client), "page " + path, path, paths -> client.deletePage(
+                paths.toArray(new String[0]), true, false, HttpStatus.SC_OK),
+                page -> {
+                    if (client.exists(page)) {
+                        client.deletePage(new String[]{page}, true, false, HttpStatus.SC_OK);
+                    }
+                });
+    }
+
+    /**
+     * Queues a user for deletion. The users of the same client are deleted together.
+     *
+     * @param client the client deleting the user
+     * @param userId the id of the user
+     */
+    public void deleteUser(SecurityClient client, String userId) {
+        deleteAuthorizables(client, "user", userId, id -> new User(client, id));
+    }
+
+    /**
+     * Queues a group for deletion. The groups of the same client are deleted together.
+     *
+     * @param client the client deleting the group
+     * @param groupId the id of the group
+     */
+    public void deleteGroup(SecurityClient client, String groupId) {
+        deleteAuthorizables(client, "group", groupId, id -> new Group(client, id));
+    }
+
+    private void deleteAuthorizables(SecurityClient client, String type, String authorizableId,
+                                     AuthorizableLoader loader) {
+        BatchDeleter<String> deleter = ids -> {
+            // loading an authorizable needs a request, done in the background as well
+            List<Authorizable> existing = new ArrayList<>();
+            for (String id : ids) {
+                if (AbstractAuthorizable.exists(client, id)) {
+                    existing.add(loader.load(id));
+                }
+            }
+            client.deleteAuthorizables(existing.toArray(new Authorizable[0]));
+        };
+        enqueue(key(type + "s", client), type + " " + authorizableId, authorizableId, deleter,
+                id -> deleter.delete(Collections.singletonList(id)));
+    }
+
+    /**
+     * Queues a package to be uninstalled, then deleted. The same package must not be uploaded again before it is
+     * deleted, see {@link #flush(long)}: the queued deletion would remove the new upload.
+     *
+     * @param uploadedPackage the package
+     */
+    public void deletePackage(PackageManagerClient.Package uploadedPackage) {
+        Deleter<PackageManagerClient.Package> deleter = item -> {
+            item.unInstall();
+            item.delete();
+        };
+        enqueue("packages", "package " + uploadedPackage.getPath(), uploadedPackage, items -> {
+            for (PackageManagerClient.Package item : items) {
+                deleter.delete(item);
+            }
+        }, deleter);
+    }
+
+    /**
+     * @return the number of items not deleted yet, excluding the failed ones
+     */
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * Waits until all the queued items are deleted or failed
+     *
+     * @param timeout max time to wait, in milliseconds
+     * @return the description of the items that could not be deleted since the last flush
+     * @throws TimeoutException if some items are still pending after {@code timeout}
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public List<String> flush(long timeout) throws TimeoutException, InterruptedException {
+        scheduler.execute(this::process);
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (this) {
+            while (pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new TimeoutException(pending + " items still to clean up after " + timeout + "ms");
+                }
+                wait(remaining);
+            }
+        }
+        synchronized (failures) {
+            List<String> failed = new ArrayList<>(failures);
+            failures.clear();
+            return failed;
+        }
+    }
+
+    /**
+     * Stops the background deletions. The items still queued are not deleted, call {@link #flush(long)} first to
+     * wait for them.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+
+    private <T> void enqueue(String key, String description, T item, BatchDeleter<T> batchDeleter,
+                             Deleter<T> deleter) {
+        synchronized (this) {
+            pending++;
+        }
+        @SuppressWarnings("unchecked")
+        Batcher<T> batcher = (Batcher<T>) batchers.computeIfAbsent(key, k -> new Batcher<>(batchDeleter, deleter));
+        batcher.queue.add(new Entry<>(description, item));
+    }
+
+    private void process() {
+        for (Batcher<?> batcher : batchers.values()) {
+            try {
+                batcher.process();
+            } catch (RuntimeException e) {
+                LOG.warn("Unexpected failure while cleaning up the test content", e);
+            }
+        }
+    }
+
+    private synchronized void done(int count) {
+        pending -= count;
+        notifyAll();
+    }
+
+    private static String key(String type, AbstractSlingClient client) {
+        return type + " " + client.getUser() + "@" + client.getUrl();
+    }
+
+    /**
+     * Deletes many items at once
+     */
+    @FunctionalInterface
+    private interface BatchDeleter<T> {
+        void delete(List<T> items) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface AuthorizableLoader {
+        Authorizable load(String id) throws Exception;
+    }
+
+    /**
+     * Deletes a single item, if it still exists
+     */
+    @FunctionalInterface
+    private interface Deleter<T> {
+        void delete(T item) throws Exception;
+    }
+
+    private static final class Entry<T> {
+        private final String description;
+        private final T item;
+        private int attempts;
+
+        Entry(String description, T item) {
+            this.description = description;
+            this.item = item;
+        }
+    }
+
+    private final class Batcher<T> {
+
+        private final Queue<Entry<T>> queue = new ConcurrentLinkedQueue<>();
+        private final BatchDeleter<T> batchDeleter;
+        private final Deleter<T> deleter;
+
+        Batcher(BatchDeleter<T> batchDeleter, Deleter<T> deleter) {
+            this.batchDeleter = batchDeleter;
+            this.deleter = deleter;
+        }
+
+        synchronized void process() {
+            List<Entry<T>> entries = new ArrayList<>();
+            Entry<T> entry;
+            while (entries.size() < batch && (entry = queue.poll()) != null) {
+                entries.add(entry);
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+
+            List<T> items = new ArrayList<>();
+            entries.forEach(e -> items.add(e.item));
+            try {
+                batchDeleter.delete(items);
+                LOG.info("Deleted {} items: {}", entries.size(), describe(entries));
+                done(entries.size());
+                return;
+            } catch (Exception e) {
+                LOG.debug("Could not delete {} at once, deleting them one by one", describe(entries), e);
+            }
+
+            // the whole batch fails if a single item is missing or locked
+            int finished = 0;
+            for (Entry<T> failed : entries) {
+                try {
+                    deleter.delete(failed.item);
+                    LOG.info("Deleted {}", failed.description);
+                    finished++;
+                } catch (Exception e) {
+                    if (++failed.attempts >= attempts) {
+                        LOG.warn("Could not delete {} after {} attempts", failed.description, attempts, e);
+                        failures.add(failed.description);
+                        finished++;
+                    } else {
+                        queue.add(failed);
+                    }
+                }
+            }
+            done(finished);
+        }
+
+        private String describe(List<Entry<T>> entries) {
+            List<String> descriptions = new ArrayList<>();
+            entries.forEach(e -> descriptions.add(e.description));
+            return descriptions.toString();
+        }
+    }
+}
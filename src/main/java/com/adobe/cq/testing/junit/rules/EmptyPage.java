@@ -39,19 +39,21 @@ public class EmptyPage extends ExternalResource {
 
     private final Supplier<SlingClient> clientSupplier;
 
-    private ThreadLocal<String> parentPath = new ThreadLocal<String>() {
+    private ThreadLocal<String> parentPath = new InheritableThreadLocal<String>() {
         @Override
         protected String initialValue() {
             return initialParentPath();
         }
     };
-    private ThreadLocal<String> name = new ThreadLocal<String>() {
+    private ThreadLocal<String> name = new InheritableThreadLocal<String>() {
         @Override
         protected String initialValue() {
             return initialName();
         }
     };
 
+    private PagePool pagePool;
+
     /**
      *
      * @param clientSupplier {code}Supplier{code} that returns an http client pointing to a remote test instance
@@ -63,13 +65,28 @@ public class EmptyPage extends ExternalResource {
 
     @Override
     protected void before() throws ClientException, InterruptedException {
+        if (usePagePool()) {
+            pagePool = getPagePool();
+            name.set(pagePool.lease());
+            logger.info("Leased empty page at {}", getPath());
+            return;
+        }
         SlingHttpResponse response = getClient().createPageWithRetry(getName(), getTitle(), getParentPath(), "", 2000, 500, HttpStatus.SC_OK);
         logger.info("Created empty page '{}' at {}", getTitle(), response.getSlingLocation());
     }
 
     @Override
     protected void after() {
+        if (pagePool != null) {
+            pagePool.release(getPath());
+            logger.info("Released empty page at {}", getPath());
+            return;
+        }
         try {
+            if (CleanupQueue.isEnabled()) {
+                CleanupQueue.getDefault().deletePage(getClient(), getPath());
+                return;
+            }
             getClient().deletePageWithRetry(getPath(), true, false, 2000, 500);
             logger.info("Deleted empty page at {}", getPath());
 
@@ -100,6 +117,27 @@ public class EmptyPage extends ExternalResource {
     }
 
 
+    /**
+     * Whether the page is leased from a {@link PagePool} created in advance, and deleted in the background.
+     * This implementation returns {@link PagePool#isEnabled()}.
+     *
+     * @return {@code true} to use the pool
+     */
+    protected boolean usePagePool() {
+        return PagePool.isEnabled();
+    }
+
+    /**
+     * The pool of pages used when {@link #usePagePool()} is {@code true}. This implementation returns the pool shared
+     * by the rules with the same client, parent path and title.
+     *
+     * @return the pool to lease the page from
+     * @throws ClientException if the client cannot be retrieved
+     */
+    protected PagePool getPagePool() throws ClientException {
+        return PagePool.get(getClient(), getParentPath(), "", getTitle());
+    }
+
     /**
      * The client to use to create and delete this page. The default implementation creates a {@link CQClient}.
      * The default implementation also uses the default admin user.
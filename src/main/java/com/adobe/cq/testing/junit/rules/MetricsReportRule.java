@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.metrics.MetricsRecorder;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <p>Class rule writing the per-endpoint request metrics collected by a {@link MetricsRecorder} once the test
+ * class finished, as {@code <name>.json} and {@code <name>.csv} in the {@value #REPORT_DIR_PROP} directory
+ * ({@code target/endpoint-metrics} by default).</p>
+ *
+ * <p>With the default recorder the reports are cumulative, so the files written after the last test class cover
+ * the whole run. Metrics are only collected by clients built with metrics enabled, see
+ * {@code CQClient.InternalBuilder#enableMetrics()} and {@value MetricsRecorder#ENABLED_PROP}.</p>
+ *
+ * <pre>
+ * &#64;ClassRule
+ * public static final TestRule rules = RuleChain.outerRule(new MetricsReportRule()).around(new CQClassRule());
+ * </pre>
+ */
+public class MetricsReportRule implements TestRule {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsReportRule.class);
+
+    /**
+     * System property setting the directory the reports are written to
+     */
+    public static final String REPORT_DIR_PROP = "cq.testing.metrics.dir";
+
+    /**
+     * Default name of the report files
+     */
+    public static final String DEFAULT_NAME = "endpoint-metrics";
+
+    private final MetricsRecorder recorder;
+
+    private final String name;
+
+    public MetricsReportRule() {
+        this(MetricsRecorder.getDefault(), DEFAULT_NAME);
+    }
+
+    /**
+     * @param recorder the recorder to report
+     * @param name     the name of the report files, without extension
+     */
+    public MetricsReportRule(MetricsRecorder recorder, String name) {
+        this.recorder = recorder;
+        this.name = name;
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                try {
+                    base.evaluate();
+                } finally {
+                    writeReports();
+                }
+            }
+        };
+    }
+
+    protected void writeReports() {
+        File dir = new File(System.getProperty(REPORT_DIR_PROP, "target/endpoint-metrics"));
+        try {
+            recorder.writeReports(dir, name);
+            LOG.info("Endpoint metrics written to {}", new File(dir, name + ".json").getAbsolutePath());
+        } catch (IOException e) {
+            LOG.warn("Could not write endpoint metrics to {}", dir, e);
+        }
+    }
+}
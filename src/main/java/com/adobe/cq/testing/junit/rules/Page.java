@@ -17,23 +17,16 @@
 package com.adobe.cq.testing.junit.rules;
 
 import com.adobe.cq.testing.client.CQClient;
-import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpStatus;
 import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingHttpResponse;
-import org.apache.sling.testing.clients.util.ResourceUtil;
 import org.apache.sling.testing.junit.rules.instance.Instance;
 import org.junit.rules.ExternalResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
-import static org.apache.http.HttpStatus.SC_CREATED;
-
 /**
  * Create a new page. This rule can be sub-classed to specify the parent page and the template of the newly created
  * page. Subclasses can also specify which client to use or which server to target when a new page is created.
@@ -43,43 +36,47 @@ public class Page extends ExternalResource {
 
     private Logger logger = LoggerFactory.getLogger(Page.class);
 
-    // singleton value; true if the target test instances have been prepared once since the class was loaded
-    // this is used to run prepare() once per classloader / "suite" execution
-    private static boolean prepared = false;
-    private static final String SITE_ROOT_PATH = "/content/test-site";
-    private static final String TEMPLATE_ROOT_PATH = "/conf/test-site";
+    private static final String SITE_ROOT_PATH = TestSiteProvisioning.SITE_ROOT_PATH;
     private static final String TEMPLATE_PATH = "/conf/test-site/settings/wcm/templates/content-page";
 
 
     private final Instance quickstartRule;
 
-    private ThreadLocal<String> parentPath = new ThreadLocal<String>() {
+    private ThreadLocal<String> parentPath = new InheritableThreadLocal<String>() {
         @Override
         protected String initialValue() {
             return initialParentPath();
         }
     };
-    private ThreadLocal<String> name = new ThreadLocal<String>() {
+    private ThreadLocal<String> name = new InheritableThreadLocal<String>() {
         @Override
         protected String initialValue() {
             return initialName();
         }
     };
-    private ThreadLocal<String> templatePath = new ThreadLocal<String>() {
+    private ThreadLocal<String> templatePath = new InheritableThreadLocal<String>() {
         @Override
         protected String initialValue() {
             return initialTemplatePath();
         }
     };
 
+    private PagePool pagePool;
+
     public Page(Instance quickstartRule) {
         super();
         this.quickstartRule = quickstartRule;
     }
 
     @Override
-    protected void before() throws ClientException {
+    protected void before() throws ClientException, InterruptedException {
         prepare();
+        if (usePagePool()) {
+            pagePool = getPagePool();
+            name.set(pagePool.lease());
+            logger.info("Leased page at {}", getPath());
+            return;
+        }
         SlingHttpResponse response = getClient().createPage(getName(), getTitle(), getParentPath(), getTemplatePath(), HttpStatus.SC_OK);
         logger.info("Created page at {}", response.getSlingLocation());
 
@@ -87,7 +84,16 @@ public class Page extends ExternalResource {
 
     @Override
     protected void after() {
+        if (pagePool != null) {
+            pagePool.release(getPath());
+            logger.info("Released page at {}", getPath());
+            return;
+        }
         try {
+            if (CleanupQueue.isEnabled()) {
+                CleanupQueue.getDefault().deletePage(getClient(), getPath());
+                return;
+            }
             getClient().deletePage(new String[]{getPath()}, true, false);
             logger.info("Deleted page at {}", getPath());
         } catch (Exception e) {
@@ -138,41 +144,37 @@ public class Page extends ExternalResource {
         return quickstartRule.getAdminClient(CQClient.class);
     }
 
+    /**
+     * Whether the page is leased from a {@link PagePool} created in advance, and deleted in the background.
+     * This implementation returns {@link PagePool#isEnabled()}.
+     *
+     * @return {@code true} to use the pool
+     */
+    protected boolean usePagePool() {
+        return PagePool.isEnabled();
+    }
+
+    /**
+     * The pool of pages used when {@link #usePagePool()} is {@code true}. This implementation returns the pool shared
+     * by the rules with the same client, parent path, template path and title.
+     *
+     * @return the pool to lease the page from
+     * @throws ClientException if the client cannot be retrieved
+     */
+    protected PagePool getPagePool() throws ClientException {
+        return PagePool.get(getClient(), getParentPath(), getTemplatePath(), getTitle());
+    }
+
     /**
      * Method to be called before creating the page.
      * You can override this to perform custom operations before creating the page.
-     * This implementation creates, if needed, the test template and site.
+     * This implementation creates, if needed, the test template and site, once per instance: the concurrent
+     * rules targeting the same instance wait for the first one.
      *
      * @throws ClientException if the content cannot be created
      */
     protected void prepare() throws ClientException {
-        if (Page.prepared) return;
-
-        if (!getClient().exists(TEMPLATE_ROOT_PATH)) {
-            try {
-                InputStream templateStream =
-                        ResourceUtil.getResourceAsStream("/com/adobe/cq/testing/junit/rules/template.json");
-                String template = IOUtils.toString(templateStream, StandardCharsets.UTF_8);
-                getClient().importContent(TEMPLATE_ROOT_PATH, "json", template, SC_CREATED);
-                logger.info("Created test template in {}", TEMPLATE_ROOT_PATH);
-            } catch (IOException e) {
-                throw new ClientException("Failed to create test template.", e);
-            }
-        }
-
-        if (!getClient().exists(SITE_ROOT_PATH)) {
-            try {
-                InputStream siteStream =
-                        ResourceUtil.getResourceAsStream("/com/adobe/cq/testing/junit/rules/site.json");
-                String site = IOUtils.toString(siteStream, StandardCharsets.UTF_8);
-                getClient().importContent(SITE_ROOT_PATH, "json", site, SC_CREATED);
-                logger.info("Created test site {}", SITE_ROOT_PATH);
-            } catch (IOException e) {
-                throw new ClientException("Failed to create test site.", e);
-            }
-        }
-        // set static prepared value
-        Page.prepared = true;
+        TestSiteProvisioning.provision(getClient());
     }
 
     /**
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.http.HttpStatus;
+import org.apache.sling.testing.clients.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Pool of pages created in advance for the {@link Page} and {@link EmptyPage} rules. A background producer keeps
+ * up to {@value #SIZE_PROP} fresh pages under a parent; {@link #lease()} hands one out without any request, and
+ * {@link #release(String)} queues the page for deletion in the default {@link CleanupQueue}, which deletes the
+ * pages in batches. A lease falls back to creating the page inline when the pool is empty.</p>
+ *
+ * <p>The rules use the pool when the {@value #ENABLED_PROP} system property is set, or when their
+ * {@code usePagePool()} method is overridden to return {@code true}. The pooled pages get a random
+ * {@code testpage_} name, whatever {@code initialName()} returns. The pages left in the pools are deleted by
+ * {@link #closeAll()}, called when the JVM exits.</p>
+ */
+public class PagePool implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PagePool.class);
+
+    /**
+     * System property enabling the pools for all the {@link Page} and {@link EmptyPage} rules
+     */
+    public static final String ENABLED_PROP = "cq.testing.pagePool";
+
+    /**
+     * System property with the number of pages each pool keeps ready
+     */
+    public static final String SIZE_PROP = "cq.testing.pagePool.size";
+
+    public static final int DEFAULT_SIZE = 10;
+
+    private static final Map<String, PagePool> POOLS = new ConcurrentHashMap<>();
+
+    private static final ExecutorService EXECUTOR = ThreadUtils.newExecutor("page-pool", 2, false, true);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(PagePool::closeAll, "page-pool-shutdown"));
+    }
+
+    private final CQClient client;
+    private final String parentPath;
+    private final String templatePath;
+    private final String title;
+    private final int size;
+    // created with the pool, the default queue can not be created once the JVM is exiting
+    private final CleanupQueue cleanup;
+
+    private final BlockingQueue<String> ready = new LinkedBlockingQueue<>();
+    private final AtomicInteger creating = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param client the client creating and deleting the pages
+     * @param parentPath the parent of the pages
+     * @param templatePath the template of the pages, empty for pages without template
+     * @param title the title of the pages
+     * @param size the number of pages kept ready
+     */
+    public PagePool(CQClient client, String parentPath, String templatePath, String title, int size) {
+        this.client = client;
+        this.parentPath = parentPath;
+        this.templatePath = templatePath;
+        this.title = title;
+        this.size = size;
+        this.cleanup = CleanupQueue.getDefault();
+        refill();
+    }
+
+    /**
+     * @return {@code true} if the {@value #ENABLED_PROP} system property is set
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROP);
+    }
+
+    /**
+     * Returns the pool of the pages of a parent and template, created on first use with {@value #SIZE_PROP}. The pool keeps using the client it was created with.
+     *
+     * @param client the client creating and deleting the pages
+     * @param parentPath the parent of the pages
+     * @param templatePath the template of the pages, empty for pages without template
+     * @param title the title of the pages
+     * @return the shared pool
+     */
+    public static PagePool get(CQClient client, String parentPath, String templatePath, String title) {
+        String key = client.getUser() + "@" + client.getUrl() + " " + parentPath + " " + templatePath + " " + title;
+        return POOLS.computeIfAbsent(key, k -> new PagePool(client, parentPath, templatePath, title,
+                Integer.getInteger(SIZE_PROP, DEFAULT_SIZE)));
+    }
+
+    /**
+     * Closes all the shared pools
+     */
+    public static void closeAll() {
+        for (PagePool pool : POOLS.values()) {
+            pool.close();
+        }
+        POOLS.clear();
+    }
+
+    /**
+     * Takes a page of the pool, or creates one if the pool is empty
+     *
+     * @return the name of the page
+     * @throws ClientException if the pool is empty and the page could not be created
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public String lease() throws ClientException, InterruptedException {
+        if (closed.get()) {
+            throw new IllegalStateException("The page pool of " + parentPath + " is closed");
+        }
+        String name = ready.poll();
+        refill();
+        if (name == null) {
+            LOG.debug("The page pool of {} is empty, creating the page inline", parentPath);
+            name = create();
+        }
+        return name;
+    }
+
+    /**
+     * Queues a page for deletion, deleted in the background
+     *
+     * @param path the path of the page
+     */
+    public void release(String path) {
+        cleanup.deletePage(client, path);
+    }
+
+    /**
+     * @return the number of pages ready to be leased
+     */
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * Deletes the pages waiting in the pool, and waits for the deletion of the released ones
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        // the pages being created are released once created
+        long deadline = System.currentTimeMillis() + 10000;
+        while (creating.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<String> unused = new ArrayList<>();
+        ready.drainTo(unused);
+        for (String name : unused) {
+            release(parentPath + "/" + name);
+        }
+        try {
+            // the JVM may be exiting, do not rely on the shutdown hook of the queue
+            cleanup.flush(TimeUnit.MINUTES.toMillis(1));
+        } catch (TimeoutException e) {
+            LOG.warn("Could not delete all the pages of the pool of {}", parentPath, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void refill() {
+        while (!closed.get()) {
+            int pending = creating.get();
+            if (ready.size() + pending >= size) {
+                return;
+            }
+            if (creating.compareAndSet(pending, pending + 1)) {
+                EXECUTOR.execute(() -> {
+                    try {
+                        String name = create();
+                        if (closed.get()) {
+                            release(parentPath + "/" + name);
+                        } else {
+                            ready.add(name);
+                        }
+                    } catch (Exception e) {
+                        LOG.warn("Could not create a page for the pool of {}", parentPath, e);
+                    } finally {
+                        creating.decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    private String create() throws ClientException, InterruptedException {
+        String name = "testpage_" + UUID.randomUUID();
+        client.createPageWithRetry(name, title, parentPath, templatePath, 2000, 500, HttpStatus.SC_OK);
+        LOG.debug("Created pooled page {}/{}", parentPath, name);
+        return name;
+    }
+}
@@ -64,7 +64,7 @@ public class TemporaryContentAuthorGroup extends ExternalResource {
         this.creatorSupplier = creatorSupplier;
         this.groupName = createUniqueAuthorizableId("testGroup");
 
-        this.groupClient = new ThreadLocal<>();
+        this.groupClient = new InheritableThreadLocal<>();
     }
 
     /**
@@ -128,6 +128,7 @@ public class TemporaryContentAuthorGroup extends ExternalResource {
     /**
      * Delete the created group.
      * The delete operation is not retried and exceptions are ignored.
+     * The group is deleted in the background if {@link CleanupQueue#isEnabled()}.
      */
     protected void deleteGroup() {
         CQSecurityClient securityClient;
@@ -138,6 +139,10 @@ public class TemporaryContentAuthorGroup extends ExternalResource {
             LOG.warn("Unable to delete group", e);
             return;
         }
+        if (CleanupQueue.isEnabled()) {
+            CleanupQueue.getDefault().deleteGroup(securityClient, groupName);
+            return;
+        }
         try {
             if (Group.exists(securityClient, groupName)) {
                 Group grouptoDelete = new Group(securityClient, groupName);
@@ -68,7 +68,7 @@ public class TemporaryUser extends ExternalResource {
         this.creatorSupplier = creatorSupplier;
         this.groups = groups;
 
-        this.userClient = new ThreadLocal<>();
+        this.userClient = new InheritableThreadLocal<>();
         this.usersToDelete = ThreadLocal.withInitial(ArrayList::new);
     }
 
@@ -117,7 +117,9 @@ public class TemporaryUser extends ExternalResource {
         }
 
         LOG.info("Created user {} at {}", p.user.getId(), p.user.getHomePath());
-        userClient.set(new CQClient(securityClient.getUrl(), p.username, p.password));
+        // share the connections of all the temporary users instead of opening a new pool per test
+        userClient.set(CQClient.Builder.create(securityClient.getUrl(), p.username, p.password)
+                .useSharedConnectionPool().build());
     }
 
     @Override
@@ -151,6 +153,7 @@ public class TemporaryUser extends ExternalResource {
     /**
      * Delete all the created users.
      * The delete operation is not retried and exceptions are ignored.
+     * The users are deleted in the background if {@link CleanupQueue#isEnabled()}.
      */
     protected void deleteUsers() {
         CQSecurityClient securityClient;
@@ -162,6 +165,13 @@ public class TemporaryUser extends ExternalResource {
             return;
         }
 
+        if (CleanupQueue.isEnabled()) {
+            for (String username : usersToDelete.get()) {
+                CleanupQueue.getDefault().deleteUser(securityClient, username);
+            }
+            return;
+        }
+
         for (String username : usersToDelete.get()) {
             try {
                 if (User.exists(securityClient, username)) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.CQClient;
+import org.apache.commons.io.IOUtils;
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.util.ResourceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import static org.apache.http.HttpStatus.SC_CREATED;
+
+/**
+ * Creates the test template and site used by {@link Page} once per instance. The first caller for an instance URL
+ * installs a future and provisions the content; the concurrent callers wait for that future instead of importing
+ * the content again. A failed provisioning is forgotten, so that the next caller tries again.
+ *
+ * The template and the site are each checked with one {@code exists()} request, once per instance instead of
+ * once per test.
+ */
+final class TestSiteProvisioning {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestSiteProvisioning.class);
+
+    static final String SITE_ROOT_PATH = "/content/test-site";
+    static final String TEMPLATE_ROOT_PATH = "/conf/test-site";
+
+    private static final ConcurrentMap<URI, CompletableFuture<Void>> PROVISIONED = new ConcurrentHashMap<>();
+
+    private TestSiteProvisioning() {
+    }
+
+    /**
+     * Creates, if needed, the test template and site on the instance of the client, or waits for another thread
+     * doing it
+     *
+     * @param client the client of the instance
+     * @throws ClientException if the content cannot be created
+     */
+    static void provision(CQClient client) throws ClientException {
+        URI instance = client.getUrl();
+        CompletableFuture<Void> future = PROVISIONED.get(instance);
+        if (future == null) {
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            future = PROVISIONED.putIfAbsent(instance, created);
+            if (future == null) {
+                future = created;
+                try {
+                    importMissing(client);
+                    created.complete(null);
+                } catch (ClientException | RuntimeException e) {
+                    PROVISIONED.remove(instance, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for the test site of " + instance, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientException("Failed to create the test site of " + instance, e.getCause());
+        }
+    }
+
+    /**
+     * Forgets the provisioned instances
+     */
+    static void reset() {
+        PROVISIONED.clear();
+    }
+
+    private static void importMissing(CQClient client) throws ClientException {
+        if (!client.exists(TEMPLATE_ROOT_PATH)) {
+            importJson(client, TEMPLATE_ROOT_PATH, "template.json");
+            LOG.info("Created test template in {}", TEMPLATE_ROOT_PATH);
+        }
+        if (!client.exists(SITE_ROOT_PATH)) {
+            importJson(client, SITE_ROOT_PATH, "site.json");
+            LOG.info("Created test site {}", SITE_ROOT_PATH);
+        }
+    }
+
+    private static void importJson(CQClient client, String path, String resource) throws ClientException {
+        try (InputStream stream = ResourceUtil.getResourceAsStream("/com/adobe/cq/testing/junit/rules/" + resource)) {
+            String content = IOUtils.toString(stream, StandardCharsets.UTF_8);
+            client.importContent(path, "json", content, SC_CREATED);
+        } catch (IOException e) {
+            throw new ClientException("Failed to import " + resource + " in " + path, e);
+        }
+    }
+}
@@ -31,6 +31,9 @@ import java.util.List;
  * scanned before the test method is executed. Errors are reported in the rule and can be accessed in the test using
  * {@link LogFileRule#getErrors()}.
  *
+ * The scan of a log file is incremental: the offset read up to and the error lines found before it are kept for
+ * the next tests, which only read the newly appended bytes. A rotated log file is scanned again from the start.
+ *
  * See the {@link LogFileRuleConfig} for the various configuration options.
  *
  * @see LogFileRuleConfig
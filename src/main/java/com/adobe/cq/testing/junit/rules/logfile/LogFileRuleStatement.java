@@ -17,11 +17,10 @@ package com.adobe.cq.testing.junit.rules.logfile;
 
 import org.junit.runners.model.Statement;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -88,45 +87,20 @@ public class LogFileRuleStatement extends Statement {
 
 
     private void testLogFile(final List<String> errors, final File logFile) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
-            final String endMarker = logFileRule.getEndMarkerForLogFile(logFile.getName());
-            String logLine = reader.readLine();
-            while (logLine != null) {
-                if (endMarker != null && logLine.contains(endMarker)) {
-                    break;
+        final String endMarker = logFileRule.getEndMarkerForLogFile(logFile.getName());
+        // only the bytes appended since the previous test are read
+        List<String> errorLines = LogFileScanner.get(logFile, endMarker,
+                logFileRule.getRuleConfig().errorMarkers()).scan();
+        MultiPatternMatcher knownIssues = new MultiPatternMatcher(logFileRule.getRuleConfig().knownIssues(),
+                Charset.defaultCharset());
+        for (String logLine : errorLines) {
+            if (!knownIssues.matches(logLine)) {
+                errors.add(logFile.getName() + " contains the unexpected line: " + logLine);
+                if (logFileRule.getRuleConfig().stopAtError()) {
+                    return;
                 }
-                if (logLineHasErrors(logLine)) {
-                    errors.add(logFile.getName() + " contains the unexpected line: " + logLine);
-                    if (logFileRule.getRuleConfig().stopAtError()) {
-                        return;
-                    }
-                }
-                logLine = reader.readLine();
-            }
-        }
-    }
-
-
-    private boolean logLineHasErrors(final String line) {
-        return isErrorLine(line) && !isKnownIssue(line);
-    }
-
-    private boolean isErrorLine(final String line) {
-        for (String errorMarker : logFileRule.getRuleConfig().errorMarkers()) {
-            if (line.contains(errorMarker)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean isKnownIssue(final String line) {
-        for (String pattern : logFileRule.getRuleConfig().knownIssues()) {
-            if (line.contains(pattern)) {
-                return true;
             }
         }
-        return false;
     }
 
     private boolean isFileUnderTest(String fileName) {
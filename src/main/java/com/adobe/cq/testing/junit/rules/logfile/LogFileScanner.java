@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules.logfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the lines of a log file containing an error marker, up to the end marker. The log files are only appended
+ * to, so the scanner remembers the offset it read up to and the error lines found before it: the next scan only
+ * reads the bytes appended since. A file replaced by a new one (a different file key, i.e. inode, or a size smaller
+ * than the offset) is scanned again from the start.
+ *
+ * The lines are split on {@code \n}, a trailing {@code \r} being removed, and decoded with the default charset
+ * only when they contain an error marker.
+ */
+final class LogFileScanner {
+
+    private static final int CHUNK = 64 * 1024;
+
+    private static final Map<String, LogFileScanner> SCANNERS = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final Charset charset = Charset.defaultCharset();
+    private final MultiPatternMatcher endMarker;
+    private final MultiPatternMatcher errorMarkers;
+
+    private final List<String> errorLines = new ArrayList<>();
+    private Object fileKey;
+    private long offset;
+    private boolean ended;
+
+    LogFileScanner(File file, String endMarker, String[] errorMarkers) {
+        this.file = file;
+        this.endMarker = endMarker != null ? new MultiPatternMatcher(new String[]{endMarker}, charset) : null;
+        this.errorMarkers = new MultiPatternMatcher(errorMarkers, charset);
+    }
+
+    /**
+     * @return the scanner shared by the rules scanning the same file with the same markers
+     */
+    static LogFileScanner get(File file, String endMarker, String[] errorMarkers) throws IOException {
+        String key = file.getCanonicalPath() + "\n" + endMarker + "\n" + String.join("\n", errorMarkers);
+        return SCANNERS.computeIfAbsent(key, k -> new LogFileScanner(file, endMarker, errorMarkers));
+    }
+
+    /**
+     * Reads the bytes appended since the last scan
+     *
+     * @return the lines containing an error marker, from the start of the file to the end marker
+     * @throws IOException if the file cannot be read
+     */
+    synchronized List<String> scan() throws IOException {
+        Path path = file.toPath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attributes.size() < offset || !Objects.equals(fileKey, attributes.fileKey())) {
+            errorLines.clear();
+            offset = 0;
+            ended = false;
+        }
+        fileKey = attributes.fileKey();
+        if (ended) {
+            return new ArrayList<>(errorLines);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(offset);
+            byte[] buffer = new byte[CHUNK];
+            int length = 0;
+            int read;
+            while ((read = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length))) >= 0) {
+                int searched = length;
+                length += read;
+                int start = 0;
+                for (int i = searched; i < length; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    int end = i > start && buffer[i - 1] == '\r' ? i - 1 : i;
+                    offset += i + 1 - start;
+                    if (scanLine(buffer, start, end, errorLines)) {
+                        ended = true;
+                        return new ArrayList<>(errorLines);
+                    }
+                    start = i + 1;
+                }
+                // keep the incomplete line for the next read
+                System.arraycopy(buffer, start, buffer, 0, length - start);
+                length -= start;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+
+            List<String> lines = new ArrayList<>(errorLines);
+            // the last line may still be written, it is checked but read again by the next scan
+            if (length > 0) {
+                scanLine(buffer, 0, length, lines);
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * @return {@code true} if the line contains the end marker
+     */
+    private boolean scanLine(byte[] buffer, int from, int to, List<String> lines) {
+        if (endMarker != null && endMarker.matches(buffer, from, to)) {
+            return true;
+        }
+        if (errorMarkers.matches(buffer, from, to)) {
+            lines.add(new String(buffer, from, to - from, charset));
+        }
+        return false;
+    }
+
+    synchronized long getOffset() {
+        return offset;
+    }
+}
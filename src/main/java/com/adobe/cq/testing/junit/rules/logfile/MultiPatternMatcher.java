@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules.logfile;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds whether a line contains any of a set of patterns in a single pass over its bytes (Aho-Corasick automaton),
+ * whatever the number of patterns. The patterns are matched on their encoding in the charset of the log file, so
+ * the lines do not need to be decoded to be checked.
+ */
+final class MultiPatternMatcher {
+
+    // transitions[state][byte] of the automaton, state 0 is the root
+    private final int[][] transitions;
+    private final boolean[] accepting;
+    private final Charset charset;
+
+    MultiPatternMatcher(String[] patterns, Charset charset) {
+        this.charset = charset;
+
+        List<int[]> next = new ArrayList<>();
+        List<Boolean> output = new ArrayList<>();
+        next.add(newState());
+        output.add(false);
+        for (String pattern : patterns) {
+            int state = 0;
+            for (byte b : pattern.getBytes(charset)) {
+                int target = next.get(state)[b & 0xff];
+                if (target < 0) {
+                    target = next.size();
+                    next.get(state)[b & 0xff] = target;
+                    next.add(newState());
+                    output.add(false);
+                }
+                state = target;
+            }
+            output.set(state, true);
+        }
+
+        transitions = next.toArray(new int[0][]);
+        accepting = new boolean[transitions.length];
+        for (int i = 0; i < accepting.length; i++) {
+            accepting[i] = output.get(i);
+        }
+
+        // breadth first, the failure state of a state is always computed before it
+        int[] failure = new int[transitions.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int b = 0; b < 256; b++) {
+            if (transitions[0][b] < 0) {
+                transitions[0][b] = 0;
+            } else {
+                queue.add(transitions[0][b]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] |= accepting[failure[state]];
+            for (int b = 0; b < 256; b++) {
+                int target = transitions[state][b];
+                if (target < 0) {
+                    transitions[state][b] = transitions[failure[state]][b];
+                } else {
+                    failure[target] = transitions[failure[state]][b];
+                    queue.add(target);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the bytes from {@code from} (inclusive) to {@code to} (exclusive) contain a pattern
+     */
+    boolean matches(byte[] bytes, int from, int to) {
+        int state = 0;
+        if (accepting[state]) {
+            return true;
+        }
+        for (int i = from; i < to; i++) {
+            state = transitions[state][bytes[i] & 0xff];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the line contains a pattern
+     */
+    boolean matches(String line) {
+        byte[] bytes = line.getBytes(charset);
+        return matches(bytes, 0, bytes.length);
+    }
+
+    private static int[] newState() {
+        int[] state = new int[256];
+        Arrays.fill(state, -1);
+        return state;
+    }
+}
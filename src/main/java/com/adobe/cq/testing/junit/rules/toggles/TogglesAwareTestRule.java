@@ -15,9 +15,7 @@
  */
 package com.adobe.cq.testing.junit.rules.toggles;
 
-import com.adobe.cq.testing.client.TogglesClient;
 import org.apache.sling.testing.clients.SlingClient;
-import org.apache.sling.testing.clients.util.poller.Polling;
 import org.junit.AssumptionViolatedException;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
@@ -25,20 +23,21 @@ import org.junit.runners.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
-import static java.util.concurrent.TimeUnit.SECONDS;
-
 /**
  * Junit rule for filtering tests based on the toggles enabled on the remote instance.<br>
  * <br>
  * The rule is used in combination with the annotations {@link RunIfToggleEnabled} and
  * {@link SkipIfToggleEnabled}.
- * If both annotations are applied to a test, both conditions must be met (AND operation).
+ * If both annotations are applied to a test, both conditions must be met (AND operation).<br>
+ * <br>
+ * The enabled toggles are read from the {@link TogglesCache} of the instance, so that they are downloaded once
+ * for all the tests. Used as a class rule, the rule downloads them before the first test, once the outer class
+ * rules providing the client have been evaluated.
  *
  * @see RunIfToggleEnabled
  * @see SkipIfToggleEnabled
@@ -58,7 +57,7 @@ public class TogglesAwareTestRule implements TestRule {
     @Override
     public Statement apply(Statement base, Description description) {
         if (shouldRunTest(description)) {
-            return base;
+            return description.getMethodName() == null ? prefetching(base) : base;
         } else {
             return emptyStatement(description.getDisplayName());
         }
@@ -72,12 +71,9 @@ public class TogglesAwareTestRule implements TestRule {
             return true; // no annotation was applied to the test
         }
 
-        AtomicReference<List<String>> enabledToggles = new AtomicReference<>();
+        Set<String> enabledToggles;
         try {
-            new Polling(() -> {
-                enabledToggles.set(clientSupplier.get().adaptTo(TogglesClient.class).getEnabledToggles());
-                return true;
-            }).poll(SECONDS.toMillis(30), SECONDS.toMillis(1));
+            enabledToggles = TogglesCache.forInstance(clientSupplier.get()).getEnabledToggles();
         } catch (TimeoutException e) {
             LOG.warn("Failed to retrieve toggles", e);
             return true; // if something goes wrong we assume test should run
@@ -86,11 +82,32 @@ public class TogglesAwareTestRule implements TestRule {
             return true; // thread was interrupted, we assume test should run
         }
 
-        if (runIfToggle.filter(s -> !enabledToggles.get().contains(s)).isPresent()) {
+        if (runIfToggle.filter(s -> !enabledToggles.contains(s)).isPresent()) {
             return false; // RunIfToggleEnabled condition was not met, skipping
         }
 
-        return !skipIfToggle.filter(s -> enabledToggles.get().contains(s)).isPresent();
+        return !skipIfToggle.filter(s -> enabledToggles.contains(s)).isPresent();
+    }
+
+    private Statement prefetching(final Statement base) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                prefetch();
+                base.evaluate();
+            }
+        };
+    }
+
+    private void prefetch() {
+        try {
+            TogglesCache.forInstance(clientSupplier.get()).getEnabledToggles();
+        } catch (TimeoutException | RuntimeException e) {
+            // the tests read the toggles again
+            LOG.warn("Failed to prefetch toggles", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private Optional<String> getRunIfToggle(Description description) {
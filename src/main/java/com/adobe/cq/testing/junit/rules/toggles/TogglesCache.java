@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.rules.toggles;
+
+import com.adobe.cq.testing.client.TogglesClient;
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.SlingClient;
+import org.apache.sling.testing.clients.util.poller.Polling;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Snapshot of the toggles enabled on an instance, shared by all the {@link TogglesAwareTestRule}s targeting it.
+ * The first lookup downloads the toggles; the next ones are answered from an immutable set without any request.
+ * Once the snapshot is older than {@value #TTL_PROP} milliseconds (5 minutes by default), a lookup still returns
+ * it, and a single background refresh replaces it.
+ */
+public class TogglesCache {
+    private static final Logger LOG = LoggerFactory.getLogger(TogglesCache.class);
+
+    /**
+     * System property with the time to live of a snapshot in milliseconds
+     */
+    public static final String TTL_PROP = "cq.testing.toggles.ttl";
+
+    public static final long DEFAULT_TTL = MINUTES.toMillis(5);
+
+    private static final Map<URI, TogglesCache> CACHES = new ConcurrentHashMap<>();
+
+    private static final ExecutorService REFRESHER = ThreadUtils.newExecutor("toggles-refresh", 1, false, true);
+
+    private final SlingClient client;
+    private final long ttl;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * @param client the client downloading the toggles
+     * @param ttl the time to live of a snapshot in milliseconds
+     */
+    public TogglesCache(SlingClient client, long ttl) {
+        this.client = client;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @param client a client of the instance
+     * @return the cache of the instance, created on first use with this client and {@value #TTL_PROP}
+     */
+    public static TogglesCache forInstance(SlingClient client) {
+        return CACHES.computeIfAbsent(client.getUrl(),
+                url -> new TogglesCache(client, Long.getLong(TTL_PROP, DEFAULT_TTL)));
+    }
+
+    /**
+     * Forgets the snapshots of all the instances
+     */
+    public static void clearAll() {
+        CACHES.clear();
+    }
+
+    /**
+     * Returns the enabled toggles, downloaded at most once per time to live. Only the first call waits for the
+     * download, retried for up to 30 seconds.
+     *
+     * @return the immutable set of the enabled toggles
+     * @throws TimeoutException if the toggles could not be downloaded
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public Set<String> getEnabledToggles() throws TimeoutException, InterruptedException {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot.get();
+                if (current == null) {
+                    AtomicReference<Set<String>> fetched = new AtomicReference<>();
+                    new Polling(() -> {
+                        fetched.set(fetch());
+                        return true;
+                    }).poll(SECONDS.toMillis(30), SECONDS.toMillis(1));
+                    current = new Snapshot(fetched.get());
+                    snapshot.set(current);
+                }
+            }
+        } else if (System.currentTimeMillis() - current.timestamp > ttl) {
+            refreshInBackground();
+        }
+        return current.toggles;
+    }
+
+    /**
+     * @param toggle the toggle to check
+     * @return {@code true} if the toggle is enabled
+     * @throws TimeoutException if the toggles could not be downloaded
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public boolean isEnabled(String toggle) throws TimeoutException, InterruptedException {
+        return getEnabledToggles().contains(toggle);
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        REFRESHER.execute(() -> {
+            try {
+                snapshot.set(new Snapshot(fetch()));
+            } catch (ClientException e) {
+                // keep the stale snapshot, retried by the next lookup
+                LOG.warn("Failed to refresh the toggles", e);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    private Set<String> fetch() throws ClientException {
+        return Collections.unmodifiableSet(new HashSet<>(
+                client.adaptTo(TogglesClient.class).getEnabledToggles()));
+    }
+
+    private static final class Snapshot {
+        private final Set<String> toggles;
+        private final long timestamp = System.currentTimeMillis();
+
+        Snapshot(Set<String> toggles) {
+            this.toggles = toggles;
+        }
+    }
+}
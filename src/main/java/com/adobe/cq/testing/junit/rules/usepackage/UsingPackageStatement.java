@@ -68,6 +68,7 @@ public class UsingPackageStatement extends Statement {
             base.evaluate();
         } finally {
             //After:
+            // not through the CleanupQueue: the next test using the same package uploads it again to the same path
             if (uploadedPackage != null) {
                 uploadedPackage.unInstall();
                 uploadedPackage.delete();
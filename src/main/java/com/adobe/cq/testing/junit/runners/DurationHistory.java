@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.runners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durations of the children of the parallel runners, kept between runs in a properties file
+ * (key: the display name of the child, value: its duration in milliseconds).
+ */
+class DurationHistory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DurationHistory.class);
+
+    private final File file;
+    private final Map<String, Long> previous = new ConcurrentHashMap<>();
+    private final Map<String, Long> current = new ConcurrentHashMap<>();
+
+    DurationHistory(File file) {
+        this.file = file;
+        if (file.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                properties.load(in);
+            } catch (IOException e) {
+                LOG.warn("Could not read the test durations from {}", file, e);
+            }
+            for (String name : properties.stringPropertyNames()) {
+                try {
+                    previous.put(name, Long.parseLong(properties.getProperty(name)));
+                } catch (NumberFormatException e) {
+                    LOG.debug("Ignoring invalid duration of {} in {}", name, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param name display name of the child
+     * @return the duration of the child in the previous run, in milliseconds, or -1 if unknown
+     */
+    long getPrevious(String name) {
+        return previous.getOrDefault(name, -1L);
+    }
+
+    void record(String name, long millis) {
+        current.put(name, millis);
+    }
+
+    /**
+     * Saves the durations of this run, merged with the previous ones of the children that did not run
+     */
+    synchronized void save() {
+        Properties properties = new Properties();
+        previous.forEach((name, millis) -> properties.setProperty(name, String.valueOf(millis)));
+        current.forEach((name, millis) -> properties.setProperty(name, String.valueOf(millis)));
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            // written aside first, so that suites running at the same time never read a partial file
+            File tmp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp.toPath())) {
+                properties.store(out, "Test durations in ms, used to run the longest tests first");
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.warn("Could not save the test durations to {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.junit.runners;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Junit runner for running the test methods of a class in parallel.
+ *
+ * To be used as an annotation to a test class:
+ * <pre>
+ * &#64;RunWith(ParallelClassRunner.class)
+ * &#64;ParallelClassRunner.Configuration(threads = 8)
+ * public class PagesIT {
+ * }
+ * </pre>
+ *
+ * The {@code @ClassRule}s, {@code @BeforeClass} and {@code @AfterClass} run once around all the methods, as with
+ * the default runner. Each method runs with its {@code @Rule}s on a thread of the pool; the pool threads are
+ * started by the thread of the class or by a thread it started, so they inherit the values the class rules set in
+ * inheritable thread locals, such as the client of a {@code TemporaryUser} class rule. The methods annotated with {@link Serial}
+ * run one at a time in the thread of the class, after the others. The methods run on virtual threads when
+ * available, see {@link ThreadUtils}.
+ *
+ * The pool size is set with {@link Configuration} or, overriding it, the {@value #THREADS_PROP} system property.
+ */
+public class ParallelClassRunner extends BlockJUnit4ClassRunner {
+
+    /**
+     * System property with the number of methods run at the same time
+     */
+    public static final String THREADS_PROP = "cq.testing.parallel.methods.threads";
+
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Configures a {@link ParallelClassRunner}, the system property takes precedence
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Inherited
+    public @interface Configuration {
+
+        /**
+         * @return the number of methods run at the same time
+         */
+        int threads() default DEFAULT_THREADS;
+    }
+
+    private final int threads;
+    private final List<FrameworkMethod> serialMethods = new ArrayList<>();
+    private volatile RunNotifier serialNotifier;
+
+    public ParallelClassRunner(Class<?> klass) throws InitializationError {
+
+        super(klass);
+
+        Configuration configuration = klass.getAnnotation(Configuration.class);
+        this.threads = Math.max(1, Integer.getInteger(THREADS_PROP,
+                configuration != null ? configuration.threads() : DEFAULT_THREADS));
+
+        setScheduler(new RunnerScheduler() {
+
+            private ExecutorService service;
+
+            public void schedule(Runnable childStatement) {
+                if (service == null) {
+                    // created for each run, so that its threads inherit the thread locals set by the class rules
+                    service = ThreadUtils.newExecutor(
+                            "parallel-runner-" + getTestClass().getJavaClass().getSimpleName(), threads, true, false);
+                }
+                service.submit(childStatement);
+            }
+
+            public void finished() {
+                if (service != null) {
+                    try {
+                        service.shutdown();
+                        service.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace(System.err);
+                    }
+                    service = null;
+                }
+                runSerialMethods();
+            }
+        });
+    }
+
+    @Override
+    protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+        if (isSerial(method)) {
+            synchronized (serialMethods) {
+                serialMethods.add(method);
+            }
+            serialNotifier = notifier;
+            return;
+        }
+        super.runChild(method, notifier);
+    }
+
+    private boolean isSerial(FrameworkMethod method) {
+        return method.getAnnotation(Serial.class) != null
+                || getTestClass().getJavaClass().isAnnotationPresent(Serial.class);
+    }
+
+    private void runSerialMethods() {
+        List<FrameworkMethod> methods;
+        synchronized (serialMethods) {
+            methods = new ArrayList<>(serialMethods);
+            serialMethods.clear();
+        }
+        // in the order of the class, whatever the order the pool threads deferred them
+        List<FrameworkMethod> order = getChildren();
+        methods.sort(Comparator.comparingInt(order::indexOf));
+        for (FrameworkMethod method : methods) {
+            super.runChild(method, serialNotifier);
+        }
+    }
+}
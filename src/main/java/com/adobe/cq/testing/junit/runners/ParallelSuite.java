@@ -15,14 +15,35 @@
  */
 package com.adobe.cq.testing.junit.runners;
 
+import java.io.File;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.adobe.cq.testing.util.ThreadUtils;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.Suite;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.RunnerBuilder;
 import org.junit.runners.model.RunnerScheduler;
+import org.junit.runners.model.TestTimedOutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Junit suite for running test classes in parallel.
@@ -31,21 +52,92 @@ import org.junit.runners.model.RunnerScheduler;
  * <pre>
  * &#64;RunWith(ParallelSuite.class)
  * &#64;Suite.SuiteClasses({TestClass1.class, TestClass2.class})
+ * &#64;ParallelSuite.Configuration(threads = 8)
  * public class TestClassSuiteIT {
  * }
  * </pre>
+ *
+ * The duration of each class is saved in the {@value #HISTORY_PROP} file, {@value #DEFAULT_HISTORY} in the working
+ * directory by default, outside {@code target/} so that {@code mvn clean} keeps it. On CI, commit or cache that file,
+ * or point the property to a location kept between builds. On the next run, the classes are started longest first so that a slow class does not end the run alone;
+ * the classes without a known duration are started first. The pool size and a timeout for each class are set
+ * with {@link Configuration} or, overriding it, the {@value #THREADS_PROP} and {@value #TIMEOUT_PROP} system
+ * properties. The utilization of the pool is logged at the end of the suite. The classes run on virtual threads
+ * when available, see {@link ThreadUtils}.
  */
 public class ParallelSuite extends Suite {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSuite.class);
+
+    /**
+     * System property with the number of classes run at the same time
+     */
+    public static final String THREADS_PROP = "cq.testing.parallel.threads";
+
+    /**
+     * System property with the max time in milliseconds a class can run before being interrupted, 0 for no limit
+     */
+    public static final String TIMEOUT_PROP = "cq.testing.parallel.timeout";
+
+    /**
+     * System property with the path of the file keeping the durations between runs
+     */
+    public static final String HISTORY_PROP = "cq.testing.parallel.history";
+
+    public static final int DEFAULT_THREADS = 4;
+
+    public static final String DEFAULT_HISTORY = "parallel-suite-durations.properties";
+
+    /**
+     * Configures a {@link ParallelSuite}, the system properties take precedence
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Inherited
+    public @interface Configuration {
+
+        /**
+         * @return the number of classes run at the same time
+         */
+        int threads() default DEFAULT_THREADS;
+
+        /**
+         * @return the max time in milliseconds a class can run before being interrupted, 0 for no limit
+         */
+        long timeout() default 0;
+    }
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "parallel-suite-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int threads;
+    private final long timeout;
+    private final DurationHistory history;
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private final AtomicLong busy = new AtomicLong();
+
     public ParallelSuite(Class<?> klass, RunnerBuilder builder) throws InitializationError {
 
         super(klass, builder);
 
+        Configuration configuration = klass.getAnnotation(Configuration.class);
+        this.threads = Math.max(1, Integer.getInteger(THREADS_PROP,
+                configuration != null ? configuration.threads() : DEFAULT_THREADS));
+        this.timeout = Long.getLong(TIMEOUT_PROP, configuration != null ? configuration.timeout() : 0);
+        this.history = new DurationHistory(new File(System.getProperty(HISTORY_PROP, DEFAULT_HISTORY)));
+
         setScheduler(new RunnerScheduler() {
 
-            private final ExecutorService service = Executors.newFixedThreadPool(4);
+            private final ExecutorService service = ThreadUtils.newExecutor("parallel-suite", threads, true, false);
+            private long start;
 
             public void schedule(Runnable childStatement) {
+                if (start == 0) {
+                    start = System.nanoTime();
+                }
                 service.submit(childStatement);
             }
 
@@ -56,7 +148,99 @@ public class ParallelSuite extends Suite {
                 } catch (InterruptedException e) {
                     e.printStackTrace(System.err);
                 }
+                history.save();
+                report(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
             }
         });
     }
+
+    /**
+     * @return the children, longest first according to the durations of the previous run
+     */
+    @Override
+    protected List<Runner> getChildren() {
+        List<Runner> children = new ArrayList<>(super.getChildren());
+        if (history != null) {
+            // the unknown durations first, the sort is stable
+            children.sort(Comparator.comparingLong((Runner child) -> {
+                long previous = history.getPrevious(child.getDescription().getDisplayName());
+                return previous < 0 ? Long.MAX_VALUE : previous;
+            }).reversed());
+        }
+        return children;
+    }
+
+    @Override
+    protected void runChild(Runner runner, RunNotifier notifier) {
+        String name = runner.getDescription().getDisplayName();
+        Watchdog watchdog = timeout <= 0 ? null : new Watchdog(runner, notifier, Thread.currentThread());
+
+        long start = System.nanoTime();
+        try {
+            super.runChild(runner, notifier);
+        } finally {
+            if (watchdog != null) {
+                watchdog.done();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            durations.put(name, millis);
+            busy.addAndGet(millis);
+            history.record(name, millis);
+        }
+    }
+
+    /**
+     * Fails and interrupts a child running for longer than the timeout. The timeout and the end of the child
+     * run under the lock of the watchdog, so a child that ended is neither failed nor interrupted.
+     */
+    private final class Watchdog implements Runnable {
+        private final Runner runner;
+        private final RunNotifier notifier;
+        private final Thread thread;
+        private final ScheduledFuture<?> future;
+        private boolean done;
+
+        Watchdog(Runner runner, RunNotifier notifier, Thread thread) {
+            this.runner = runner;
+            this.notifier = notifier;
+            this.thread = thread;
+            this.future = WATCHDOG.schedule(this, timeout, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            if (done) {
+                return;
+            }
+            LOG.warn("{} did not complete after {}ms, interrupting it", runner.getDescription().getDisplayName(),
+                    timeout);
+            notifier.fireTestFailure(new Failure(runner.getDescription(),
+                    new TestTimedOutException(timeout, TimeUnit.MILLISECONDS)));
+            thread.interrupt();
+        }
+
+        /**
+         * Called by the thread of the child when it ended
+         */
+        synchronized void done() {
+            done = true;
+            future.cancel(false);
+            // do not leak the interrupt of a timed out child to the next one
+            Thread.interrupted();
+        }
+    }
+
+    private void report(long wallClock) {
+        if (durations.isEmpty()) {
+            return;
+        }
+        long capacity = Math.max(1, wallClock * threads);
+        StringBuilder slowest = new StringBuilder();
+        durations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .forEach(e -> slowest.append("\n  ").append(e.getValue()).append("ms ").append(e.getKey()));
+        LOG.info("{} ran {} classes in {}ms on {} threads, pool utilization {}% (busy {}ms). Slowest:{}",
+                getName(), durations.size(), wallClock, threads, 100 * busy.get() / capacity, busy.get(), slowest);
+    }
 }
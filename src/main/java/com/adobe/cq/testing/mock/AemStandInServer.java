@@ -0,0 +1,921 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.mock;
+
+import com.adobe.cq.testing.client.JobsClient;
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Lightweight in-process stand-in for an AEM instance, listening on a random local port. It emulates the
+ * endpoints used by the clients of this library well enough to measure their HTTP behaviour without a running
+ * instance:</p>
+ * <ul>
+ *     <li>Sling GET rendering of {@code .json}, {@code .N.json} and {@code .infinity.json} and the Sling POST
+ *     servlet (create, modify, {@code @Delete}, {@code :operation} delete, copy and move)</li>
+ *     <li>{@value #WCM_COMMAND_PATH} page commands (create, delete, copy, move, lock and unlock)</li>
+ *     <li>{@value #PACKMGR_SERVICE_PATH}{@code exec.json} package creation and upload, and the other package
+ *     commands</li>
+ *     <li>{@link JobsClient#QE_QUEUES_SERVLET_PATH} job statistics, {@value #EVENTS_PATH} OSGi event log and
+ *     {@value #TOGGLES_PATH} feature toggles</li>
+ *     <li>Direct binary upload of assets: {@code .initiateUpload.json}, a blob store sink accepting the PUT of
+ *     the parts, and {@code .completeUpload.json}</li>
+ * </ul>
+ *
+ * <p>Latency and errors can be injected globally or for the paths matching a pattern, to benchmark the
+ * throughput and the retry behaviour of the clients. Credentials are not checked.</p>
+ *
+ * <p>The JDK HTTP server delays small responses with Nagle's algorithm unless the JVM is started with
+ * {@code -Dsun.net.httpserver.nodelay=true}, as the {@code benchmarks} profile does. The server leaves this
+ * JVM-wide setting to the launcher.</p>
+ *
+ * <pre>
+ * try (AemStandInServer server = new AemStandInServer().start()) {
+ *     server.failNext("/bin/wcmcommand", 2, 503);
+ *     CQClient client = new CQClient(server.getUrl(), "admin", "admin");
+ *     client.createPageWithRetry("page", "Page", "/content", "", 2000, 100);
+ * }
+ * </pre>
+ */
+public class AemStandInServer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AemStandInServer.class);
+
+    public static final String WCM_COMMAND_PATH = "/bin/wcmcommand";
+    public static final String PACKMGR_SERVICE_PATH = "/crx/packmgr/service/";
+    public static final String EVENTS_PATH = "/system/console/events.json";
+    public static final String TOGGLES_PATH = "/etc.clientlibs/toggles.json";
+    public static final String BLOB_STORE_PATH = "/blobstore/";
+
+    public static final String TOPIC_RESOURCE_ADDED = "org/apache/sling/api/resource/Resource/ADDED";
+    public static final String TOPIC_RESOURCE_CHANGED = "org/apache/sling/api/resource/Resource/CHANGED";
+    public static final String TOPIC_RESOURCE_REMOVED = "org/apache/sling/api/resource/Resource/REMOVED";
+    public static final String TOPIC_PAGE_EVENT = "com/day/cq/wcm/core/page";
+
+    public static final int DEFAULT_EVENT_LOG_SIZE = 500;
+    public static final long DEFAULT_MAX_PART_SIZE = 100L * 1024 * 1024;
+
+    private static final String ACP_DAM_PATH = "/platform/content/dam";
+    private static final String INITIATE_UPLOAD = ".initiateUpload.json";
+    private static final String COMPLETE_UPLOAD = ".completeUpload.json";
+    private static final String JSON = "application/json;charset=utf-8";
+    private static final String HTML = "text/html;charset=utf-8";
+
+    private final int port;
+    private final StandInRepository repository = new StandInRepository();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile URI url;
+
+    private volatile long latency;
+    private final List<Fault> faults = new CopyOnWriteArrayList<>();
+    private Random random = new Random();
+
+    private volatile List<String> enabledToggles = Collections.emptyList();
+    private volatile JsonNode jobQueues = defaultJobQueues();
+    private final Deque<ObjectNode> events = new ArrayDeque<>();
+    private volatile int eventLogSize = DEFAULT_EVENT_LOG_SIZE;
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private volatile long maxPartSize = DEFAULT_MAX_PART_SIZE;
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong generatedNames = new AtomicLong();
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a server listening on a random free port once started
+     */
+    public AemStandInServer() {
+        this(0);
+    }
+
+    /**
+     * @param port the local port to listen on, {@code 0} for a random free port
+     */
+    public AemStandInServer(int port) {
+        this.port = port;
+    }
+
+    //*********************************************
+    // Lifecycle
+    //*********************************************
+
+    /**
+     * Starts listening on the loopback interface
+     *
+     * @return this server
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized AemStandInServer start() throws IOException {
+        if (server != null) {
+            return this;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "aem-stand-in-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        url = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        LOG.info("AEM stand-in server listening on {}", getUrl());
+        return this;
+    }
+
+    /**
+     * Stops the server, the content and the configuration are kept
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+            url = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * @return the port the server listens on
+     * @throws IllegalStateException if the server is not started
+     */
+    public int getPort() {
+        return getUrl().getPort();
+    }
+
+    /**
+     * @return the url to pass to the clients
+     * @throws IllegalStateException if the server is not started
+     */
+    public URI getUrl() {
+        URI current = url;
+        if (current == null) {
+            throw new IllegalStateException("Server is not started");
+        }
+        return current;
+    }
+
+    /**
+     * @return the content served by the Sling GET and POST emulation, to seed or inspect
+     */
+    public StandInRepository getRepository() {
+        return repository;
+    }
+
+    //*********************************************
+    // Latency and error injection
+    //*********************************************
+
+    /**
+     * @param millis latency added to every request
+     * @return this server
+     */
+    public AemStandInServer setLatency(long millis) {
+        this.latency = millis;
+        return this;
+    }
+
+    /**
+     * @param pathPattern regular expression found in the path of the affected requests
+     * @param millis latency added to the affected requests, on top of the global latency
+     * @return this server
+     */
+    public AemStandInServer addLatency(String pathPattern, long millis) {
+        faults.add(new Fault(pathPattern, millis, 0, 0, -1));
+        return this;
+    }
+
+    /**
+     * @param pathPattern regular expression found in the path of the affected requests
+     * @param probability probability for an affected request to fail, between 0 and 1
+     * @param status the status of the failed requests
+     * @return this server
+     */
+    public AemStandInServer injectErrors(String pathPattern, double probability, int status) {
+        faults.add(new Fault(pathPattern, 0, probability, status, -1));
+        return this;
+    }
+
+    /**
+     * Fails the next requests matching a pattern, to test retries deterministically
+     *
+     * @param pathPattern regular expression found in the path of the affected requests
+     * @param count number of requests to fail
+     * @param status the status of the failed requests
+     * @return this server
+     */
+    public AemStandInServer failNext(String pathPattern, int count, int status) {
+        faults.add(new Fault(pathPattern, 0, 1, status, count));
+        return this;
+    }
+
+    /**
+     * Removes the global latency and all the injected latencies and errors
+     */
+    public void clearFaults() {
+        latency = 0;
+        faults.clear();
+    }
+
+    /**
+     * @param seed seed of the random generator used by {@link #injectErrors}, for reproducible runs
+     * @return this server
+     */
+    public synchronized AemStandInServer setRandomSeed(long seed) {
+        random = new Random(seed);
+        return this;
+    }
+
+    //*********************************************
+    // Emulated state
+    //*********************************************
+
+    /**
+     * @param toggles the ids returned by {@value #TOGGLES_PATH}
+     * @return this server
+     */
+    public AemStandInServer setEnabledToggles(String... toggles) {
+        this.enabledToggles = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(toggles)));
+        return this;
+    }
+
+    /**
+     * @param data the {@code data} node returned by the job queues servlet, with {@code active_queues} and
+     *             {@code topic_statistics}
+     * @return this server
+     */
+    public AemStandInServer setJobQueues(JsonNode data) {
+        this.jobQueues = data;
+        return this;
+    }
+
+    /**
+     * @param size maximum number of events kept in the event log, the oldest are dropped first
+     * @return this server
+     */
+    public AemStandInServer setEventLogSize(int size) {
+        this.eventLogSize = size;
+        return this;
+    }
+
+    /**
+     * @param maxPartSize maximum size of a part of a direct binary upload, larger files are split in several parts
+     * @return this server
+     */
+    public AemStandInServer setMaxPartSize(long maxPartSize) {
+        this.maxPartSize = maxPartSize;
+        return this;
+    }
+
+    /**
+     * Adds an event to the OSGi event log. The content changes done through the server record their own events.
+     *
+     * @param topic the topic of the event
+     * @param path the {@code path} property of the event
+     */
+    public void recordEvent(String topic, String path) {
+        ObjectNode event = JsonStreamUtils.getMapper().createObjectNode();
+        event.put("id", String.valueOf(eventIds.incrementAndGet()));
+        event.put("topic", topic);
+        event.put("received", System.currentTimeMillis());
+        event.put("category", topic.substring(0, Math.max(0, topic.lastIndexOf('/'))));
+        event.putObject("properties").put("path", path);
+        synchronized (events) {
+            events.addLast(event);
+            while (events.size() > eventLogSize) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    public void clearEvents() {
+        synchronized (events) {
+            events.clear();
+        }
+    }
+
+    //*********************************************
+    // Statistics
+    //*********************************************
+
+    /**
+     * @return the number of requests received, including the failed ones
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * @param method the HTTP method
+     * @param path the exact path of the requests, including selectors and extension
+     * @return the number of requests received for the method and path
+     */
+    public long getRequestCount(String method, String path) {
+        LongAdder count = requestCounts.get(method + " " + path);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return the number of requests failed by {@link #injectErrors} or {@link #failNext}
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * @return the number of bytes received by the blob store sink
+     */
+    public long getUploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    public void resetCounters() {
+        requestCount.reset();
+        injectedErrors.reset();
+        requestCounts.clear();
+        uploadedBytes.set(0);
+    }
+
+    //*********************************************
+    // Request handling
+    //*********************************************
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            StandInRequest request = StandInRequest.read(exchange);
+            requestCount.increment();
+            requestCounts.computeIfAbsent(request.method + " " + request.path, k -> new LongAdder()).increment();
+
+            int injected = applyFaults(request.path);
+            if (injected > 0) {
+                injectedErrors.increment();
+                send(exchange, injected, HTML, slingHtml(injected, "Injected error", request.path));
+            } else {
+                dispatch(exchange, request);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.warn("Failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            send(exchange, 500, HTML, slingHtml(500, StringUtils.defaultString(e.getMessage()), "/"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int applyFaults(String path) throws InterruptedException {
+        long delay = latency;
+        int status = 0;
+        for (Fault fault : faults) {
+            if (!fault.pattern.matcher(path).find()) {
+                continue;
+            }
+            delay += fault.latency;
+            if (status == 0 && fault.probability > 0 && fault.trigger(nextDouble())) {
+                status = fault.status;
+            }
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        return status;
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private void dispatch(HttpExchange exchange, StandInRequest request) throws IOException {
+        String path = request.path;
+        switch (request.method) {
+            case "GET":
+            case "HEAD":
+                if (path.startsWith(JobsClient.QE_QUEUES_SERVLET_PATH + ".")) {
+                    ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+                    root.set("data", jobQueues);
+                    send(exchange, 200, JSON, root.toString());
+                } else if (EVENTS_PATH.equals(path)) {
+                    sendEvents(exchange);
+                } else if (TOGGLES_PATH.equals(path)) {
+                    ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+                    root.set("enabled", JsonStreamUtils.getMapper().valueToTree(enabledToggles));
+                    send(exchange, 200, JSON, root.toString());
+                } else if (ACP_DAM_PATH.equals(path)) {
+                    ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+                    root.putObject("_links").putObject("http://ns.adobe.com/adobecloud/rel/create")
+                            .put("href", "/content/dam" + INITIATE_UPLOAD)
+                            .put("type", "direct");
+                    send(exchange, 200, JSON, root.toString());
+                } else {
+                    slingGet(exchange, path);
+                }
+                break;
+            case "POST":
+                if (WCM_COMMAND_PATH.equals(path)) {
+                    wcmCommand(exchange, request);
+                } else if (path.startsWith(PACKMGR_SERVICE_PATH)) {
+                    packageManager(exchange, request);
+                } else if (path.endsWith(INITIATE_UPLOAD)) {
+                    initiateUpload(exchange, request);
+                } else if (path.endsWith(COMPLETE_UPLOAD)) {
+                    completeUpload(exchange, request);
+                } else {
+                    slingPost(exchange, request);
+                }
+                break;
+            case "PUT":
+                if (path.startsWith(BLOB_STORE_PATH)) {
+                    String token = StringUtils.substringBefore(path.substring(BLOB_STORE_PATH.length()), "/");
+                    Upload upload = uploads.get(token);
+                    if (upload == null) {
+                        send(exchange, 404, HTML, "Unknown blob " + token);
+                    } else {
+                        upload.bytes.addAndGet(request.bodySize);
+                        uploadedBytes.addAndGet(request.bodySize);
+                        send(exchange, 201, HTML, "");
+                    }
+                } else {
+                    send(exchange, 405, HTML, slingHtml(405, "Method not allowed", path));
+                }
+                break;
+            default:
+                send(exchange, 405, HTML, slingHtml(405, "Method not allowed", path));
+        }
+    }
+
+    private void sendEvents(HttpExchange exchange) throws IOException {
+        ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+        ArrayNode data = root.putArray("data");
+        synchronized (events) {
+            root.put("status", "Event listener active, " + events.size() + " events in the log");
+            // newest first, as the web console
+            events.descendingIterator().forEachRemaining(data::add);
+        }
+        send(exchange, 200, JSON, root.toString());
+    }
+
+    private void slingGet(HttpExchange exchange, String path) throws IOException {
+        if (repository.exists(path)) {
+            send(exchange, 200, HTML, "<html><body>" + escape(path) + "</body></html>");
+            return;
+        }
+        int dot = path.indexOf('.', path.lastIndexOf('/'));
+        String resource = dot < 0 ? path : path.substring(0, dot);
+        if (dot < 0 || !repository.exists(resource)) {
+            send(exchange, 404, HTML, slingHtml(404, "Resource not found", path));
+            return;
+        }
+        String[] selectorsAndExtension = path.substring(dot + 1).split("\\.");
+        String extension = selectorsAndExtension[selectorsAndExtension.length - 1];
+        if (!"json".equals(extension)) {
+            send(exchange, 200, HTML, "<html><body>" + escape(resource) + "</body></html>");
+            return;
+        }
+        int depth = 0;
+        for (int i = 0; i < selectorsAndExtension.length - 1; i++) {
+            String selector = selectorsAndExtension[i];
+            if ("infinity".equals(selector)) {
+                depth = -1;
+            } else if (StringUtils.isNumeric(selector)) {
+                depth = Integer.parseInt(selector);
+            }
+        }
+        send(exchange, 200, JSON, String.valueOf(repository.toJson(resource, depth)));
+    }
+
+    private void slingPost(HttpExchange exchange, StandInRequest request) throws IOException {
+        String operation = request.getParameter(":operation", "");
+        String path = StandInRepository.normalize(request.path);
+
+        if ("delete".equals(operation)) {
+            List<String> targets = request.getParameters(":applyTo").isEmpty()
+                    ? Collections.singletonList(path) : request.getParameters(":applyTo");
+            boolean deleted = false;
+            for (String target : targets) {
+                if (repository.delete(target)) {
+                    deleted = true;
+                    recordEvent(TOPIC_RESOURCE_REMOVED, StandInRepository.normalize(target));
+                }
+            }
+            sendSling(exchange, deleted ? 200 : 404, deleted ? "Content deleted" : "Resource not found", path);
+            return;
+        }
+
+        if ("copy".equals(operation) || "move".equals(operation)) {
+            String dest = request.getParameter(":dest", "");
+            if (dest.endsWith("/")) {
+                dest += path.substring(path.lastIndexOf('/') + 1);
+            } else if (!dest.startsWith("/")) {
+                dest = StandInRepository.getParent(path) + "/" + dest;
+            }
+            dest = StandInRepository.normalize(dest);
+            boolean replaced = repository.exists(dest);
+            boolean done = "copy".equals(operation) ? repository.copy(path, dest) : repository.move(path, dest);
+            if (!done) {
+                sendSling(exchange, 404, "Resource not found", path);
+                return;
+            }
+            if ("move".equals(operation)) {
+                recordEvent(TOPIC_RESOURCE_REMOVED, path);
+            }
+            recordEvent(TOPIC_RESOURCE_ADDED, dest);
+            sendSling(exchange, replaced ? 200 : 201, replaced ? "Content modified" : "Content created", dest);
+            return;
+        }
+
+        if (request.path.endsWith("/") || request.path.endsWith("/*")) {
+            String parent = StandInRepository.normalize(StringUtils.removeEnd(request.path, "*"));
+            String name = request.getParameter(":name", request.getParameter(":nameHint", ""))
+                    .toLowerCase().replaceAll("[^a-z0-9_\\-:.]", "_");
+            if (name.isEmpty()) {
+                name = String.valueOf(generatedNames.incrementAndGet());
+            }
+            path = unique(("/".equals(parent) ? "" : parent) + "/" + name);
+        }
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, List<String>> param : request.parameters.entrySet()) {
+            String name = param.getKey();
+            if (name.startsWith(":") || "_charset_".equals(name)) {
+                continue;
+            }
+            if (name.contains("@")) {
+                if (name.endsWith("@Delete")) {
+                    removed.add(StringUtils.substringBefore(name, "@"));
+                }
+                continue;
+            }
+            properties.put(name, convert(param.getValue(), request.getParameter(name + "@TypeHint", "")));
+        }
+        boolean created = repository.put(path, properties, removed);
+        recordEvent(created ? TOPIC_RESOURCE_ADDED : TOPIC_RESOURCE_CHANGED, path);
+
+        for (Map.Entry<String, String> file : request.fileNames.entrySet()) {
+            String name = "*".equals(file.getKey()) ? file.getValue() : file.getKey();
+            String filePath = path + "/" + name;
+            repository.put(filePath, "nt:file");
+            repository.put(filePath + "/jcr:content", "nt:resource",
+                    "jcr:mimeType", guessMimeType(file.getValue()),
+                    ":jcr:data", request.fileSizes.get(file.getKey()));
+            recordEvent(TOPIC_RESOURCE_ADDED, filePath);
+        }
+
+        sendSling(exchange, created ? 201 : 200, created ? "Content created" : "Content modified", path);
+    }
+
+    private void wcmCommand(HttpExchange exchange, StandInRequest request) throws IOException {
+        String cmd = request.getParameter("cmd", "");
+        switch (cmd) {
+            case "createPage": {
+                String parent = StandInRepository.normalize(request.getParameter("parentPath", "/"));
+                if (!repository.exists(parent)) {
+                    sendSling(exchange, 404, "Parent path not found: " + parent, parent);
+                    return;
+                }
+                String title = request.getParameter("title", "");
+                String label = request.getParameter("label",
+                        title.toLowerCase().replaceAll("[^a-z0-9_\\-]", "-"));
+                String page = unique(("/".equals(parent) ? "" : parent) + "/" + (label.isEmpty() ? "page" : label));
+                repository.put(page, "cq:Page");
+                repository.put(page + "/jcr:content", "cq:PageContent",
+                        "jcr:title", title,
+                        "cq:template", request.getParameter("template", ""),
+                        "cq:lastModified", String.valueOf(System.currentTimeMillis()));
+                recordEvent(TOPIC_RESOURCE_ADDED, page);
+                recordEvent(TOPIC_PAGE_EVENT, page);
+                sendSling(exchange, 200, "Page created", page);
+                return;
+            }
+            case "deletePage": {
+                List<String> paths = request.getParameters("path");
+                for (String page : paths) {
+                    if (!repository.exists(page)) {
+                        sendSling(exchange, 404, "Page not found: " + page, page);
+                        return;
+                    }
+                }
+                for (String page : paths) {
+                    repository.delete(page);
+                    recordEvent(TOPIC_RESOURCE_REMOVED, StandInRepository.normalize(page));
+                    recordEvent(TOPIC_PAGE_EVENT, StandInRepository.normalize(page));
+                }
+                sendSling(exchange, 200, "Page deleted", paths.isEmpty() ? "/" : paths.get(0));
+                return;
+            }
+            case "copyPage":
+            case "movePage": {
+                String destParent = StandInRepository.normalize(request.getParameter("destParentPath", "/"));
+                String dest = null;
+                for (String src : request.getParameters("srcPath")) {
+                    String name = request.getParameter("destName", src.substring(src.lastIndexOf('/') + 1));
+                    dest = ("/".equals(destParent) ? "" : destParent) + "/" + name;
+                    boolean done = "copyPage".equals(cmd) ? repository.copy(src, dest) : repository.move(src, dest);
+                    if (!done) {
+                        sendSling(exchange, 404, "Page not found: " + src, src);
+                        return;
+                    }
+                    recordEvent(TOPIC_PAGE_EVENT, dest);
+                }
+                sendSling(exchange, 200, "copyPage".equals(cmd) ? "Page copied" : "Page moved",
+                        dest == null ? destParent : dest);
+                return;
+            }
+            case "lockPage":
+            case "unlockPage": {
+                String page = StandInRepository.normalize(request.getParameter("path", "/"));
+                if (!repository.exists(page)) {
+                    sendSling(exchange, 404, "Page not found: " + page, page);
+                    return;
+                }
+                if ("lockPage".equals(cmd)) {
+                    repository.put(page + "/jcr:content", Collections.singletonMap("jcr:lockOwner", "admin"), null);
+                } else {
+                    repository.put(page + "/jcr:content", Collections.emptyMap(),
+                            Collections.singletonList("jcr:lockOwner"));
+                }
+                recordEvent(TOPIC_PAGE_EVENT, page);
+                sendSling(exchange, 200, "lockPage".equals(cmd) ? "Page locked" : "Page unlocked", page);
+                return;
+            }
+            default:
+                sendSling(exchange, 200, "Command " + cmd + " executed", request.getParameter("path", "/"));
+        }
+    }
+
+    private void packageManager(HttpExchange exchange, StandInRequest request) throws IOException {
+        String service = request.path.substring(PACKMGR_SERVICE_PATH.length());
+        String cmd = request.getParameter("cmd", "");
+        ObjectNode result = JsonStreamUtils.getMapper().createObjectNode();
+
+        if ("exec.json".equals(service) && "create".equals(cmd)) {
+            String version = request.getParameter("packageVersion", "");
+            String path = createPackage(request.getParameter("groupName", "my_packages"),
+                    request.getParameter("packageName", "package"), version, 0);
+            result.put("success", true).put("msg", "Package created").put("path", path);
+        } else if ("exec.json".equals(service) && "upload".equals(cmd)) {
+            String fileName = request.fileNames.get("package");
+            if (fileName == null) {
+                result.put("success", false).put("msg", "No package file provided");
+            } else {
+                String path = createPackage("my_packages", StringUtils.removeEnd(fileName, ".zip"), "",
+                        request.fileSizes.get("package"));
+                result.put("success", true).put("msg", "Package uploaded").put("path", path);
+            }
+        } else {
+            String path = service.contains("/") ? service.substring(service.indexOf('/')) : "";
+            if (!path.isEmpty() && !repository.exists(path)) {
+                result.put("success", false).put("msg", "Package not found: " + path);
+            } else {
+                if ("delete".equals(cmd)) {
+                    repository.delete(path);
+                    recordEvent(TOPIC_RESOURCE_REMOVED, path);
+                }
+                result.put("success", true).put("msg", "Command " + cmd + " executed").put("path", path);
+            }
+        }
+
+        String body = result.toString();
+        if ("true".equals(request.getParameter("jsonInTextarea"))) {
+            send(exchange, 200, HTML, "<textarea>" + body + "</textarea>");
+        } else {
+            send(exchange, 200, JSON, body);
+        }
+    }
+
+    private String createPackage(String group, String name, String version, long size) {
+        String path = "/etc/packages/" + group + "/" + name + (version.isEmpty() ? "" : "-" + version) + ".zip";
+        repository.put(path, "nt:file");
+        repository.put(path + "/jcr:content", "nt:resource", "jcr:mimeType", "application/zip", ":jcr:data", size);
+        repository.put(path + "/jcr:content/vlt:definition", "vlt:PackageDefinition",
+                "name", name, "group", group, "version", version);
+        recordEvent(TOPIC_RESOURCE_ADDED, path);
+        return path;
+    }
+
+    private void initiateUpload(HttpExchange exchange, StandInRequest request) throws IOException {
+        String folder = StringUtils.removeEnd(request.path, INITIATE_UPLOAD);
+        if (!repository.exists(folder)) {
+            send(exchange, 404, HTML, slingHtml(404, "Folder not found", folder));
+            return;
+        }
+        List<String> fileNames = request.getParameters("fileName");
+        List<String> fileSizes = request.getParameters("fileSize");
+
+        ObjectNode root = JsonStreamUtils.getMapper().createObjectNode();
+        root.put("folderPath", folder);
+        root.put("completeURI", folder + COMPLETE_UPLOAD);
+        ArrayNode files = root.putArray("files");
+        for (int i = 0; i < fileNames.size(); i++) {
+            long size = i < fileSizes.size() ? Long.parseLong(fileSizes.get(i)) : 0;
+            String mimeType = guessMimeType(fileNames.get(i));
+            String token = UUID.randomUUID().toString();
+            uploads.put(token, new Upload(folder, mimeType));
+
+            ObjectNode file = files.addObject();
+            file.put("fileName", fileNames.get(i));
+            file.put("mimeType", mimeType);
+            file.put("uploadToken", token);
+            ArrayNode uris = file.putArray("uploadURIs");
+            long parts = Math.max(1, (size + maxPartSize - 1) / maxPartSize);
+            for (long part = 0; part < parts; part++) {
+                uris.add(getUrl().resolve(BLOB_STORE_PATH + token + "/" + part).toString());
+            }
+            file.put("minPartSize", Math.min(size, 10L * 1024 * 1024));
+            file.put("maxPartSize", maxPartSize);
+        }
+        send(exchange, 200, JSON, root.toString());
+    }
+
+    private void completeUpload(HttpExchange exchange, StandInRequest request) throws IOException {
+        Upload upload = uploads.remove(request.getParameter("uploadToken", ""));
+        if (upload == null) {
+            send(exchange, 400, HTML, slingHtml(400, "Unknown upload token", request.path));
+            return;
+        }
+        String asset = upload.folder + "/" + request.getParameter("fileName", "asset");
+        String mimeType = request.getParameter("mimeType", upload.mimeType);
+        repository.put(asset, "dam:Asset");
+        repository.put(asset + "/jcr:content", "dam:AssetContent", "dam:assetState", "processed");
+        repository.put(asset + "/jcr:content/metadata", StandInRepository.NT_UNSTRUCTURED,
+                "dc:format", mimeType);
+        repository.put(asset + "/jcr:content/renditions/original", "nt:file");
+        repository.put(asset + "/jcr:content/renditions/original/jcr:content", "nt:resource",
+                "jcr:mimeType", mimeType, ":jcr:data", upload.bytes.get());
+        recordEvent(TOPIC_RESOURCE_ADDED, asset);
+        sendSling(exchange, 200, "Asset created", asset);
+    }
+
+    //*********************************************
+    // Helpers
+    //*********************************************
+
+    private String unique(String path) {
+        String candidate = path;
+        for (int i = 0; repository.exists(candidate); i++) {
+            candidate = path + i;
+        }
+        return candidate;
+    }
+
+    private static Object convert(List<String> values, String typeHint) {
+        boolean multiple = values.size() > 1 || typeHint.endsWith("[]");
+        if (multiple) {
+            return values.toArray(new String[0]);
+        }
+        String value = values.get(0);
+        if ("Long".equals(typeHint) && StringUtils.isNumeric(value)) {
+            return Long.valueOf(value);
+        }
+        if ("Boolean".equals(typeHint)) {
+            return Boolean.valueOf(value);
+        }
+        return value;
+    }
+
+    private static String guessMimeType(String fileName) {
+        String mimeType = URLConnection.guessContentTypeFromName(fileName);
+        return mimeType == null ? "application/octet-stream" : mimeType;
+    }
+
+    private static String escape(String value) {
+        return StringEscapeUtils.escapeHtml4(value);
+    }
+
+    private static void sendSling(HttpExchange exchange, int status, String message, String path) throws IOException {
+        send(exchange, status, HTML, slingHtml(status, message, path));
+    }
+
+    /**
+     * Same layout as the Sling HtmlResponse, one field per line as expected by
+     * {@link org.apache.sling.testing.clients.SlingHttpResponse#getSlingPath()}
+     */
+    private static String slingHtml(int status, String message, String path) {
+        String parent = StringUtils.defaultString(StandInRepository.getParent(path), "/");
+        return "<html>\n<head><title>" + status + " " + escape(message) + "</title></head>\n<body>\n"
+                + "<h1>" + escape(message) + "</h1>\n<table>\n<tbody>\n"
+                + "<tr><td>Status</td><td><div id=\"Status\">" + status + "</div></td></tr>\n"
+                + "<tr><td>Message</td><td><div id=\"Message\">" + escape(message) + "</div></td></tr>\n"
+                + "<tr><td>Location</td><td><a href=\"" + escape(path) + "\" id=\"Location\">" + escape(path)
+                + "</a></td></tr>\n"
+                + "<tr><td>Parent Location</td><td><a href=\"" + escape(parent) + "\" id=\"ParentLocation\">"
+                + escape(parent) + "</a></td></tr>\n"
+                + "<tr><td>Path</td><td><div id=\"Path\">" + escape(path) + "</div></td></tr>\n"
+                + "</tbody>\n</table>\n</body>\n</html>\n";
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod()) || status == 204 || status == 304) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static JsonNode defaultJobQueues() {
+        ObjectNode data = JsonStreamUtils.getMapper().createObjectNode();
+        data.putObject("active_queues");
+        data.putArray("topic_statistics");
+        return data;
+    }
+
+    private static final class Fault {
+        final Pattern pattern;
+        final long latency;
+        final double probability;
+        final int status;
+        final AtomicInteger remaining;
+
+        Fault(String pathPattern, long latency, double probability, int status, int count) {
+            this.pattern = Pattern.compile(pathPattern);
+            this.latency = latency;
+            this.probability = probability;
+            this.status = status;
+            this.remaining = new AtomicInteger(count);
+        }
+
+        boolean trigger(double draw) {
+            if (draw >= probability) {
+                return false;
+            }
+            // negative count means unlimited
+            return remaining.get() < 0 || remaining.getAndUpdate(r -> r > 0 ? r - 1 : 0) > 0;
+        }
+    }
+
+    private static final class Upload {
+        final String folder;
+        final String mimeType;
+        final AtomicLong bytes = new AtomicLong();
+
+        Upload(String folder, String mimeType) {
+            this.folder = folder;
+            this.mimeType = mimeType;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.mock;
+
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * <p>In-memory content tree of the {@link AemStandInServer}. Each node is a map of properties identified by its
+ * absolute path, with a {@code jcr:primaryType} property. Property values are {@code String}, {@code String[]},
+ * {@code Long} or {@code Boolean}.</p>
+ *
+ * <p>Reads are lock free, the property maps are never modified once stored. Writes are serialized, so that
+ * operations on whole subtrees are atomic.</p>
+ */
+public class StandInRepository {
+
+    public static final String PRIMARY_TYPE = "jcr:primaryType";
+    public static final String NT_UNSTRUCTURED = "nt:unstructured";
+    public static final String SLING_FOLDER = "sling:Folder";
+
+    private static final String[] DEFAULT_FOLDERS = {"/apps", "/conf", "/content", "/content/dam", "/etc",
+            "/etc/packages", "/home", "/home/groups", "/home/users", "/libs", "/tmp", "/var"};
+
+    private final ConcurrentSkipListMap<String, Map<String, Object>> nodes = new ConcurrentSkipListMap<>();
+
+    public StandInRepository() {
+        reset();
+    }
+
+    /**
+     * Removes all the content and recreates the default folders ({@code /content/dam}, {@code /etc/packages}, ...)
+     */
+    public synchronized void reset() {
+        nodes.clear();
+        nodes.put("/", Collections.singletonMap(PRIMARY_TYPE, "rep:root"));
+        for (String folder : DEFAULT_FOLDERS) {
+            nodes.put(folder, Collections.singletonMap(PRIMARY_TYPE, SLING_FOLDER));
+        }
+    }
+
+    public boolean exists(String path) {
+        return nodes.containsKey(normalize(path));
+    }
+
+    /**
+     * @param path absolute path of the node
+     * @return the read-only properties of the node, or {@code null} if it does not exist
+     */
+    public Map<String, Object> getProperties(String path) {
+        return nodes.get(normalize(path));
+    }
+
+    /**
+     * @param path absolute path of the node
+     * @return the paths of the direct children of the node, in lexical order
+     */
+    public List<String> getChildren(String path) {
+        String parent = normalize(path);
+        String prefix = "/".equals(parent) ? "/" : parent + "/";
+        List<String> children = new ArrayList<>();
+        for (String candidate : descendants(prefix).keySet()) {
+            if (candidate.length() > prefix.length() && candidate.indexOf('/', prefix.length()) < 0) {
+                children.add(candidate);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Sets and removes properties of a node. The node and its missing ancestors are created if needed, with
+     * the {@value #NT_UNSTRUCTURED} type unless the properties define another one.
+     *
+     * @param path absolute path of the node
+     * @param properties properties to set, may be empty
+     * @param removed names of the properties to remove, may be {@code null}
+     * @return {@code true} if the node was created
+     */
+    public synchronized boolean put(String path, Map<String, Object> properties, Collection<String> removed) {
+        String p = normalize(path);
+        createAncestors(p);
+        Map<String, Object> existing = nodes.get(p);
+        Map<String, Object> updated = new LinkedHashMap<>();
+        if (existing == null) {
+            updated.put(PRIMARY_TYPE, NT_UNSTRUCTURED);
+        } else {
+            updated.putAll(existing);
+        }
+        updated.putAll(properties);
+        if (removed != null) {
+            for (String name : removed) {
+                if (!PRIMARY_TYPE.equals(name)) {
+                    updated.remove(name);
+                }
+            }
+        }
+        nodes.put(p, Collections.unmodifiableMap(updated));
+        return existing == null;
+    }
+
+    /**
+     * Creates a node, or updates its properties if it already exists
+     *
+     * @param path absolute path of the node
+     * @param primaryType type of the node
+     * @param properties alternating property names and values
+     * @return {@code true} if the node was created
+     */
+    public boolean put(String path, String primaryType, Object... properties) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(PRIMARY_TYPE, primaryType);
+        for (int i = 0; i + 1 < properties.length; i += 2) {
+            map.put(String.valueOf(properties[i]), properties[i + 1]);
+        }
+        return put(path, map, null);
+    }
+
+    /**
+     * @param path absolute path of the node
+     * @return {@code true} if the node existed and was removed together with its descendants
+     */
+    public synchronized boolean delete(String path) {
+        String p = normalize(path);
+        if ("/".equals(p) || nodes.remove(p) == null) {
+            return false;
+        }
+        descendants(p + "/").clear();
+        return true;
+    }
+
+    /**
+     * Copies a subtree. An existing destination is replaced.
+     *
+     * @param srcPath path of the subtree to copy
+     * @param destPath path of the copy
+     * @return {@code false} if the source does not exist
+     */
+    public synchronized boolean copy(String srcPath, String destPath) {
+        String src = normalize(srcPath);
+        String dest = normalize(destPath);
+        Map<String, Object> root = nodes.get(src);
+        if (root == null || dest.startsWith(src + "/")) {
+            return false;
+        }
+        Map<String, Map<String, Object>> subtree = new LinkedHashMap<>(descendants(src + "/"));
+        delete(dest);
+        createAncestors(dest);
+        nodes.put(dest, root);
+        for (Map.Entry<String, Map<String, Object>> e : subtree.entrySet()) {
+            nodes.put(dest + e.getKey().substring(src.length()), e.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Moves a subtree. An existing destination is replaced.
+     *
+     * @param srcPath path of the subtree to move
+     * @param destPath new path of the subtree
+     * @return {@code false} if the source does not exist
+     */
+    public synchronized boolean move(String srcPath, String destPath) {
+        return copy(srcPath, destPath) && delete(srcPath);
+    }
+
+    /**
+     * Renders a node like the Sling default JSON servlet
+     *
+     * @param path absolute path of the node
+     * @param depth number of levels of children to include, negative for the whole subtree
+     * @return the JSON representation, or {@code null} if the node does not exist
+     */
+    public ObjectNode toJson(String path, int depth) {
+        String p = normalize(path);
+        Map<String, Object> properties = nodes.get(p);
+        if (properties == null) {
+            return null;
+        }
+        ObjectNode json = JsonStreamUtils.getMapper().createObjectNode();
+        for (Map.Entry<String, Object> e : properties.entrySet()) {
+            json.set(e.getKey(), JsonStreamUtils.getMapper().valueToTree(e.getValue()));
+        }
+        if (depth != 0) {
+            for (String child : getChildren(p)) {
+                ObjectNode childJson = toJson(child, depth - 1);
+                if (childJson != null) {
+                    json.set(child.substring(child.lastIndexOf('/') + 1), childJson);
+                }
+            }
+        }
+        return json;
+    }
+
+    /**
+     * @return the number of nodes, including the root
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @param path a path, possibly relative to the root or ending with a slash
+     * @return the absolute path without trailing slash
+     */
+    public static String normalize(String path) {
+        String p = path.startsWith("/") ? path : "/" + path;
+        while (p.length() > 1 && p.endsWith("/")) {
+            p = p.substring(0, p.length() - 1);
+        }
+        return p.replaceAll("/{2,}", "/");
+    }
+
+    /**
+     * @param path absolute path of a node
+     * @return the path of its parent, {@code null} for the root
+     */
+    public static String getParent(String path) {
+        String p = normalize(path);
+        if ("/".equals(p)) {
+            return null;
+        }
+        int slash = p.lastIndexOf('/');
+        return slash == 0 ? "/" : p.substring(0, slash);
+    }
+
+    private void createAncestors(String path) {
+        for (String parent = getParent(path); parent != null && !nodes.containsKey(parent);
+             parent = getParent(parent)) {
+            nodes.put(parent, Collections.singletonMap(PRIMARY_TYPE, NT_UNSTRUCTURED));
+        }
+    }
+
+    private NavigableMap<String, Map<String, Object>> descendants(String prefix) {
+        // '0' is the character following '/', so the range covers exactly the paths starting with the prefix
+        return nodes.subMap(prefix, true, prefix.substring(0, prefix.length() - 1) + "0", false);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.mock;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Request received by the {@link AemStandInServer}, with the query, url encoded and multipart parameters parsed.
+ * Only the size of the uploaded files is kept.
+ */
+final class StandInRequest {
+
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final Pattern DISPOSITION_NAME = Pattern.compile("\\bname=\"([^\"]*)\"");
+    private static final Pattern DISPOSITION_FILENAME = Pattern.compile("\\bfilename=\"([^\"]*)\"");
+
+    final String method;
+    final String path;
+    final Map<String, List<String>> parameters = new LinkedHashMap<>();
+    final Map<String, String> fileNames = new LinkedHashMap<>();
+    final Map<String, Long> fileSizes = new LinkedHashMap<>();
+    long bodySize;
+
+    private StandInRequest(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    /**
+     * Reads the whole request body, unless the request is a PUT whose body is only counted
+     *
+     * @param exchange the exchange
+     * @return the parsed request
+     * @throws IOException if the body cannot be read
+     */
+    static StandInRequest read(HttpExchange exchange) throws IOException {
+        String path;
+        try {
+            path = URLDecoder.decode(exchange.getRequestURI().getRawPath().replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        StandInRequest request = new StandInRequest(exchange.getRequestMethod(), path);
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            request.addAll(URLEncodedUtils.parse(query, StandardCharsets.UTF_8));
+        }
+
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        try (InputStream in = exchange.getRequestBody()) {
+            if ("PUT".equals(request.method)) {
+                request.bodySize = IOUtils.consume(in);
+            } else if (contentType != null && contentType.startsWith("multipart/form-data")) {
+                byte[] body = IOUtils.toByteArray(in);
+                request.bodySize = body.length;
+                Matcher boundary = BOUNDARY.matcher(contentType);
+                if (boundary.find()) {
+                    request.parseMultipart(body, boundary.group(1));
+                }
+            } else if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+                String body = IOUtils.toString(in, StandardCharsets.UTF_8);
+                request.bodySize = body.length();
+                request.addAll(URLEncodedUtils.parse(body, StandardCharsets.UTF_8));
+            } else {
+                request.bodySize = IOUtils.consume(in);
+            }
+        }
+        return request;
+    }
+
+    String getParameter(String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    String getParameter(String name, String defaultValue) {
+        String value = getParameter(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    List<String> getParameters(String name) {
+        List<String> values = parameters.get(name);
+        return values == null ? Collections.emptyList() : values;
+    }
+
+    private void addAll(List<NameValuePair> pairs) {
+        for (NameValuePair pair : pairs) {
+            add(pair.getName(), pair.getValue() == null ? "" : pair.getValue());
+        }
+    }
+
+    private void add(String name, String value) {
+        parameters.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+    }
+
+    private void parseMultipart(byte[] body, String boundary) {
+        // ISO-8859-1 maps each byte to one char, so that offsets in the string are offsets in the body
+        String raw = new String(body, StandardCharsets.ISO_8859_1);
+        String delimiter = "--" + boundary;
+        int start = raw.indexOf(delimiter);
+        while (start >= 0) {
+            int headersStart = start + delimiter.length();
+            if (raw.startsWith("--", headersStart)) {
+                break;
+            }
+            int headersEnd = raw.indexOf("\r\n\r\n", headersStart);
+            int next = raw.indexOf("\r\n" + delimiter, headersEnd);
+            if (headersEnd < 0 || next < 0) {
+                break;
+            }
+            String headers = raw.substring(headersStart, headersEnd);
+            int contentStart = headersEnd + 4;
+            Matcher name = DISPOSITION_NAME.matcher(headers);
+            if (name.find()) {
+                Matcher fileName = DISPOSITION_FILENAME.matcher(headers);
+                if (fileName.find()) {
+                    fileNames.put(name.group(1), fileName.group(1));
+                    fileSizes.put(name.group(1), (long) (next - contentStart));
+                } else {
+                    add(name.group(1), new String(body, contentStart, next - contentStart, StandardCharsets.UTF_8));
+                }
+            }
+            start = next + 2;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.polling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Strategy deciding how long a {@link BackoffPolling} waits between two attempts.</p>
+ *
+ * <p>The strategy used by a poller that was only given a fixed delay is configured globally through system
+ * properties, see {@link #forDelay(long)}:</p>
+ * <ul>
+ *     <li>{@value #STRATEGY_PROP}: {@code fixed} (default), {@code exponential} or {@code adaptive}</li>
+ *     <li>{@value #INITIAL_PROP}: first delay in ms for {@code exponential} and {@code adaptive}</li>
+ *     <li>{@value #MAX_PROP}: maximum delay in ms</li>
+ *     <li>{@value #MULTIPLIER_PROP}: growth factor between two delays</li>
+ *     <li>{@value #JITTER_PROP}: random spread applied to each delay, between 0 and 1</li>
+ *     <li>{@value #FAST_ATTEMPTS_PROP}: number of attempts done with the initial delay in {@code adaptive} mode</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface Backoff {
+
+    String STRATEGY_PROP = "cq.testing.polling.backoff";
+    String INITIAL_PROP = "cq.testing.polling.backoff.initial";
+    String MAX_PROP = "cq.testing.polling.backoff.max";
+    String MULTIPLIER_PROP = "cq.testing.polling.backoff.multiplier";
+    String JITTER_PROP = "cq.testing.polling.backoff.jitter";
+    String FAST_ATTEMPTS_PROP = "cq.testing.polling.backoff.fastAttempts";
+
+    /**
+     * Computes the delay to wait after a failed attempt.
+     *
+     * @param attempt the number of attempts done so far, starting at 1
+     * @return the delay in milliseconds before the next attempt
+     */
+    long nextDelay(int attempt);
+
+    /**
+     * @param delay the delay between attempts, in milliseconds
+     * @return a strategy always waiting the same {@code delay}
+     */
+    static Backoff fixed(long delay) {
+        return attempt -> delay;
+    }
+
+    /**
+     * @param initialDelay delay after the first attempt, in milliseconds
+     * @param maxDelay     upper bound of the delay, in milliseconds
+     * @param multiplier   factor applied to the delay after each attempt
+     * @param jitter       random spread of each delay, e.g. 0.2 for +/- 20%
+     * @return a strategy growing the delay exponentially up to {@code maxDelay}
+     */
+    static Backoff exponential(long initialDelay, long maxDelay, double multiplier, double jitter) {
+        if (initialDelay < 0 || maxDelay < initialDelay || multiplier < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Invalid exponential backoff: initial=" + initialDelay
+                    + ", max=" + maxDelay + ", multiplier=" + multiplier + ", jitter=" + jitter);
+        }
+        return attempt -> {
+            double delay = Math.min(maxDelay, initialDelay * Math.pow(multiplier, attempt - 1));
+            if (jitter > 0) {
+                delay *= 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+            }
+            return Math.min(maxDelay, Math.round(delay));
+        };
+    }
+
+    /**
+     * @param fastDelay    delay used for the first {@code fastAttempts} attempts, in milliseconds
+     * @param fastAttempts number of attempts done with {@code fastDelay}
+     * @param then         the strategy used afterwards, starting again from its first attempt
+     * @return a strategy checking often at first and falling back to {@code then}
+     */
+    static Backoff fastThenSlow(long fastDelay, int fastAttempts, Backoff then) {
+        return attempt -> attempt <= fastAttempts ? fastDelay : then.nextDelay(attempt - fastAttempts);
+    }
+
+    /**
+     * Returns the globally configured strategy for a call site that asks for a fixed {@code delay}. With the
+     * default configuration, this is {@link #fixed(long)}. Otherwise {@code delay} is used as the default
+     * maximum delay, so a call site never waits longer between attempts than it used to.
+     *
+     * @param delay the delay requested by the call site, in milliseconds
+     * @return the strategy to use
+     */
+    static Backoff forDelay(long delay) {
+        String strategy = System.getProperty(STRATEGY_PROP, "fixed");
+        long max = Long.getLong(MAX_PROP, delay);
+        long initial = Math.min(max, Long.getLong(INITIAL_PROP, Math.max(1, max / 10)));
+        double multiplier = Double.parseDouble(System.getProperty(MULTIPLIER_PROP, "2"));
+        double jitter = Double.parseDouble(System.getProperty(JITTER_PROP, "0.2"));
+
+        switch (strategy) {
+            case "fixed":
+                return fixed(delay);
+            case "exponential":
+                return exponential(initial, max, multiplier, jitter);
+            case "adaptive":
+                return fastThenSlow(initial, Integer.getInteger(FAST_ATTEMPTS_PROP, 3),
+                        exponential(initial, max, multiplier, jitter));
+            default:
+                throw new IllegalArgumentException("Unknown backoff strategy " + strategy + " set in "
+                        + STRATEGY_PROP);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.polling;
+
+import org.apache.sling.testing.clients.util.poller.Polling;
+import org.apache.sling.testing.timeouts.TimeoutsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>{@link Polling} that waits between attempts according to a {@link Backoff} strategy instead of a fixed
+ * delay.</p>
+ *
+ * <p>{@link #poll(long, long)} keeps its contract and uses the globally configured strategy for the given delay
+ * (see {@link Backoff#forDelay(long)}), while {@link #poll(long, Backoff)} takes an explicit strategy. The wait
+ * is deadline-aware: the last sleep is shortened so that a final attempt happens when the timeout expires.</p>
+ *
+ * <p>After each poll, {@link #getAttempts()} and {@link #getWastedAttempts()} tell how many times the condition
+ * was checked and how many of these checks did not succeed.</p>
+ */
+public class BackoffPolling extends Polling {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackoffPolling.class);
+
+    private Backoff backoff;
+
+    private int attempts;
+
+    private int wastedAttempts;
+
+    public BackoffPolling() {
+        super();
+    }
+
+    public BackoffPolling(Callable<Boolean> c) {
+        super(c);
+    }
+
+    /**
+     * Sets the strategy used by {@link #poll(long, long)} instead of the globally configured one.
+     *
+     * @param backoff the strategy, or {@code null} to use the global configuration
+     * @return this poller
+     */
+    public BackoffPolling setBackoff(Backoff backoff) {
+        this.backoff = backoff;
+        return this;
+    }
+
+    @Override
+    public void poll(long timeout, long delay) throws TimeoutException, InterruptedException {
+        poll(timeout, backoff != null ? backoff : Backoff.forDelay(delay));
+    }
+
+    /**
+     * Tries to execute {@link #call()} until it returns true or until {@code timeout} is reached.
+     * Between retries, it waits for the delay computed by {@code backoff}.
+     *
+     * @param timeout max total execution time, in milliseconds
+     * @param backoff strategy computing the delay between attempts
+     * @throws TimeoutException     if {@code timeout} was reached
+     * @throws InterruptedException if the thread was interrupted while sleeping; caller should throw it further
+     */
+    public void poll(long timeout, Backoff backoff) throws TimeoutException, InterruptedException {
+        long start = System.currentTimeMillis();
+        long effectiveTimeout = TimeoutsProvider.getInstance().getTimeout(timeout);
+        long deadline = start + effectiveTimeout;
+        long delay = 0;
+        attempts = 0;
+        wastedAttempts = 0;
+
+        while (true) {
+            attempts++;
+            try {
+                if (call()) {
+                    waited = System.currentTimeMillis() - start;
+                    LOG.debug("Condition met after {} attempts ({} wasted) in {} ms", attempts, wastedAttempts, waited);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                exceptions.add(e);
+                lastException = e;
+            }
+            wastedAttempts++;
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            delay = Math.max(0, backoff.nextDelay(attempts));
+            Thread.sleep(Math.min(delay, remaining));
+        }
+
+        waited = System.currentTimeMillis() - start;
+        LOG.debug("Condition not met after {} attempts in {} ms", attempts, waited);
+        throw new TimeoutException(String.format(message(), effectiveTimeout, delay)
+                + " Last exception was: " + getLastException());
+    }
+
+    /**
+     * @return the number of times the condition was checked during the last poll
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return the number of checks of the last poll that returned false or failed
+     */
+    public int getWastedAttempts() {
+        return wastedAttempts;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.polling;
+
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.SlingClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.http.HttpStatus.SC_OK;
+
+/**
+ * <p>Incremental reader of the OSGi event log. It remembers the most recent {@code received} timestamp already
+ * processed, so that each {@link #update()} only indexes the events received since the previous one.</p>
+ *
+ * <p>The web console lists the newest events first. The log is stream-parsed and the download stops as soon as
+ * the already processed events are reached, so an update costs O(new events) instead of reading the whole log.
+ * Logs in chronological order are also supported, but then read until the end.</p>
+ *
+ * <p>The new events are indexed by topic and path in a bounded structure: when more than {@code maxEntries}
+ * topic and path pairs were seen, the oldest ones are forgotten.</p>
+ *
+ * <p>The reader is thread safe, so a single reader can serve all the pollers of an instance.</p>
+ */
+public class EventLogReader {
+
+    public static final String EVENT_URL = "/system/console/events.json";
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final SlingClient client;
+    private final long since;
+    private final Map<String, Long> index;
+
+    private long cursor;
+    // ids of the processed events received at the cursor, as several events can share a timestamp.
+    // null before the first event: the events received at "since" are not considered.
+    private Set<String> idsAtCursor;
+    private long eventCount;
+
+    /**
+     * @param client required to read from the event log
+     * @param since the time from which on events are considered
+     */
+    public EventLogReader(SlingClient client, long since) {
+        this(client, since, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param client required to read from the event log
+     * @param since the time from which on events are considered
+     * @param maxEntries maximum number of topic and path pairs kept in the index
+     */
+    public EventLogReader(SlingClient client, long since, int maxEntries) {
+        this.client = client;
+        this.since = since;
+        this.cursor = since;
+        this.index = new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Reads and indexes the events received since the previous update
+     *
+     * @return the number of new events
+     * @throws ClientException if request to OSGi event log could not be made
+     */
+    public synchronized int update() throws ClientException {
+        long start = cursor;
+        Set<String> seenAtStart = idsAtCursor;
+        List<JsonNode> added = new ArrayList<>();
+        long[] previous = {Long.MIN_VALUE};
+        boolean[] previousSeen = {false};
+        boolean[] ascending = {false};
+
+        JsonStreamUtils.forEachElement(client.doStreamGet(EVENT_URL, null, null, SC_OK), "data", event -> {
+            long received = event.path("received").asLong();
+            String id = event.path("id").asText(null);
+            boolean seen = received < start || received == start
+                    && (seenAtStart == null || id == null || seenAtStart.contains(id));
+            if (seen) {
+                // two processed events in descending order: all the following ones are older
+                if (previousSeen[0] && received < previous[0]) {
+                    return false;
+                }
+            } else {
+                added.add(event);
+                if (received > cursor) {
+                    cursor = received;
+                    idsAtCursor = new HashSet<>();
+                }
+                if (received == cursor && id != null) {
+                    idsAtCursor.add(id);
+                }
+            }
+            ascending[0] |= previous[0] != Long.MIN_VALUE && received > previous[0];
+            previous[0] = received;
+            previousSeen[0] = seen;
+            return true;
+        });
+
+        // oldest first, so that the index evicts the oldest events. Unless proven otherwise the log is newest first.
+        if (!ascending[0]) {
+            Collections.reverse(added);
+        }
+        added.sort(Comparator.comparingLong(event -> event.path("received").asLong()));
+        for (JsonNode event : added) {
+            index(event);
+        }
+        eventCount += added.size();
+        return added.size();
+    }
+
+    /**
+     * @param topic the topic that should be looked for
+     * @param path the path the event should occur, matched against the {@code path} and {@code paths} properties
+     * @return true if an event with this topic and path was indexed
+     */
+    public synchronized boolean contains(String topic, String path) {
+        return index.containsKey(key(topic, path));
+    }
+
+    /**
+     * @param topic the topic that should be looked for
+     * @param path the path the event should occur
+     * @return the {@code received} timestamp of the latest indexed event with this topic and path, or {@code -1}
+     */
+    public synchronized long getReceived(String topic, String path) {
+        Long received = index.get(key(topic, path));
+        return received != null ? received : -1;
+    }
+
+    /**
+     * @return the time from which on events are considered, as passed to the constructor
+     */
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * @return the most recent {@code received} timestamp processed
+     */
+    public synchronized long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return the number of events processed since the creation of the reader
+     */
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    private void index(JsonNode event) {
+        long received = event.path("received").asLong();
+        String topic = event.path("topic").asText();
+        JsonNode properties = event.path("properties");
+        JsonNode path = properties.get("path");
+        if (path != null && path.isTextual()) {
+            put(key(topic, path.textValue()), received);
+        }
+        JsonNode paths = properties.get("paths");
+        if (paths != null) {
+            for (Iterator<JsonNode> it = paths.elements(); it.hasNext(); ) {
+                JsonNode otherPath = it.next();
+                if (otherPath.isTextual()) {
+                    put(key(topic, otherPath.textValue()), received);
+                }
+            }
+        }
+    }
+
+    private void put(String key, long received) {
+        // re-inserted, so that the recent pairs are evicted last
+        Long previous = index.remove(key);
+        index.put(key, previous != null ? Math.max(previous, received) : received);
+    }
+
+    private static String key(String topic, String path) {
+        return topic + '\n' + path;
+    }
+}
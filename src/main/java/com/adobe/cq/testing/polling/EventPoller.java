@@ -15,13 +15,11 @@
  */
 package com.adobe.cq.testing.polling;
 
+import com.adobe.cq.testing.util.JsonStreamUtils;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingClient;
-import org.apache.sling.testing.clients.util.JsonUtils;
-import org.apache.sling.testing.clients.util.poller.Polling;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,17 +35,15 @@ import static org.apache.http.HttpStatus.SC_OK;
  * Can either be used via the checkEventOccurrence() class method or by
  * instantiating an eventPoller and calling the callUntilCondition() method.
  */
-public class EventPoller extends Polling {
+public class EventPoller extends BackoffPolling {
 
     private static final Logger LOG = LoggerFactory.getLogger(EventPoller.class);
 
-    private static final String EVENT_URL = "/system/console/events.json";
+    private static final String EVENT_URL = EventLogReader.EVENT_URL;
 
     private String topic;
-    private JsonNode events;
     private String path;
-    private SlingClient client;
-    private long since;
+    private EventLogReader reader;
 
     /**
      * Instantiate a new EventPoller
@@ -58,17 +54,33 @@ public class EventPoller extends Polling {
      * @param since the time from which on events are considered
      */
     public EventPoller(SlingClient client, String topic, String path, long since) {
+        this(new EventLogReader(client, since), topic, path);
+    }
+
+    /**
+     * Instantiate a new EventPoller reading the log through {@code reader}, which can be shared by several pollers
+     *
+     * @param reader the incremental reader of the event log
+     * @param topic the topic that should be looked for
+     * @param path the path the event should occur
+     */
+    public EventPoller(EventLogReader reader, String topic, String path) {
         super();
         this.topic = topic;
         this.path = path;
-        this.since = since;
-        this.client = client;
+        this.reader = reader;
     }
 
+    /**
+     * Only the events received since the previous call are downloaded and indexed, see {@link EventLogReader}
+     */
     @Override
     public Boolean call() throws ClientException {
-        this.events = getEventsSince(this.client, this.since);
-        return containsEvent(this.events, this.topic, this.path);
+        if (reader.contains(this.topic, this.path)) {
+            return true;
+        }
+        reader.update();
+        return reader.contains(this.topic, this.path);
     }
 
     /**
@@ -80,20 +92,19 @@ public class EventPoller extends Polling {
      */
     public static long getLatestEventTimestamp(SlingClient client) throws ClientException {
 
-        JsonNode eventData = JsonUtils.getJsonNodeFromString(client.doGet(EVENT_URL, SC_OK).getContent());
-        JsonNode allEvents = eventData.get("data");
-
-        long mostRecent = 0;
-        for (Iterator<JsonNode> it = allEvents.elements(); it.hasNext(); ) {
-            JsonNode event = it.next();
+        long[] mostRecent = {0};
+        int[] count = {0};
+        JsonStreamUtils.forEachElement(client.doStreamGet(EVENT_URL, null, null, SC_OK), "data", event -> {
             long received = event.get("received").longValue();
-
-            if (received > mostRecent) {
-                mostRecent = received;
+            // the web console lists the newest events first: a second event older than the first one ends the read
+            if (++count[0] == 2 && received < mostRecent[0]) {
+                return false;
             }
-        }
+            mostRecent[0] = Math.max(mostRecent[0], received);
+            return true;
+        });
 
-        return mostRecent;
+        return mostRecent[0];
     }
 
     /**
@@ -106,17 +117,14 @@ public class EventPoller extends Polling {
      */
     public static JsonNode getEventsSince(SlingClient client, long timestamp) throws ClientException {
 
-        JsonNode eventData = JsonUtils.getJsonNodeFromString(client.doGet(EVENT_URL, SC_OK).getContent());
-        JsonNode allEvents = eventData.get("data");
-        ArrayNode events  = new ObjectMapper().createArrayNode();
-
-        for (Iterator<JsonNode> it = allEvents.elements(); it.hasNext(); ) {
-            JsonNode event = it.next();
-
+        ArrayNode events = JsonStreamUtils.getMapper().createArrayNode();
+        // only the events received after timestamp are kept in memory
+        JsonStreamUtils.forEachElement(client.doStreamGet(EVENT_URL, null, null, SC_OK), "data", event -> {
             if (event.get("received").longValue() > timestamp) {
                 events.add(event);
             }
-        }
+            return true;
+        });
 
         return events;
     }
@@ -171,6 +179,17 @@ public class EventPoller extends Polling {
     public static boolean checkEventOccurrence(SlingClient client, String topic, String path, long since)
             throws InterruptedException {
 
+        if (PollingHub.isEnabled()) {
+            try {
+                PollingHub.getDefault().waitUntil(PollingHub.Resource.eventLog(client, since),
+                        reader -> reader.getReceived(topic, path) > since, 5000, 100);
+                return true;
+            } catch (TimeoutException e) {
+                LOG.warn("Timeout while polling for event " + topic + " at " + path + ".", e);
+                return false;
+            }
+        }
+
         EventPoller poller = new EventPoller(client, topic, path, since);
         try {
             poller.poll(5000, 100);
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.polling;
+
+import com.adobe.cq.testing.client.ReplicationClient;
+import com.adobe.cq.testing.client.WorkflowClient;
+import com.adobe.cq.testing.client.workflow.HistoryItem;
+import com.adobe.cq.testing.util.ThreadUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.sling.testing.clients.SlingClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * <p>Central poller coalescing the waiters of the same resource. Each waiter registers a predicate against a
+ * {@link Resource}; the hub fetches every resource once per tick, evaluates the predicates of all its waiters
+ * against that snapshot and completes the futures of the satisfied ones. N tests waiting on the publish
+ * replication queue, the event log or a workflow history cost one request per interval instead of N.</p>
+ *
+ * <p>A resource is fetched at the shortest interval requested by its waiters, and no longer once it has none.
+ * As with {@link BackoffPolling}, a failing fetch or predicate does not end the wait: it is retried on the next
+ * tick, and reported as the cause of the {@link TimeoutException} if the waiter times out.</p>
+ *
+ * <p>{@link #getDefault()} is shared by the whole JVM. Setting the {@value #ENABLED_PROP} system property makes
+ * {@link ReplicationClient#waitAgentReplicationQueueIsEmpty} and {@link EventPoller#checkEventOccurrence} wait
+ * through it.</p>
+ */
+public class PollingHub implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PollingHub.class);
+
+    /**
+     * System property routing the waits of the clients through the default hub
+     */
+    public static final String ENABLED_PROP = "cq.testing.polling.hub";
+
+    /**
+     * System property with the number of threads fetching the resources of the default hub
+     */
+    public static final String THREADS_PROP = "cq.testing.polling.hub.threads";
+
+    private static PollingHub defaultHub;
+
+    // one reader per user and instance, kept across the subscriptions so that each update only reads the new events
+    private static final Map<String, EventLogReader> EVENT_LOGS = new ConcurrentHashMap<>();
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, Subscription<?>> subscriptions = new HashMap<>();
+    private final AtomicLong fetches = new AtomicLong();
+
+    /**
+     * Creates a hub with {@value #THREADS_PROP} threads, 4 by default
+     */
+    public PollingHub() {
+        this(Integer.getInteger(THREADS_PROP, 4));
+    }
+
+    /**
+     * @param threads number of platform threads fetching the resources; on virtual threads, each fetch gets its
+     *            own thread
+     */
+    public PollingHub(int threads) {
+        this.scheduler = ThreadUtils.newScheduledExecutor("polling-hub", threads, false);
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return the hub shared by the whole JVM, created on first use
+     */
+    public static synchronized PollingHub getDefault() {
+        if (defaultHub == null) {
+            defaultHub = new PollingHub();
+        }
+        return defaultHub;
+    }
+
+    /**
+     * @return {@code true} if the {@value #ENABLED_PROP} system property is set
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROP);
+    }
+
+    /**
+     * Registers a waiter. The resource is fetched right away if no other waiter uses it, on its next tick
+     * otherwise.
+     *
+     * @param resource the resource to fetch; if a resource with the same key is already polled, its fetcher is used
+     * @param condition evaluated against each snapshot of the resource
+     * @param timeout max time to wait, in milliseconds
+     * @param interval time between two fetches of the resource, in milliseconds
+     * @param <T> the type of the snapshots
+     * @return a future completed with the first snapshot satisfying {@code condition}, or with a
+     *         {@link TimeoutException}. Cancelling it unregisters the waiter.
+     */
+    public <T> CompletableFuture<T> await(Resource<T> resource, Predicate<? super T> condition, long timeout,
+                                          long interval) {
+        Waiter<T> waiter = new Waiter<>(condition, timeout);
+        synchronized (this) {
+            if (scheduler.isShutdown()) {
+                throw new IllegalStateException("The polling hub is closed");
+            }
+            @SuppressWarnings("unchecked")
+            Subscription<T> subscription = (Subscription<T>) subscriptions.get(resource.getKey());
+            if (subscription == null) {
+                subscription = new Subscription<>(resource);
+                subscriptions.put(resource.getKey(), subscription);
+            }
+            subscription.add(waiter, Math.max(1, interval));
+        }
+        return waiter.future;
+    }
+
+    /**
+     * Waits until a snapshot of the resource satisfies {@code condition}.
+     *
+     * @param resource the resource to fetch
+     * @param condition evaluated against each snapshot of the resource
+     * @param timeout max time to wait, in milliseconds
+     * @param interval time between two fetches of the resource, in milliseconds
+     * @param <T> the type of the snapshots
+     * @return the first snapshot satisfying the condition
+     * @throws TimeoutException if the condition is not satisfied after {@code timeout}
+     * @throws InterruptedException to mark this method as waiting
+     */
+    public <T> T waitUntil(Resource<T> resource, Predicate<? super T> condition, long timeout, long interval)
+            throws TimeoutException, InterruptedException {
+        CompletableFuture<T> future = await(resource, condition, timeout, interval);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) e.getCause();
+            }
+            throw new IllegalStateException("Unexpected failure while waiting for " + resource.getKey(), e);
+        }
+    }
+
+    /**
+     * @return the number of resources being polled
+     */
+    public synchronized int getResourceCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return the number of waiters of all the resources
+     */
+    public synchronized int getWaiterCount() {
+        int count = 0;
+        for (Subscription<?> subscription : subscriptions.values()) {
+            count += subscription.waiters.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of fetches done since the creation of the hub
+     */
+    public long getFetchCount() {
+        return fetches.get();
+    }
+
+    /**
+     * Stops polling, the pending waits are cancelled
+     */
+    @Override
+    public void close() {
+        List<Waiter<?>> pending = new ArrayList<>();
+        synchronized (this) {
+            scheduler.shutdownNow();
+            for (Subscription<?> subscription : subscriptions.values()) {
+                pending.addAll(subscription.waiters);
+            }
+            subscriptions.clear();
+        }
+        synchronized (PollingHub.class) {
+            if (defaultHub == this) {
+                defaultHub = null;
+            }
+        }
+        pending.forEach(waiter -> waiter.future.cancel(false));
+    }
+
+    /**
+     * A resource polled by the hub, identified by a key: two resources with the same key must return the same
+     * content.
+     *
+     * @param <T> the type of the snapshots
+     */
+    public static final class Resource<T> {
+
+        private final String key;
+        private final Fetcher<T> fetcher;
+
+        private Resource(String key, Fetcher<T> fetcher) {
+            this.key = key;
+            this.fetcher = fetcher;
+        }
+
+        /**
+         * @param key identifies the resource
+         * @param fetcher reads a snapshot of the resource
+         * @param <T> the type of the snapshots
+         * @return the resource
+         */
+        public static <T> Resource<T> of(String key, Fetcher<T> fetcher) {
+            return new Resource<>(key, fetcher);
+        }
+
+        /**
+         * @param client the client requesting the path
+         * @param path the path to request
+         * @return the HTTP status of a GET of the path, as checked by {@link StatusPoller}
+         */
+        public static Resource<Integer> status(SlingClient client, String path) {
+            return of(key(client, "status", path), () -> client.doGet(path).getStatusLine().getStatusCode());
+        }
+
+        /**
+         * @param client the client of the author instance
+         * @param agentPath path to the agent
+         * @return the queue of a replication agent, as checked by
+         *         {@link ReplicationClient.EmptyReplicationQueuePoller}
+         */
+        public static Resource<JsonNode> replicationQueue(ReplicationClient client, String agentPath) {
+            return of(key(client, "queue", agentPath), () -> client.getAgentReplicationQueue(agentPath));
+        }
+
+        /**
+         * @param client the workflow client
+         * @param instancePath path to the workflow instance
+         * @return the history of a workflow instance, as checked by {@link WorkflowInstanceHistoryPoller}
+         */
+        public static Resource<List<HistoryItem>> workflowHistory(WorkflowClient client, String instancePath) {
+            return of(key(client, "history", instancePath), () -> client.getWorkflowInstanceHistory(instancePath));
+        }
+
+        /**
+         * The OSGi event log, read incrementally by a single {@link EventLogReader} per user and instance, kept by
+         * the hub from one wait to the next. The reader is replaced by one starting at {@code since} only if it
+         * started later. Wait for an event received after {@code since} with
+         * {@code reader -> reader.getReceived(topic, path) > since}.
+         *
+         * @param client the client reading the log
+         * @param since the time from which on the waiter considers events
+         * @return the reader of the event log, updated on each tick
+         */
+        public static Resource<EventLogReader> eventLog(SlingClient client, long since) {
+            String key = key(client, "events", EventLogReader.EVENT_URL);
+            EVENT_LOGS.compute(key, (k, reader) ->
+                    reader != null && reader.getSince() <= since ? reader : new EventLogReader(client, since));
+            return of(key, () -> {
+                // the current reader, a waiter with an older since may have replaced it since the subscription
+                EventLogReader reader = EVENT_LOGS.computeIfAbsent(key, k -> new EventLogReader(client, since));
+                reader.update();
+                return reader;
+            });
+        }
+
+        /**
+         * @return the key identifying the resource
+         */
+        public String getKey() {
+            return key;
+        }
+
+        private static String key(SlingClient client, String type, String path) {
+            // the user is part of the key, as the content depends on its permissions
+            return type + " " + client.getUser() + "@" + client.getUrl() + " " + path;
+        }
+    }
+
+    /**
+     * Reads a snapshot of a resource
+     *
+     * @param <T> the type of the snapshots
+     */
+    @FunctionalInterface
+    public interface Fetcher<T> {
+        T fetch() throws Exception;
+    }
+
+    private static final class Waiter<T> {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Predicate<? super T> condition;
+        private final long timeout;
+        private final long deadline;
+        private Exception lastException;
+
+        Waiter(Predicate<? super T> condition, long timeout) {
+            this.condition = condition;
+            this.timeout = timeout;
+            this.deadline = System.currentTimeMillis() + timeout;
+        }
+    }
+
+    private final class Subscription<T> implements Runnable {
+
+        private final Resource<T> resource;
+        private final List<Waiter<T>> waiters = new ArrayList<>();
+        private long interval = Long.MAX_VALUE;
+        private ScheduledFuture<?> task;
+        private boolean running;
+
+        Subscription(Resource<T> resource) {
+            this.resource = resource;
+        }
+
+        // called with the hub lock
+        void add(Waiter<T> waiter, long waiterInterval) {
+            waiters.add(waiter);
+            if (waiterInterval < interval) {
+                long delay = task == null ? 0 : waiterInterval;
+                if (task != null) {
+                    task.cancel(false);
+                }
+                interval = waiterInterval;
+                task = scheduler.scheduleWithFixedDelay(this, delay, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Waiter<T>> current;
+            synchronized (PollingHub.this) {
+                // a rescheduled task can overlap with a slow fetch
+                if (running) {
+                    return;
+                }
+                running = true;
+                current = new ArrayList<>(waiters);
+            }
+            try {
+                tick(current);
+            } finally {
+                synchronized (PollingHub.this) {
+                    running = false;
+                    waiters.removeIf(waiter -> waiter.future.isDone());
+                    if (waiters.isEmpty() && task != null) {
+                        task.cancel(false);
+                        subscriptions.remove(resource.getKey(), this);
+                    }
+                }
+            }
+        }
+
+        private void tick(List<Waiter<T>> current) {
+            T snapshot = null;
+            Exception failure = null;
+            try {
+                snapshot = resource.fetcher.fetch();
+            } catch (Exception e) {
+                LOG.debug("Could not fetch {}", resource.getKey(), e);
+                failure = e;
+            } finally {
+                fetches.incrementAndGet();
+            }
+
+            long now = System.currentTimeMillis();
+            for (Waiter<T> waiter : current) {
+                if (waiter.future.isDone()) {
+                    continue;
+                }
+                if (failure == null) {
+                    try {
+                        if (waiter.condition.test(snapshot)) {
+                            waiter.future.complete(snapshot);
+                            continue;
+                        }
+                    } catch (RuntimeException e) {
+                        waiter.lastException = e;
+                    }
+                } else {
+                    waiter.lastException = failure;
+                }
+                if (now >= waiter.deadline) {
+                    TimeoutException timeout = new TimeoutException("Condition on " + resource.getKey()
+                            + " not satisfied after " + waiter.timeout + "ms");
+                    timeout.initCause(waiter.lastException);
+                    waiter.future.completeExceptionally(timeout);
+                }
+            }
+        }
+    }
+}
@@ -19,9 +19,8 @@ package com.adobe.cq.testing.polling;
 import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingClient;
 import org.apache.sling.testing.clients.SlingHttpResponse;
-import org.apache.sling.testing.clients.util.poller.Polling;
 
-public class StatusPoller extends Polling {
+public class StatusPoller extends BackoffPolling {
 
     public Exception storedException;
     SlingHttpResponse response;
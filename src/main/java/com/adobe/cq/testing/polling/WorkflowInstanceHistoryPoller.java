@@ -18,7 +18,6 @@ package com.adobe.cq.testing.polling;
 import com.adobe.cq.testing.client.WorkflowClient;
 import com.adobe.cq.testing.client.workflow.HistoryItem;
 import org.apache.sling.testing.clients.ClientException;
-import org.apache.sling.testing.clients.util.poller.Polling;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +33,7 @@ import java.util.List;
  * number of attempts before it abort the polling
  *
  */
-public class WorkflowInstanceHistoryPoller extends Polling {
+public class WorkflowInstanceHistoryPoller extends BackoffPolling {
 
     private Logger LOG = LoggerFactory.getLogger(WorkflowInstanceHistoryPoller.class);
 
@@ -88,15 +87,50 @@ public class WorkflowInstanceHistoryPoller extends Polling {
      *         the history items
      */
     private boolean hasState(List<HistoryItem> historyItems) {
-        boolean found = false;
+        return hasState(historyItems, expectedProcess, expectedStatus);
+    }
+
+    /**
+     * Checks that the history items contain the given process with the given status
+     *
+     * @param historyItems
+     *            history items as a list
+     * @param expectedProcess
+     *            the process title that is expected to be found in the history
+     *            items
+     * @param expectedStatus
+     *            the status of that history item (i.e completed, active etc..)
+     * @return true if the expected status and expected process are present in
+     *         the history items
+     */
+    public static boolean hasState(List<HistoryItem> historyItems, String expectedProcess, String expectedStatus) {
+        return findState(historyItems, expectedProcess, expectedStatus) != null;
+    }
+
+    /**
+     * Finds the first history item of the given process with the given status
+     *
+     * @param historyItems
+     *            history items as a list
+     * @param expectedProcess
+     *            the process title that is expected to be found in the history
+     *            items
+     * @param expectedStatus
+     *            the status of that history item (i.e completed, active etc..)
+     * @return the matching history item, or null if there is none
+     */
+    public static HistoryItem findState(List<HistoryItem> historyItems, String expectedProcess,
+                                        String expectedStatus) {
         Iterator<HistoryItem> historyEntryIterator = historyItems.iterator();
-        while (!found && historyEntryIterator.hasNext()) {
+        while (historyEntryIterator.hasNext()) {
             // read the history and map
             HistoryItem historyItem = historyEntryIterator.next();
             String historyProcess = historyItem.getProcess();
             String status = historyItem.getStatus();
-            found = historyProcess.equals(expectedProcess) && status.equals(expectedStatus);
+            if (historyProcess.equals(expectedProcess) && status.equals(expectedStatus)) {
+                return historyItem;
+            }
         }
-        return found;
+        return null;
     }
 }
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.apache.http.HttpEntity;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.util.EntityUtils;
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Shared Jackson pipeline reading JSON responses directly from the response entity stream, instead of
+ * buffering the whole body with {@link SlingHttpResponse#getContent()} and parsing the resulting String.</p>
+ *
+ * <p>The response passed to the methods of this class should come from one of the {@code doStream*} methods of
+ * the client (e.g. {@code doStreamGet}), so that its entity has not been consumed yet. A response that was
+ * already consumed is parsed from its buffered content. In both cases the response is closed when the method
+ * returns.</p>
+ *
+ * <p>Three modes are available:</p>
+ * <ul>
+ *     <li>tree: {@link #readTree(SlingHttpResponse)} builds a {@link JsonNode}</li>
+ *     <li>typed binding: {@link #readValue(SlingHttpResponse, Class)} maps the body into a DTO</li>
+ *     <li>token stream: {@link #parse(SlingHttpResponse, ParserHandler)} and
+ *     {@link #forEachElement(SlingHttpResponse, String, ElementVisitor)} never hold more than one element of the
+ *     payload in memory</li>
+ *     <li>lazy stream: {@link #streamElements(SlingHttpResponse, String)} reads the elements of an array as they
+ *     are consumed, the response being closed with the stream</li>
+ * </ul>
+ */
+public final class JsonStreamUtils {
+
+    // above this, opening a new connection is cheaper than reading the rest of an abandoned response
+    private static final long MAX_DRAINED_BYTES = 64 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private JsonStreamUtils() {
+    }
+
+    /**
+     * Handles the token stream of a response.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface ParserHandler<T> {
+        T handle(JsonParser parser) throws IOException, ClientException;
+    }
+
+    /**
+     * Visits the elements of a JSON array one at a time.
+     */
+    @FunctionalInterface
+    public interface ElementVisitor {
+        /**
+         * @param element the current element
+         * @return {@code true} to continue with the next element, {@code false} to stop reading the response
+         * @throws ClientException to abort reading the response
+         */
+        boolean visit(JsonNode element) throws ClientException;
+    }
+
+    /**
+     * @return the shared, thread safe, mapper. It must not be reconfigured.
+     */
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * @return the factory of the shared mapper, to create parsers and generators
+     */
+    public static JsonFactory getFactory() {
+        return MAPPER.getFactory();
+    }
+
+    /**
+     * Parses the body of the response into a tree.
+     *
+     * @param response the response to read
+     * @return the root node, or a {@link MissingNode} if the body is empty
+     * @throws ClientException if the body cannot be read or is not valid JSON
+     */
+    public static JsonNode readTree(SlingHttpResponse response) throws ClientException {
+        return parse(response, parser -> {
+            JsonNode node = MAPPER.readTree(parser);
+            return node != null ? node : MissingNode.getInstance();
+        });
+    }
+
+    /**
+     * Maps the body of the response into an instance of {@code type}. Unknown properties are ignored.
+     *
+     * @param response the response to read
+     * @param type     the class to map the body into
+     * @param <T>      the result type
+     * @return the mapped value
+     * @throws ClientException if the body cannot be read or mapped
+     */
+    public static <T> T readValue(SlingHttpResponse response, Class<T> type) throws ClientException {
+        return parse(response, parser -> MAPPER.readValue(parser, type));
+    }
+
+    /**
+     * Maps the body of the response into an instance of a generic type.
+     *
+     * @param response the response to read
+     * @param type     the type to map the body into
+     * @param <T>      the result type
+     * @return the mapped value
+     * @throws ClientException if the body cannot be read or mapped
+     */
+    public static <T> T readValue(SlingHttpResponse response, TypeReference<T> type) throws ClientException {
+        return parse(response, parser -> MAPPER.readValue(parser, type));
+    }
+
+    /**
+     * Streams the elements of an array of the response. The array is either the root of the body, if
+     * {@code field} is {@code null}, or the value of the top level {@code field}. Other top level fields are
+     * skipped without being parsed into nodes.
+     *
+     * @param response the response to read
+     * @param field    the top level field holding the array, or {@code null} if the body is an array
+     * @param visitor  called for each element, until it returns {@code false}
+     * @return the number of visited elements
+     * @throws ClientException if the body cannot be read, or if the visitor throws it
+     */
+    public static int forEachElement(SlingHttpResponse response, String field, ElementVisitor visitor)
+            throws ClientException {
+        return parse(response, parser -> {
+            int count = 0;
+            if (!moveToArray(parser, field)) {
+                return count;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                count++;
+                if (!visitor.visit(MAPPER.readTree(parser))) {
+                    break;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Hands the token stream of the body to {@code handler}, then closes the response. The remaining content is
+     * consumed if the handler read the whole document or if little is left, so that the connection can be reused.
+     * Otherwise the connection is closed, instead of downloading a large remainder nobody reads.
+     *
+     * @param response the response to read
+     * @param handler  reads the token stream
+     * @param <T>      the result type
+     * @return the result of the handler
+     * @throws ClientException if the body cannot be read, or if the handler throws it
+     */
+    public static <T> T parse(SlingHttpResponse response, ParserHandler<T> handler) throws ClientException {
+        try (SlingHttpResponse r = response) {
+            HttpEntity entity = r.getEntity();
+            if (r.isConsumed() || entity == null) {
+                try (JsonParser parser = getFactory().createParser(nullToEmpty(r.getContent()))) {
+                    return handler.handle(parser);
+                }
+            }
+            try (InputStream in = entity.getContent(); JsonParser parser = getFactory().createParser(in)) {
+                T result = handler.handle(parser);
+                release(entity, in, parser);
+                return result;
+            }
+        } catch (IOException e) {
+            throw new ClientException("Could not parse JSON response", e);
+        }
+    }
+
+    /**
+     * Streams the elements of an array of the response as {@link #forEachElement(SlingHttpResponse, String,
+     * ElementVisitor)}, but lazily: an element is parsed when the stream consumer asks for it, so that
+     * {@code findFirst()} or {@code anyMatch()} stop reading the response. The response is closed when the
+     * stream is closed or consumed entirely; close the stream when it is not consumed entirely.
+     *
+     * @param response the response to read
+     * @param field    the top level field holding the array, or {@code null} if the body is an array
+     * @return the elements of the array
+     * @throws ClientException if the body cannot be read
+     */
+    public static Stream<JsonNode> streamElements(SlingHttpResponse response, String field) throws ClientException {
+        ElementIterator iterator = new ElementIterator(response);
+        try {
+            iterator.open(field);
+        } catch (IOException | RuntimeException e) {
+            iterator.close();
+            throw new ClientException("Could not parse JSON response", e);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    private static void release(HttpEntity entity, InputStream in, JsonParser parser) throws IOException {
+        if (parser.getParsingContext().inRoot()) {
+            EntityUtils.consumeQuietly(entity);
+        } else if (in instanceof ConnectionReleaseTrigger && isLargeRemainder(entity, parser)) {
+            ((ConnectionReleaseTrigger) in).abortConnection();
+        }
+    }
+
+    private static boolean isLargeRemainder(HttpEntity entity, JsonParser parser) {
+        long length = entity.getContentLength();
+        return length < 0 || length - parser.getCurrentLocation().getByteOffset() > MAX_DRAINED_BYTES;
+    }
+
+    private static boolean moveToArray(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (field == null) {
+            return token == JsonToken.START_ARRAY;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals(name) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s != null ? s : "";
+    }
+
+    /**
+     * Reads the elements of an array one at a time, keeping the response open until the last one or until closed
+     */
+    private static final class ElementIterator implements Iterator<JsonNode> {
+        private final SlingHttpResponse response;
+        private InputStream in;
+        private JsonParser parser;
+        private JsonNode next;
+        private boolean done;
+
+        ElementIterator(SlingHttpResponse response) {
+            this.response = response;
+        }
+
+        void open(String field) throws IOException {
+            HttpEntity entity = response.getEntity();
+            if (response.isConsumed() || entity == null) {
+                parser = getFactory().createParser(nullToEmpty(response.getContent()));
+            } else {
+                in = entity.getContent();
+                parser = getFactory().createParser(in);
+            }
+            done = !moveToArray(parser, field);
+            if (done) {
+                close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        close();
+                    } else {
+                        next = MAPPER.readTree(parser);
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException("Could not parse JSON response", e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public JsonNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JsonNode element = next;
+            next = null;
+            return element;
+        }
+
+        void close() {
+            if (done && parser == null) {
+                return;
+            }
+            done = true;
+            try (SlingHttpResponse r = response) {
+                if (parser != null) {
+                    try (InputStream stream = in; JsonParser p = parser) {
+                        if (stream != null) {
+                            release(r.getEntity(), stream, p);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // the elements were read, only the connection can not be reused
+            } finally {
+                parser = null;
+            }
+        }
+    }
+}
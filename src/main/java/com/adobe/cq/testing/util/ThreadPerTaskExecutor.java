@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a new thread for each task, the way virtual threads are meant to be used. When the number of tasks
+ * running at the same time is bounded, the other tasks wait in submission order for a permit of a
+ * {@link Semaphore}, without a thread.
+ */
+final class ThreadPerTaskExecutor extends AbstractExecutorService {
+
+    private final ThreadFactory factory;
+    // null when not bounded
+    private final Semaphore permits;
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+    private final Set<Thread> threads = new HashSet<>();
+    private boolean shutdown;
+
+    /**
+     * @param factory creates a thread for each task
+     * @param maxConcurrency the max number of tasks running at the same time, 0 for no limit
+     */
+    ThreadPerTaskExecutor(ThreadFactory factory, int maxConcurrency) {
+        this.factory = factory;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+    }
+
+    @Override
+    public synchronized void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("The executor is shut down");
+        }
+        queue.add(command);
+        startQueued();
+    }
+
+    // holding the lock
+    private void startQueued() {
+        while (!queue.isEmpty() && (permits == null || permits.tryAcquire())) {
+            Runnable task = queue.poll();
+            Thread thread = factory.newThread(() -> run(task));
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                threads.remove(Thread.currentThread());
+                if (permits != null) {
+                    permits.release();
+                }
+                startQueued();
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>(queue);
+        queue.clear();
+        threads.forEach(Thread::interrupt);
+        notifyAll();
+        return pending;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && queue.isEmpty() && threads.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.util;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scheduled executor keeping a single platform thread as timer: when a task is due, it runs on its own thread of a
+ * {@link ThreadPerTaskExecutor}. A periodic task is scheduled again once its run ended, so its runs never overlap.
+ */
+final class ThreadPerTaskScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+    private final ThreadPerTaskExecutor runner;
+
+    /**
+     * @param prefix prefix of the name of the timer thread
+     * @param factory creates a thread for each run
+     * @param maxConcurrency the max number of tasks running at the same time, 0 for no limit
+     */
+    ThreadPerTaskScheduledExecutor(String prefix, ThreadFactory factory, int maxConcurrency) {
+        super(1, ThreadUtils.newThreadFactory(prefix + "-timer", true, false));
+        this.runner = new ThreadPerTaskExecutor(factory, maxConcurrency);
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        return new HandOff<>(task);
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+        return new HandOff<>(task);
+    }
+
+    @Override
+    protected void terminated() {
+        // the runs already handed off still end
+        runner.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = super.shutdownNow();
+        runner.shutdownNow();
+        return pending;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return super.isTerminated() && runner.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return super.awaitTermination(timeout, unit)
+                && runner.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queued in the timer in place of the task, hands it off to the runner when due
+     */
+    private final class HandOff<V> implements RunnableScheduledFuture<V> {
+
+        private final RunnableScheduledFuture<V> task;
+
+        HandOff(RunnableScheduledFuture<V> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runner.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = task.cancel(mayInterruptIfRunning);
+            if (cancelled && getRemoveOnCancelPolicy()) {
+                remove(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return task.isPeriodic();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return task.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            // keeps the submission order of the tasks due at the same time
+            return task.compareTo(other instanceof HandOff ? ((HandOff<?>) other).task : other);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            return task.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return task.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Creates the threads of the runners, pollers and asynchronous clients of this library. Everything they run is
+ * blocking I/O (HTTP calls and polling sleeps), so on a JDK with virtual threads (21+) each task gets its own
+ * virtual thread and thousands of concurrent waits cost almost nothing; the number of tasks running at the same
+ * time is only bounded where the caller asked for it. The library is built for Java 8: virtual threads are looked
+ * up at runtime.</p>
+ *
+ * <p>Set the {@value #VIRTUAL_THREADS_PROP} system property to {@code false} to use platform threads on any
+ * JDK.</p>
+ */
+public final class ThreadUtils {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ThreadUtils.class);
+
+    /**
+     * System property disabling the virtual threads when set to {@code false}
+     */
+    public static final String VIRTUAL_THREADS_PROP = "cq.testing.virtualThreads";
+
+    // Thread.ofVirtual(), OfVirtual.name(String, long) and Builder.factory(), null before JDK 21
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = Class.forName("java.lang.Thread$Builder$OfVirtual").getMethod("name", String.class, long.class);
+            factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+        } catch (ReflectiveOperationException e) {
+            LOG.debug("Virtual threads are not available on Java {}", System.getProperty("java.version"));
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private ThreadUtils() {
+    }
+
+    /**
+     * @return {@code true} if the JDK supports virtual threads
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return {@code true} if the JDK supports virtual threads and they are not disabled by
+     *         {@value #VIRTUAL_THREADS_PROP}
+     */
+    public static boolean useVirtualThreads() {
+        return isVirtualThreadsSupported()
+                && !"false".equalsIgnoreCase(System.getProperty(VIRTUAL_THREADS_PROP));
+    }
+
+    /**
+     * @param prefix prefix of the thread names, followed by a counter
+     * @param daemon whether the platform threads are daemon threads; virtual threads always are
+     * @return a factory of virtual threads if {@link #useVirtualThreads()}, of platform threads otherwise
+     */
+    public static ThreadFactory newThreadFactory(String prefix, boolean daemon) {
+        return newThreadFactory(prefix, daemon, useVirtualThreads());
+    }
+
+    /**
+     * @param prefix prefix of the thread names, followed by a counter
+     * @param daemon whether the platform threads are daemon threads; virtual threads always are
+     * @param virtual {@code true} for virtual threads, {@code false} for platform threads
+     * @return the thread factory
+     * @throws UnsupportedOperationException if virtual threads are requested but not supported by the JDK
+     */
+    public static ThreadFactory newThreadFactory(String prefix, boolean daemon, boolean virtual) {
+        if (virtual) {
+            if (!isVirtualThreadsSupported()) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21, running on "
+                        + System.getProperty("java.version"));
+            }
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix + "-", 1L);
+                return (ThreadFactory) FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a virtual thread factory", e);
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(daemon);
+            return t;
+        };
+    }
+
+    /**
+     * With virtual threads, each task runs on a new virtual thread: a virtual thread is cheap to create and must not
+     * be pooled. With platform threads, the tasks run on a fixed pool whose idle threads end after a few seconds, so
+     * an executor that is not shut down leaves no thread behind.
+     *
+     * @param prefix prefix of the thread names
+     * @param threads number of platform threads of the pool
+     * @param bounded whether {@code threads} also bounds the number of tasks running at the same time on virtual
+     *            threads, because it is the number of concurrent requests or tests the caller asked for
+     * @param daemon whether the platform threads are daemon threads
+     * @return the executor, using {@link #newThreadFactory(String, boolean)}
+     */
+    public static ExecutorService newExecutor(String prefix, int threads, boolean bounded, boolean daemon) {
+        if (useVirtualThreads()) {
+            return new ThreadPerTaskExecutor(newThreadFactory(prefix, daemon, true), bounded ? threads : 0);
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), newThreadFactory(prefix, daemon, false));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * With virtual threads, a single platform thread waits for the tasks to be due, then each run is on a new
+     * virtual thread. With platform threads, the tasks run on a scheduled pool.
+     *
+     * @param prefix prefix of the thread names
+     * @param threads number of platform threads of the pool
+     * @param bounded whether {@code threads} also bounds the number of tasks running at the same time on virtual
+     *            threads
+     * @return a scheduled executor of daemon threads
+     */
+    public static ScheduledThreadPoolExecutor newScheduledExecutor(String prefix, int threads, boolean bounded) {
+        if (useVirtualThreads()) {
+            return new ThreadPerTaskScheduledExecutor(prefix, newThreadFactory(prefix, true, true),
+                    bounded ? threads : 0);
+        }
+        return new ScheduledThreadPoolExecutor(threads, newThreadFactory(prefix, true, false));
+    }
+}
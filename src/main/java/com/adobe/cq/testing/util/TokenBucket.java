@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of requests sent to an instance. The bucket holds up to {@code burst} tokens and is refilled at
+ * {@code permitsPerSecond}; {@link #acquire()} takes a token, waiting for one if the bucket is empty. The callers
+ * are served in the order they reserved their token, without holding a lock while waiting.
+ */
+public class TokenBucket {
+
+    private final double nanosPerPermit;
+    private final double burst;
+
+    // time at which the bucket was empty, it holds (now - emptyAt) / nanosPerPermit tokens, at most burst
+    private long emptyAt;
+
+    /**
+     * @param permitsPerSecond the sustained rate, {@code 0} or less for no limit
+     * @param burst the max number of permits acquired at once after an idle period, at least 1
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / permitsPerSecond : 0;
+        this.burst = Math.max(1, burst);
+        this.emptyAt = System.nanoTime() - (long) (this.burst * nanosPerPermit);
+    }
+
+    /**
+     * @param permitsPerSecond the sustained rate, {@code 0} or less for no limit
+     * @return a bucket without burst, spacing the permits evenly
+     */
+    public static TokenBucket of(double permitsPerSecond) {
+        return new TokenBucket(permitsPerSecond, 1);
+    }
+
+    /**
+     * Takes a permit, waiting until one is available
+     *
+     * @return the time waited, in nanoseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        if (nanosPerPermit == 0) {
+            return 0;
+        }
+        long wait = reserve(System.nanoTime());
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return wait;
+    }
+
+    /**
+     * @return the time to wait before using the reserved permit, in nanoseconds
+     */
+    private synchronized long reserve(long now) {
+        // the tokens accumulated while idle are capped to the burst
+        long earliest = now - (long) (burst * nanosPerPermit);
+        if (emptyAt < earliest) {
+            emptyAt = earliest;
+        }
+        emptyAt += (long) nanosPerPermit;
+        return Math.max(0, emptyAt - now);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 Adobe Systems Incorporated
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.cq.testing.client;
+
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class AsyncCQClientTest {
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        post("/bin/wcmcommand", (req, res) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (req.queryParams("label").startsWith("fail")) {
+                res.status(400);
+            }
+            return "";
+        });
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    private static AsyncCQClient client() throws ClientException {
+        return new CQClient(URI.create(String.format("http://localhost:%d", port())), "", "")
+                .adaptTo(AsyncCQClient.class);
+    }
+
+    @Test
+    public void testOperationsOverlap() throws Exception {
+        AsyncCQClient client = client();
+        List<CompletableFuture<SlingHttpResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(client.createPageAsync("page" + i, "Page " + i, "/content", ""));
+        }
+
+        List<SlingHttpResponse> responses = AsyncCQClient.awaitAll(futures);
+        assertEquals(8, responses.size());
+        assertTrue("Expected concurrent requests, max in flight was " + maxInFlight.get(), maxInFlight.get() > 1);
+    }
+
+    @Test(expected = ClientException.class)
+    public void testFailureIsPropagated() throws Exception {
+        AsyncCQClient client = client();
+        List<CompletableFuture<SlingHttpResponse>> futures = new ArrayList<>();
+        futures.add(client.createPageAsync("page", "Page", "/content", ""));
+        futures.add(client.createPageAsync("failing", "Page", "/content", ""));
+        AsyncCQClient.awaitAll(futures);
+    }
+}
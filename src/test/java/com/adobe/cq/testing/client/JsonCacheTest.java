@@ -0,0 +1,161 @@
+package com.adobe.cq.testing.client;
+
+import com.adobe.cq.testing.client.cache.JsonResponseCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class JsonCacheTest {
+
+    private static final AtomicInteger GETS = new AtomicInteger();
+    private static final AtomicInteger NOT_MODIFIED = new AtomicInteger();
+    private static final AtomicInteger VERSION = new AtomicInteger();
+    private static final CountDownLatch SLOW_READ_SENT = new CountDownLatch(1);
+    private static final CountDownLatch WRITE_DONE = new CountDownLatch(1);
+
+    private CQClient client;
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        get("/content/tagged/*", (req, res) -> {
+            GETS.incrementAndGet();
+            String etag = "\"" + VERSION.get() + "\"";
+            if (etag.equals(req.headers("If-None-Match"))) {
+                NOT_MODIFIED.incrementAndGet();
+                res.status(304);
+                return "";
+            }
+            res.header("ETag", etag);
+            return "{\"jcr:primaryType\":\"nt:unstructured\",\"version\":" + VERSION.get() + "}";
+        });
+        get("/content/slow/*", (req, res) -> {
+            GETS.incrementAndGet();
+            String body = "{\"version\":" + VERSION.get() + "}";
+            // the response reaches the client after the write
+            SLOW_READ_SENT.countDown();
+            WRITE_DONE.await(10, TimeUnit.SECONDS);
+            return body;
+        });
+        get("/content/plain/*", (req, res) -> {
+            GETS.incrementAndGet();
+            return "{\"version\":" + VERSION.get() + "}";
+        });
+        // only the dotted node exists
+        get("/content/dam/*", (req, res) -> {
+            GETS.incrementAndGet();
+            if (!req.pathInfo().startsWith("/content/dam/foo.png.")) {
+                res.status(404);
+                return "";
+            }
+            return "{\"jcr:primaryType\":\"dam:Asset\"}";
+        });
+        post("/content/*", (req, res) -> {
+            VERSION.incrementAndGet();
+            return "";
+        });
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        client = new CQClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        GETS.set(0);
+        NOT_MODIFIED.set(0);
+    }
+
+    @Test
+    public void testFreshEntriesAreServedFromCache() throws Exception {
+        client.enableJsonCache(60000);
+        client.doGetJson("/content/plain/a", 1);
+        client.doGetJson("/content/plain/a", 1);
+        assertTrue(client.exists("/content/plain/a"));
+        JsonResponseCache cache = client.getJsonCache();
+        assertEquals(1, GETS.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testDottedNodeNames() throws Exception {
+        client.enableJsonCache(60000);
+        client.doGetJson("/content/dam/foo.png", 1);
+        assertTrue(client.exists("/content/dam/foo.png"));
+        assertEquals(1, GETS.get());
+        // not the node name up to its first dot
+        assertFalse(client.exists("/content/dam/foo"));
+        assertEquals(2, GETS.get());
+
+        client.doGetJson("/content/dam/foo.png.thumb", 1);
+        client.doPost("/content/dam/foo", null);
+        client.doGetJson("/content/dam/foo.png", 1);
+        client.doGetJson("/content/dam/foo.png.thumb", 1);
+        assertEquals(3, GETS.get());
+        assertEquals(0, client.getJsonCache().getInvalidations());
+    }
+
+    @Test
+    public void testExpiredEntriesAreRevalidated() throws Exception {
+        client.enableJsonCache(0);
+        JsonNode first = client.doGetJson("/content/tagged/a", 1);
+        JsonNode second = client.doGetJson("/content/tagged/a", 1);
+        assertEquals(first, second);
+        assertEquals(2, GETS.get());
+        assertEquals(1, NOT_MODIFIED.get());
+        assertEquals(1, client.getJsonCache().getRevalidations());
+    }
+
+    @Test
+    public void testWritesInvalidateAncestors() throws Exception {
+        client.enableJsonCache(60000);
+        int before = client.doGetJson("/content/plain/a", 1).get("version").intValue();
+        client.doGetJson("/content/plain/other", 1);
+        client.doPost("/content/plain/a/child", null);
+        assertEquals(before + 1, client.doGetJson("/content/plain/a", 1).get("version").intValue());
+        client.doGetJson("/content/plain/other", 1);
+        assertEquals(3, GETS.get());
+        assertEquals(1, client.getJsonCache().getInvalidations());
+    }
+
+    @Test
+    public void testReadSentBeforeWriteIsNotCached() throws Exception {
+        client.enableJsonCache(60000);
+        CompletableFuture<JsonNode> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                return client.doGetJson("/content/slow/a", 1);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(SLOW_READ_SENT.await(10, TimeUnit.SECONDS));
+        client.doPost("/content/slow/a", null);
+        WRITE_DONE.countDown();
+        int stale = read.get(10, TimeUnit.SECONDS).get("version").intValue();
+
+        assertEquals(stale + 1, client.doGetJson("/content/slow/a", 1).get("version").intValue());
+        assertEquals(2, GETS.get());
+    }
+}
@@ -0,0 +1,240 @@
+package com.adobe.cq.testing.client;
+
+import com.adobe.cq.testing.client.workflow.HistoryItem;
+import com.adobe.cq.testing.client.workflow.WorkflowInstance;
+import com.adobe.cq.testing.client.workflow.WorkflowStart;
+import com.adobe.cq.testing.polling.Backoff;
+import org.apache.sling.testing.clients.ClientException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class WorkflowClientTest {
+
+    private static final String ACTIVE = "{\"historyItems\":[{\"process\":\"Step\",\"status\":\"Active\"}]}";
+    private static final String END_TIME = "Mon Jan 01 10:00:02 UTC 2024";
+    private static final String COMPLETED = "{\"historyItems\":[{\"process\":\"Step\",\"status\":\"Completed\"},"
+            + "{\"process\":\"End\",\"status\":\"Completed\",\"endTime\":\"" + END_TIME + "\"}]}";
+    private static final String COMPLETED_WITHOUT_DATE = "{\"historyItems\":["
+            + "{\"process\":\"End\",\"status\":\"Completed\"}]}";
+
+    // number of history requests after which an instance is completed
+    private static final Map<String, Integer> DURATIONS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> REQUESTS = new ConcurrentHashMap<>();
+    private static final AtomicInteger INSTANCE_REQUESTS = new AtomicInteger();
+    private static final AtomicInteger STARTS_IN_FLIGHT = new AtomicInteger();
+    private static final AtomicInteger MAX_STARTS_IN_FLIGHT = new AtomicInteger();
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        get("/libs/cq/workflow/content/console/history.json", (req, res) -> {
+            String instance = req.queryParams("workflow");
+            int requests = REQUESTS.computeIfAbsent(instance, k -> new AtomicInteger()).incrementAndGet();
+            if (requests < DURATIONS.getOrDefault(instance, Integer.MAX_VALUE)) {
+                return ACTIVE;
+            }
+            return instance.endsWith("/nodate") ? COMPLETED_WITHOUT_DATE : COMPLETED;
+        });
+        get("/etc/workflow/instances.RUNNING.json", (req, res) -> {
+            StringBuilder list = new StringBuilder("[");
+            for (int i = 0; i < 40; i++) {
+                list.append(i == 0 ? "" : ",").append("{\"uri\":\"/var/workflow/instances/list/").append(i).append('"');
+                // the model is listed for the first half only
+                if (i < 20) {
+                    list.append(",\"model\":\"").append(model(i)).append('"');
+                }
+                list.append('}');
+            }
+            return list.append(']').toString();
+        });
+        get("/var/workflow/instances/list/*", (req, res) -> {
+            String id = req.splat()[0].replace(".json", "");
+            INSTANCE_REQUESTS.incrementAndGet();
+            if ("7".equals(id)) {
+                // deleted since listed
+                res.status(404);
+                return "";
+            }
+            int i = Integer.parseInt(id);
+            return "{\"id\":\"" + id + "\",\"state\":\"RUNNING\",\"model\":\"" + model(i)
+                    + "\",\"payload\":\"/content/dam/" + i + "\"}";
+        });
+        post("/etc/workflow/instances", (req, res) -> {
+            String payload = req.queryParams("payload");
+            int inFlight = STARTS_IN_FLIGHT.incrementAndGet();
+            MAX_STARTS_IN_FLIGHT.accumulateAndGet(inFlight, Math::max);
+            try {
+                Thread.sleep(20);
+                if (payload.endsWith("/fail")) {
+                    res.status(500);
+                    return "";
+                }
+                res.status(201);
+                String instance = "/var/workflow/instances/started/" + payload.substring(payload.lastIndexOf('/') + 1);
+                return "<html><body><a href=\"" + instance + "\" id=\"Location\">" + instance + "</a></body></html>";
+            } finally {
+                STARTS_IN_FLIGHT.decrementAndGet();
+            }
+        });
+        awaitInitialization();
+    }
+
+    private static String model(int i) {
+        return i % 4 == 0 ? "/var/workflow/models/dam/update_asset" : "/var/workflow/models/other";
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Test
+    public void testWaitWorkflowInstancesHistory() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        List<String> instances = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String instance = "/var/workflow/instances/wait/" + i;
+            DURATIONS.put(instance, 1 + i % 4);
+            instances.add(instance);
+        }
+
+        Map<String, Long> reached = client.waitWorkflowInstancesHistory(instances, "End",
+                HistoryItem.STATUS_COMPLETED, 10000, Backoff.fixed(10), 4);
+
+        assertEquals(instances, new ArrayList<>(reached.keySet()));
+        long end = WorkflowClient.parseJSONDate(END_TIME).getTime();
+        for (String instance : instances) {
+            // the end date recorded by the server, not the time of the poll
+            assertEquals(end, (long) reached.get(instance));
+            // completed instances are not requested anymore
+            assertEquals((int) DURATIONS.get(instance), REQUESTS.get(instance).get());
+        }
+    }
+
+    @Test
+    public void testWaitWorkflowInstancesHistoryWithoutEndDate() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        String instance = "/var/workflow/instances/wait/nodate";
+        DURATIONS.put(instance, 2);
+
+        long start = System.currentTimeMillis();
+        Map<String, Long> reached = client.waitWorkflowInstancesHistory(Arrays.asList(instance), "End",
+                HistoryItem.STATUS_COMPLETED, 10000, Backoff.fixed(10), 1);
+
+        // the time at which the state was seen
+        assertTrue(reached.get(instance) >= start);
+        assertTrue(reached.get(instance) <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testWaitWorkflowInstancesHistoryTimeout() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        String done = "/var/workflow/instances/timeout/done";
+        String stuck = "/var/workflow/instances/timeout/stuck";
+        DURATIONS.put(done, 1);
+
+        try {
+            client.waitWorkflowInstancesHistory(Arrays.asList(done, stuck), "End",
+                    HistoryItem.STATUS_COMPLETED, 200, Backoff.fixed(10), 2);
+            fail("Expected a timeout");
+        } catch (ClientException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("1 of 2 workflow instances"));
+            assertTrue(e.getMessage(), e.getMessage().contains(stuck));
+        }
+    }
+
+    @Test
+    public void testGetWorkflowInstancesFiltered() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        INSTANCE_REQUESTS.set(0);
+
+        List<WorkflowInstance> instances = client.getWorkflowInstances(WorkflowClient.Status.RUNNING,
+                "/var/workflow/models/dam/update_asset", "/content/dam", null, null);
+
+        List<String> ids = new ArrayList<>();
+        instances.forEach(instance -> ids.add(instance.getId()));
+        assertEquals(Arrays.asList("0", "4", "8", "12", "16", "20", "24", "28", "32", "36"), ids);
+        // the first half is filtered on the list: 5 of them fetched, and the 20 of the second half
+        assertEquals(25, INSTANCE_REQUESTS.get());
+    }
+
+    @Test
+    public void testStreamWorkflowInstancesStopsEarly() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        INSTANCE_REQUESTS.set(0);
+
+        try (Stream<WorkflowInstance> instances = client.streamWorkflowInstances(WorkflowClient.Status.RUNNING,
+                null, "/content/dam/1", null, null, 2)) {
+            assertEquals("1", instances.findFirst().get().getId());
+        }
+        // the first instance and at most one more fetched ahead
+        assertTrue(INSTANCE_REQUESTS.get() <= 3);
+
+        // instance 7 can not be fetched
+        assertEquals(39, client.getWorkflowInstances(WorkflowClient.Status.RUNNING).size());
+    }
+
+    @Test
+    public void testStreamWorkflowInstanceURLsAndHistory() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        try (Stream<URI> urls = client.streamWorkflowInstanceURLs(WorkflowClient.Status.RUNNING)) {
+            assertEquals(URI.create("/var/workflow/instances/list/3"), urls.skip(3).findFirst().get());
+        }
+        assertEquals(40, client.getWorkflowInstanceURLs(WorkflowClient.Status.RUNNING).size());
+
+        String instance = "/var/workflow/instances/stream/done";
+        DURATIONS.put(instance, 1);
+        try (Stream<HistoryItem> history = client.streamWorkflowInstanceHistory(instance)) {
+            assertTrue(history.anyMatch(item -> "End".equals(item.getProcess())));
+        }
+        assertEquals(2, client.getWorkflowInstanceHistory(instance).size());
+    }
+
+    @Test
+    public void testStartWorkflows() throws Exception {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            payloads.add("/content/dam/bulk/" + (i == 5 ? "fail" : String.valueOf(i)));
+        }
+
+        long start = System.currentTimeMillis();
+        List<WorkflowStart> starts = client.startWorkflows("/var/workflow/models/dam/update_asset",
+                payloads.stream(), 100, 3);
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals(20, starts.size());
+        for (int i = 0; i < 20; i++) {
+            WorkflowStart workflowStart = starts.get(i);
+            assertEquals(payloads.get(i), workflowStart.getPayload());
+            assertEquals(i != 5, workflowStart.isStarted());
+            if (i != 5) {
+                assertEquals("/var/workflow/instances/started/" + i, workflowStart.getInstanceURI());
+            }
+            assertTrue(workflowStart.getSubmitted() >= start);
+        }
+        assertTrue(MAX_STARTS_IN_FLIGHT.get() <= 3);
+        // 20 starts at 100 per second
+        assertTrue("Took " + duration + "ms", duration >= 190);
+    }
+}
@@ -0,0 +1,154 @@
+package com.adobe.cq.testing.client;
+
+import com.adobe.cq.testing.client.cache.WorkflowModelCache;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.delete;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class WorkflowModelCacheTest {
+
+    private static final String MODEL = "/var/workflow/models/test";
+
+    private static final AtomicInteger GETS = new AtomicInteger();
+    private static final AtomicInteger VERSION = new AtomicInteger();
+    private static final AtomicInteger LAUNCHER_EDITS = new AtomicInteger();
+
+    private CQWorkflowClient client;
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        get("/etc/workflow/models.json", (req, res) -> {
+            GETS.incrementAndGet();
+            return "[{\"uri\":\"" + MODEL + "\",\"value\":\"" + MODEL + "\"}]";
+        });
+        get("/var/workflow/models/*", (req, res) -> {
+            GETS.incrementAndGet();
+            String version = req.splat()[0].replace("test", "").replace(".json", "");
+            return "{\"id\":\"" + MODEL + "\",\"version\":\"" + (version.isEmpty() ? "1." + VERSION.get()
+                    : version.substring(1)) + "\"}";
+        });
+        delete("/var/workflow/models/*", (req, res) -> {
+            VERSION.incrementAndGet();
+            res.status(204);
+            return "";
+        });
+        get("/etc/workflow/launcher/config.1.json", (req, res) -> {
+            GETS.incrementAndGet();
+            return "{\"launcher\":{\"enabled\":\"" + (LAUNCHER_EDITS.get() % 2 == 0) + "\",\"glob\":\"/content\"}}";
+        });
+        post("/libs/cq/workflow/launcher", (req, res) -> {
+            LAUNCHER_EDITS.incrementAndGet();
+            return "";
+        });
+        get("/etc/workflow/models/test/jcr:content.0.json", (req, res) -> {
+            GETS.incrementAndGet();
+            return "{\"transient\":\"true\"}";
+        });
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        client = new CQWorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        GETS.set(0);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        client.getWorkflowModels(null);
+        client.getWorkflowModels(null);
+        assertEquals(2, GETS.get());
+        assertEquals(null, client.getModelCache());
+    }
+
+    @Test
+    public void testModelsAreRequestedOnce() throws Exception {
+        client.enableModelCache();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(MODEL, client.getWorkflowModel(MODEL, null).getId());
+            client.getWorkflowModelAsJSON(MODEL, "HEAD");
+            client.getWorkflowModelAsJSON(MODEL, "1.0");
+            assertTrue(client.isWorkflowTransient("test"));
+            List<String> models = client.getWorkflowModels(WorkflowClient.MODEL_LIST_TYPE_ID);
+            assertEquals(MODEL, models.get(0));
+            // the caller gets a copy
+            models.clear();
+        }
+        // HEAD and null are the same version
+        assertEquals(4, GETS.get());
+        WorkflowModelCache cache = client.getModelCache();
+        assertEquals(4, cache.getMisses());
+        assertEquals(11, cache.getHits());
+
+        // an expected status always sends the request
+        client.getWorkflowModels(WorkflowClient.MODEL_LIST_TYPE_ID, 200);
+        assertEquals(5, GETS.get());
+    }
+
+    @Test
+    public void testDeleteInvalidatesTheModel() throws Exception {
+        client.enableModelCache();
+        String head = client.getWorkflowModelAsJSON(MODEL, null);
+        String version = client.getWorkflowModelAsJSON(MODEL, "1.0");
+        client.getWorkflowModels(null);
+        client.deleteModel(MODEL);
+
+        assertFalse(head.equals(client.getWorkflowModelAsJSON(MODEL, null)));
+        // a given version does not change
+        assertEquals(version, client.getWorkflowModelAsJSON(MODEL, "1.0"));
+        client.getWorkflowModels(null);
+        assertEquals(5, GETS.get());
+    }
+
+    @Test
+    public void testEditInvalidatesTheLaunchers() throws Exception {
+        client.enableModelCache();
+        Map<String, String> launcher = client.getWorkflowLauncher("launcher");
+        assertEquals(launcher, client.getWorkflowLauncher("launcher"));
+        assertEquals(1, GETS.get());
+
+        String enabled = launcher.get("enabled");
+        // reads the launcher from the cache, then invalidates it
+        client.editWorkflowLauncher("launcher", "glob", "/content/dam");
+        assertEquals(1, GETS.get());
+        assertFalse(enabled.equals(client.getWorkflowLauncher("launcher").get("enabled")));
+        assertEquals(2, GETS.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAreEvicted() throws Exception {
+        client.enableModelCache(2);
+        client.getWorkflowModelAsJSON(MODEL, "1.0");
+        client.getWorkflowModelAsJSON(MODEL, "1.1");
+        client.getWorkflowModelAsJSON(MODEL, "1.0");
+        client.getWorkflowModelAsJSON(MODEL, "1.2");
+        assertEquals(2, client.getModelCache().size());
+        // 1.1 was evicted
+        client.getWorkflowModelAsJSON(MODEL, "1.0");
+        client.getWorkflowModelAsJSON(MODEL, "1.1");
+        assertEquals(4, GETS.get());
+    }
+}
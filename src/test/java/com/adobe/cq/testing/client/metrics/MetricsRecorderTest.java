@@ -0,0 +1,104 @@
+package com.adobe.cq.testing.client.metrics;
+
+import com.adobe.cq.testing.client.CQClient;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class MetricsRecorderTest {
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        get("/content/*", (req, res) -> "{\"a\":1}");
+        get("/author/content/*", (req, res) -> "{\"a\":1}");
+        post("/author/bin/wcmcommand", (req, res) -> "");
+        post("/bin/wcmcommand", (req, res) -> {
+            res.status(400);
+            return "failed";
+        });
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Test
+    public void testNormalizer() {
+        EndpointNormalizer n = EndpointNormalizer.DEFAULT;
+        assertEquals("/bin/wcmcommand", n.normalize("/bin/wcmcommand"));
+        assertEquals("/libs/granite/qe/jobs.all.json", n.normalize("/libs/granite/qe/jobs.all.json?topic=x"));
+        assertEquals("*.initiateUpload.json", n.normalize("/content/dam/folder.initiateUpload.json"));
+        assertEquals("*", n.normalize("/content/site/page/jcr:content"));
+    }
+
+    @Test
+    public void testHistogramPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            h.record(i);
+        }
+        assertEquals(100000, h.getCount());
+        assertEquals(1, h.getMin());
+        assertEquals(100000, h.getMax());
+        assertWithin(50000, h.getValueAtPercentile(50));
+        assertWithin(99000, h.getValueAtPercentile(99));
+        assertWithin(99900, h.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void testRecordsRequests() throws Exception {
+        MetricsRecorder recorder = new MetricsRecorder();
+        CQClient client = CQClient.Builder.create(URI.create(String.format("http://localhost:%d", port())), "", "")
+                .enableMetrics(recorder).build();
+        client.doGetJson("/content/a", 1);
+        client.doGetJson("/content/b", 1);
+        client.doPost("/bin/wcmcommand", null, 400);
+
+        List<EndpointStats> endpoints = recorder.getEndpoints();
+        assertEquals(2, endpoints.size());
+        EndpointStats get = recorder.getStats("GET", "/content/c.1.json");
+        assertEquals(2, get.getLatency().getCount());
+        assertEquals(14, get.getBytesIn());
+        assertTrue(recorder.getStats("POST", "/bin/wcmcommand").getStatuses().containsKey(400));
+        assertTrue(recorder.toCsv().contains("\"GET *.1.json\",2,"));
+        assertEquals(2, recorder.toJson().get("endpoints").size());
+    }
+
+    @Test
+    public void testContextPathIsRemoved() throws Exception {
+        MetricsRecorder recorder = new MetricsRecorder();
+        CQClient client = CQClient.Builder.create(URI.create(String.format("http://localhost:%d/author/", port())),
+                "", "").enableMetrics(recorder).build();
+        client.doGetJson("/content/a", 1);
+        client.doPost("/bin/wcmcommand", null, 200);
+
+        assertEquals(1, recorder.getStats("GET", "/content/c.1.json").getLatency().getCount());
+        assertEquals(1, recorder.getStats("POST", "/bin/wcmcommand").getLatency().getCount());
+        assertEquals(2, recorder.getEndpoints().size());
+
+        MetricsInterceptor interceptor = new MetricsInterceptor(recorder, "/author/");
+        assertEquals("/bin/wcmcommand", interceptor.pathOf("/author/bin/wcmcommand?x=1"));
+        assertEquals("/", interceptor.pathOf("/author"));
+        assertEquals("/authoring/a", interceptor.pathOf("/authoring/a"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " expected but was " + actual,
+                actual >= expected && actual <= expected * 1.02);
+    }
+}
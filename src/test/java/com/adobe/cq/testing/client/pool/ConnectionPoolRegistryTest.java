@@ -0,0 +1,95 @@
+package com.adobe.cq.testing.client.pool;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ConnectionPoolRegistryTest {
+
+    private static AemStandInServer server;
+
+    private final ConnectionPoolRegistry registry = new ConnectionPoolRegistry();
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new AemStandInServer().start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @After
+    public void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void testPoolsAreKeyedByHostAndAuthContext() {
+        URI url = URI.create("http://localhost:4502/");
+        assertSame(registry.getConnectionManager(url, "basic"),
+                registry.getConnectionManager(URI.create("http://localhost:4502/content"), "basic"));
+        assertNotSame(registry.getConnectionManager(url, "basic"), registry.getConnectionManager(url, "cert"));
+        assertNotSame(registry.getConnectionManager(url, "basic"),
+                registry.getConnectionManager(URI.create("http://localhost:4503/"), "basic"));
+        assertEquals(3, registry.getAllStats().size());
+    }
+
+    @Test
+    public void testClientsOfDifferentUsersShareConnections() throws Exception {
+        registry.setMaxPerRoute(4);
+        for (int i = 0; i < 10; i++) {
+            CQClient client = CQClient.Builder.create(server.getUrl(), "user-" + i, "password")
+                    .useSharedConnectionPool(registry, ConnectionPoolRegistry.BASIC_AUTH).build();
+            client.doGet("/etc.clientlibs/toggles.json", 200);
+            client.close();
+        }
+
+        PoolStats stats = registry.getStats(server.getUrl(), ConnectionPoolRegistry.BASIC_AUTH);
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+        assertEquals(4, registry.getConnectionManager(server.getUrl(), "basic").getDefaultMaxPerRoute());
+    }
+
+    @Test
+    public void testIdleConnectionsAreClosed() throws Exception {
+        CQClient client = CQClient.Builder.create(server.getUrl(), "admin", "admin")
+                .useSharedConnectionPool(registry, ConnectionPoolRegistry.BASIC_AUTH).build();
+        client.doGet("/etc.clientlibs/toggles.json", 200);
+        registry.setIdleTimeout(1);
+        Thread.sleep(10);
+
+        registry.closeIdleConnections();
+        assertEquals(0, registry.getStats(server.getUrl(), "basic").getAvailable());
+        assertNull(registry.getStats(server.getUrl(), "other"));
+    }
+
+    @Test
+    public void testShutdownWhilePoolsAreCreated() throws Exception {
+        CompletableFuture<Void> creating = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 2000; i++) {
+                registry.getConnectionManager("pool-" + (i % 20));
+            }
+        });
+        for (int i = 0; i < 2000; i++) {
+            registry.shutdown();
+        }
+        creating.get(30, TimeUnit.SECONDS);
+        registry.shutdown();
+        assertEquals(0, registry.getAllStats().size());
+    }
+}
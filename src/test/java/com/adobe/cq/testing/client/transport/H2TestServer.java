@@ -0,0 +1,190 @@
+package com.adobe.cq.testing.client.transport;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cleartext server speaking either HTTP/2 with prior knowledge or HTTP/1.1. Every request gets a JSON echo of its
+ * method, path, protocol, authorization, cookie, body length and body, and sets a {@code session} cookie, except
+ * {@code /bytes/<n>} which returns n bytes.
+ */
+public class H2TestServer implements AutoCloseable {
+
+    public static final String BYTES_PATH = "/bytes/";
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ScheduledExecutorService delayer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "h2-test-server-delay");
+        t.setDaemon(true);
+        return t;
+    });
+    private final boolean http2;
+    private volatile long latency;
+    private HttpAsyncServer server;
+    private URI url;
+
+    public H2TestServer() {
+        this(true);
+    }
+
+    /**
+     * @param http2 {@code true} for HTTP/2, {@code false} for HTTP/1.1
+     */
+    public H2TestServer(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public H2TestServer start() throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(http2 ? HttpVersionPolicy.FORCE_HTTP_2 : HttpVersionPolicy.FORCE_HTTP_1)
+                .setIOSessionListener(new SessionCounter())
+                .register("*", new EchoHandler())
+                .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTP).get();
+        url = URI.create("http://localhost:" + ((InetSocketAddress) endpoint.getAddress()).getPort() + "/");
+        return this;
+    }
+
+    public URI getUrl() {
+        return url;
+    }
+
+    /**
+     * @param latency milliseconds to wait before each response, without blocking the other requests
+     */
+    public H2TestServer setLatency(long latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        delayer.shutdownNow();
+        if (server != null) {
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    private class EchoHandler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request,
+                EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails != null ? new StringAsyncEntityConsumer() : null);
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger trigger, HttpContext context) {
+            requests.incrementAndGet();
+            HttpRequest request = message.getHead();
+            if (request.getPath().startsWith(BYTES_PATH)) {
+                byte[] bytes = new byte[Integer.parseInt(request.getPath().substring(BYTES_PATH.length()))];
+                try {
+                    trigger.submitResponse(new BasicResponseProducer(new BasicHttpResponse(HttpStatus.SC_OK),
+                            AsyncEntityProducers.create(bytes, ContentType.APPLICATION_OCTET_STREAM)), context);
+                } catch (HttpException | IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return;
+            }
+            String json = "{\"method\":\"" + request.getMethod() + "\""
+                    + ",\"path\":\"" + request.getPath() + "\""
+                    + ",\"protocol\":\"" + context.getProtocolVersion() + "\""
+                    + ",\"authorization\":\"" + value(request.getFirstHeader(HttpHeaders.AUTHORIZATION)) + "\""
+                    + ",\"cookie\":\"" + value(request.getFirstHeader("Cookie")) + "\""
+                    + ",\"length\":" + (message.getBody() != null ? message.getBody().length() : 0)
+                    + ",\"body\":\"" + (message.getBody() != null ? message.getBody() : "") + "\"}";
+            BasicHttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+            response.addHeader("Set-Cookie", "session=" + request.getPath().length() + "; Path=/");
+            Runnable respond = () -> {
+                try {
+                    trigger.submitResponse(new BasicResponseProducer(response,
+                            AsyncEntityProducers.create(json, ContentType.APPLICATION_JSON)), context);
+                } catch (HttpException | IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            if (latency > 0) {
+                delayer.schedule(respond, latency, TimeUnit.MILLISECONDS);
+            } else {
+                respond.run();
+            }
+        }
+
+        private String value(Header header) {
+            return header == null ? "" : header.getValue();
+        }
+    }
+
+    private class SessionCounter implements IOSessionListener {
+
+        @Override
+        public void connected(IOSession session) {
+            connections.incrementAndGet();
+        }
+
+        @Override
+        public void startTls(IOSession session) {
+        }
+
+        @Override
+        public void inputReady(IOSession session) {
+        }
+
+        @Override
+        public void outputReady(IOSession session) {
+        }
+
+        @Override
+        public void timeout(IOSession session) {
+        }
+
+        @Override
+        public void exception(IOSession session, Exception ex) {
+        }
+
+        @Override
+        public void disconnected(IOSession session) {
+        }
+    }
+}
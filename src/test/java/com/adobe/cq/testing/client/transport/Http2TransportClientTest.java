@@ -0,0 +1,141 @@
+package com.adobe.cq.testing.client.transport;
+
+import com.adobe.cq.testing.client.CQClient;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+import org.apache.sling.testing.clients.util.FormEntityBuilder;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Http2TransportClientTest {
+
+    private static H2TestServer server;
+    private static Http2Transport transport;
+
+    private CQClient client;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new H2TestServer().start();
+        transport = new Http2Transport();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        transport.close();
+        server.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server.setLatency(0);
+        client = CQClient.Builder.create(server.getUrl(), "admin", "admin").useHttp2Transport(transport).build();
+    }
+
+    @Test
+    public void testGetIsSentOverHttp2WithCredentials() throws Exception {
+        SlingHttpResponse response = client.doGet("/content/page.json", 200);
+
+        assertEquals(2, response.getStatusLine().getProtocolVersion().getMajor());
+        assertTrue(response.getContent().contains("\"protocol\":\"HTTP/2.0\""));
+        assertTrue(response.getContent().contains("\"path\":\"/content/page.json\""));
+        assertTrue(response.getContent().contains("\"authorization\":\"Basic YWRtaW46YWRtaW4=\""));
+    }
+
+    @Test
+    public void testPostBodyAndCookies() throws Exception {
+        SlingHttpResponse response = client.doPost("/content/page",
+                FormEntityBuilder.create().addParameter("title", "Page").build(), 200);
+        assertTrue(response.getContent().contains("\"method\":\"POST\""));
+        assertTrue(response.getContent().contains("\"body\":\"title=Page\""));
+
+        // cookie set by the previous response
+        assertTrue(client.doGet("/", 200).getContent().contains("\"cookie\":\"session=13\""));
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneConnection() throws Exception {
+        server.setLatency(200);
+        int connections = server.getConnectionCount();
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<SlingHttpResponse>> futures = new ArrayList<>();
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 20; i++) {
+                String path = "/content/concurrent-" + i + ".json";
+                futures.add(executor.submit(() -> client.doGet(path, 200)));
+            }
+            for (Future<SlingHttpResponse> future : futures) {
+                assertEquals(200, future.get().getStatusLine().getStatusCode());
+            }
+            // multiplexed, not 20 sequential responses
+            assertTrue(System.currentTimeMillis() - start < 20 * 200);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(server.getConnectionCount() - connections <= 1);
+    }
+
+    @Test
+    public void testLargeBodiesAreStreamed() throws Exception {
+        byte[] upload = new byte[1024 * 1024];
+        Arrays.fill(upload, (byte) 'a');
+        // unknown length, not repeatable
+        SlingHttpResponse response = client.doStreamPost("/content/upload",
+                new InputStreamEntity(new ByteArrayInputStream(upload), -1, ContentType.TEXT_PLAIN),
+                Collections.emptyList(), 200);
+        try {
+            assertTrue(response.getContent().contains("\"length\":" + upload.length));
+        } finally {
+            response.close();
+        }
+
+        int size = 8 * 1024 * 1024;
+        response = client.doStreamGet(H2TestServer.BYTES_PATH + size, null, null, 200);
+        long read = 0;
+        try (InputStream in = response.getEntity().getContent()) {
+            byte[] chunk = new byte[8192];
+            for (int n; (n = in.read(chunk)) >= 0; ) {
+                read += n;
+            }
+        }
+        assertEquals(size, read);
+    }
+
+    @Test
+    public void testClosingAnUnreadResponseKeepsTheConnection() throws Exception {
+        SlingHttpResponse response = client.doStreamGet(H2TestServer.BYTES_PATH + 8 * 1024 * 1024, null, null, 200);
+        int connections = server.getConnectionCount();
+        assertTrue(response.getEntity().getContent().read() >= 0);
+        response.close();
+
+        assertEquals(200, client.doGet("/content/page.json", 200).getStatusLine().getStatusCode());
+        assertEquals(connections, server.getConnectionCount());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testConnectionManagerDoesNotCloseTheTransport() throws Exception {
+        // SlingClient delegates to the connection manager of the http client
+        client.getConnectionManager().closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        client.getConnectionManager().shutdown();
+        assertEquals(200, client.doGet("/content/page.json", 200).getStatusLine().getStatusCode());
+    }
+}
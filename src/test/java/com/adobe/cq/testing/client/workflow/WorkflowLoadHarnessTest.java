@@ -0,0 +1,167 @@
+package com.adobe.cq.testing.client.workflow;
+
+import com.adobe.cq.testing.client.WorkflowClient;
+import com.adobe.cq.testing.polling.Backoff;
+import com.adobe.cq.testing.util.JsonStreamUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.sling.testing.clients.ClientException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import spark.Spark;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class WorkflowLoadHarnessTest {
+
+    private static final String MODEL = "/var/workflow/models/dam/update_asset";
+
+    // the Step item lasts 2 seconds, the End item 0
+    private static final String HISTORY = "{\"historyItems\":["
+            + "{\"process\":\"Step\",\"status\":\"Completed\","
+            + "\"startTime\":\"Mon Jan 01 10:00:00 UTC 2024\",\"endTime\":\"Mon Jan 01 10:00:02 UTC 2024\"},"
+            + "{\"process\":\"End\",\"status\":\"Completed\","
+            + "\"startTime\":\"Mon Jan 01 10:00:02 UTC 2024\",\"endTime\":\"Mon Jan 01 10:00:02 UTC 2024\"}]}";
+
+    // number of checks after which an instance is completed
+    private static final int CHECKS = 3;
+    private static final Map<String, AtomicInteger> CHECKED = new ConcurrentHashMap<>();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        post("/etc/workflow/instances", (req, res) -> {
+            String payload = req.queryParams("payload");
+            if (payload.endsWith("/fail")) {
+                res.status(409);
+                return "";
+            }
+            res.status(201);
+            String instance = "/var/workflow/instances/load" + payload.substring(payload.lastIndexOf('/'));
+            return "<html><body><a href=\"" + instance + "\" id=\"Location\">" + instance + "</a></body></html>";
+        });
+        get("/var/workflow/instances/load/*", (req, res) -> {
+            String id = req.splat()[0].replace(".json", "");
+            int checks = CHECKED.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+            String state;
+            if ("abort".equals(id)) {
+                state = "ABORTED";
+            } else if ("stuck".equals(id) || checks < CHECKS) {
+                state = "RUNNING";
+            } else {
+                state = "COMPLETED";
+            }
+            return "{\"id\":\"" + id + "\",\"state\":\"" + state + "\",\"model\":\"" + MODEL + "\"}";
+        });
+        get("/libs/cq/workflow/content/console/history.json", (req, res) -> HISTORY);
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    private static WorkflowLoadHarness harness() throws ClientException {
+        WorkflowClient client = new WorkflowClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        return new WorkflowLoadHarness(client, MODEL)
+                .setConcurrency(4)
+                .setBackoff(Backoff.fixed(20))
+                .setTimeout(10000);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            payloads.add("/content/dam/load/" + i);
+        }
+
+        WorkflowLoadReport report = harness().run(payloads.stream());
+
+        assertEquals(20, report.getSubmitted());
+        assertEquals(20, report.getCompleted());
+        assertEquals(0, report.getFailedStarts());
+        assertEquals(0, report.getTimedOut());
+        report.assertAllCompleted();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(CHECKS, CHECKED.get(String.valueOf(i)).get());
+        }
+        // each instance is checked 3 times, 20ms apart
+        assertTrue(report.getCompletionLatency().getMin() >= 40);
+        assertEquals(2000, report.getDwellTimes().get("Step").getValueAtPercentile(95));
+        assertEquals(20, report.getDwellTimes().get("End").getCount());
+        assertTrue(report.getThroughput() > 0);
+
+        report.assertCompletionPercentileBelow(95, 10000);
+        report.assertDwellTimePercentileBelow("Step", 99, 2000);
+        report.assertThroughputAbove(1);
+        try {
+            report.assertDwellTimePercentileBelow("Step", 50, 1000);
+            fail("The dwell time of Step is 2 seconds");
+        } catch (AssertionError expected) {
+            assertTrue(expected.getMessage().contains("dwell time of Step"));
+        }
+        try {
+            report.assertDwellTimePercentileBelow("Missing", 50, 1000);
+            fail("Missing is not a step");
+        } catch (AssertionError expected) {
+            assertTrue(expected.getMessage().contains("[Step, End]"));
+        }
+
+        File file = new File(folder.getRoot(), "reports/load.json");
+        report.writeJson(file);
+        JsonNode json = JsonStreamUtils.getMapper().readTree(file);
+        assertEquals(MODEL, json.get("model").asText());
+        assertEquals(20, json.get("completed").asInt());
+        assertEquals(2000, json.path("dwellTimes").path("Step").path("p95").asLong());
+        assertEquals(20, json.path("completionLatency").path("count").asLong());
+    }
+
+    @Test
+    public void testRunWithFailures() throws Exception {
+        List<String> payloads = new ArrayList<>();
+        payloads.add("/content/dam/load/a");
+        payloads.add("/content/dam/load/fail");
+        payloads.add("/content/dam/load/abort");
+        payloads.add("/content/dam/load/stuck");
+
+        WorkflowLoadReport report = harness().setTimeout(300).run(payloads.stream());
+
+        assertEquals(4, report.getSubmitted());
+        assertEquals(1, report.getCompleted());
+        assertEquals(1, report.getFailedStarts());
+        assertEquals(1, report.getAborted());
+        assertEquals(1, report.getTimedOut());
+        try {
+            report.assertAllCompleted();
+            fail("Only one instance completed");
+        } catch (AssertionError expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("Only 1 of 4"));
+        }
+        ObjectNode json = report.toJson();
+        assertEquals(1, json.get("timedOut").asInt());
+        assertEquals(3, json.path("startLatency").path("count").asInt());
+    }
+}
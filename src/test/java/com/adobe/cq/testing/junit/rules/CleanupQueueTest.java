@@ -0,0 +1,68 @@
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CleanupQueueTest {
+
+    private AemStandInServer server;
+    private CQClient client;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new AemStandInServer().start();
+        client = new CQClient(server.getUrl(), "admin", "admin");
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testPagesDeletedInBatches() throws Exception {
+        try (CleanupQueue queue = new CleanupQueue(10, 3)) {
+            for (int i = 0; i < 25; i++) {
+                server.getRepository().put("/content/page-" + i, "cq:Page");
+            }
+            server.resetCounters();
+
+            for (int i = 0; i < 25; i++) {
+                queue.deletePage(client, "/content/page-" + i);
+            }
+            assertEquals(0, queue.flush(5000).size());
+            assertEquals(0, queue.getPendingCount());
+            for (int i = 0; i < 25; i++) {
+                assertFalse(client.exists("/content/page-" + i));
+            }
+            assertEquals(3, server.getRequestCount("POST", AemStandInServer.WCM_COMMAND_PATH));
+        }
+    }
+
+    @Test
+    public void testFailuresRetriedThenReported() throws Exception {
+        try (CleanupQueue queue = new CleanupQueue(10, 2)) {
+            server.getRepository().put("/content/locked", "cq:Page");
+            server.getRepository().put("/content/free", "cq:Page");
+            server.injectErrors(AemStandInServer.WCM_COMMAND_PATH, 1, 409);
+
+            queue.deletePage(client, "/content/locked");
+            List<String> failed = queue.flush(5000);
+            assertEquals(1, failed.size());
+            assertEquals("page /content/locked", failed.get(0));
+
+            server.clearFaults();
+            queue.deletePage(client, "/content/free");
+            assertEquals(0, queue.flush(5000).size());
+            assertFalse(client.exists("/content/free"));
+        }
+    }
+}
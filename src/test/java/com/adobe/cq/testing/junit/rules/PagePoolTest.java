@@ -0,0 +1,94 @@
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PagePoolTest {
+
+    private AemStandInServer server;
+    private CQClient client;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new AemStandInServer().start();
+        server.getRepository().put("/content/pool", "cq:Page");
+        client = new CQClient(server.getUrl(), "admin", "admin");
+    }
+
+    @After
+    public void stopServer() {
+        PagePool.closeAll();
+        server.close();
+    }
+
+    @Test
+    public void testLeaseAndRelease() throws Exception {
+        PagePool pool = new PagePool(client, "/content/pool", "", "Pooled", 5);
+        waitUntil(() -> pool.getReadyCount() == 5);
+        server.resetCounters();
+
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String path = "/content/pool/" + pool.lease();
+            assertTrue(client.exists(path));
+            paths.add(path);
+        }
+        for (String path : paths) {
+            pool.release(path);
+        }
+        assertTrue(CleanupQueue.getDefault().flush(5000).isEmpty());
+        waitUntil(() -> pool.getReadyCount() == 5);
+        for (String path : paths) {
+            assertFalse(client.exists(path));
+        }
+        // 5 pages created again in the background, the 5 released ones deleted by a single command
+        assertEquals(6, server.getRequestCount("POST", AemStandInServer.WCM_COMMAND_PATH));
+
+        pool.close();
+        assertEquals(0, client.doGetJson("/content/pool", 1).size() - 1);
+    }
+
+    @Test
+    public void testEmptyPageRule() throws Throwable {
+        EmptyPage page = new EmptyPage(() -> client) {
+            @Override
+            protected String initialParentPath() {
+                return "/content/pool";
+            }
+
+            @Override
+            protected boolean usePagePool() {
+                return true;
+            }
+        };
+        page.before();
+        assertTrue(page.getName().startsWith("testpage_"));
+        assertTrue(client.exists(page.getPath()));
+        page.after();
+
+        assertTrue(CleanupQueue.getDefault().flush(5000).isEmpty());
+        assertFalse(client.exists(page.getPath()));
+    }
+
+    private interface Condition {
+        boolean test() throws Exception;
+    }
+
+    private static void waitUntil(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test()) {
+            assertTrue("Condition not met after 5s", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+}
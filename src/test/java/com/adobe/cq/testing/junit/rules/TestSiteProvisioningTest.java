@@ -0,0 +1,134 @@
+package com.adobe.cq.testing.junit.rules;
+
+import com.adobe.cq.testing.client.CQClient;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.post;
+
+public class TestSiteProvisioningTest {
+
+    private static final Set<String> content = ConcurrentHashMap.newKeySet();
+    private static final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private static volatile int importStatus;
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        get("*", (req, res) -> {
+            record("exists");
+            // slow enough for the concurrent callers to pile up
+            Thread.sleep(100);
+            String path = req.pathInfo().replace(".json", "");
+            res.status(content.contains(path) ? 200 : 404);
+            return "{}";
+        });
+        post("*", (req, res) -> {
+            record("import");
+            res.status(importStatus);
+            if (importStatus == 201) {
+                content.add(req.pathInfo());
+            }
+            return "";
+        });
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Before
+    public void reset() {
+        TestSiteProvisioning.reset();
+        content.clear();
+        requests.clear();
+        importStatus = 201;
+    }
+
+    @Test
+    public void testProvisionedOncePerInstance() throws Exception {
+        CQClient client = new CQClient(URI.create("http://localhost:" + port()), "admin", "admin");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    TestSiteProvisioning.provision(client);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, count("exists"));
+        assertEquals(2, count("import"));
+
+        TestSiteProvisioning.provision(client);
+        assertEquals(2, count("exists"));
+    }
+
+    @Test
+    public void testExistingContentNotImported() throws Exception {
+        content.add(TestSiteProvisioning.TEMPLATE_ROOT_PATH);
+        content.add(TestSiteProvisioning.SITE_ROOT_PATH);
+
+        TestSiteProvisioning.provision(new CQClient(URI.create("http://localhost:" + port()), "admin", "admin"));
+        assertEquals(2, count("exists"));
+        assertEquals(0, count("import"));
+    }
+
+    @Test
+    public void testFailureRetriedByNextCaller() throws Exception {
+        CQClient client = new CQClient(URI.create("http://localhost:" + port()), "admin", "admin");
+        importStatus = 409;
+        try {
+            TestSiteProvisioning.provision(client);
+            fail("The import should fail");
+        } catch (Exception expected) {
+            // the next caller tries again
+        }
+
+        importStatus = 201;
+        TestSiteProvisioning.provision(client);
+        assertEquals(3, count("import"));
+    }
+
+    private static void record(String type) {
+        requests.computeIfAbsent(type, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static int count(String type) {
+        AtomicInteger count = requests.get(type);
+        return count == null ? 0 : count.get();
+    }
+}
@@ -0,0 +1,87 @@
+package com.adobe.cq.testing.junit.rules.logfile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogFileScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testScansAppendedBytesOnly() throws Exception {
+        File log = folder.newFile("error.log");
+        append(log, "*INFO* started\n*ERROR* first\n");
+        LogFileScanner scanner = new LogFileScanner(log, "startup finished", new String[]{"ERROR", "WARN"});
+
+        assertEquals(Collections.singletonList("*ERROR* first"), scanner.scan());
+        long offset = scanner.getOffset();
+        assertEquals(log.length(), offset);
+
+        append(log, "*WARN* second\r\n*INFO* partial");
+        assertEquals(Arrays.asList("*ERROR* first", "*WARN* second"), scanner.scan());
+        // the unterminated line is read again by the next scan
+        assertEquals(log.length() - "*INFO* partial".length(), scanner.getOffset());
+
+        append(log, " line\nstartup finished\n*ERROR* after the end marker\n");
+        assertEquals(Arrays.asList("*ERROR* first", "*WARN* second"), scanner.scan());
+        long ended = scanner.getOffset();
+        append(log, "*ERROR* later\n");
+        assertEquals(2, scanner.scan().size());
+        assertEquals(ended, scanner.getOffset());
+    }
+
+    @Test
+    public void testRotatedFileScannedAgain() throws Exception {
+        File log = folder.newFile("error.log");
+        append(log, "*ERROR* first\n*ERROR* second\n");
+        LogFileScanner scanner = new LogFileScanner(log, null, new String[]{"ERROR"});
+        assertEquals(2, scanner.scan().size());
+
+        Files.delete(log.toPath());
+        append(log, "*ERROR* new\n");
+        assertEquals(Collections.singletonList("*ERROR* new"), scanner.scan());
+    }
+
+    @Test
+    public void testLinesLongerThanBuffer() throws Exception {
+        File log = folder.newFile("error.log");
+        char[] filler = new char[200 * 1024];
+        Arrays.fill(filler, 'x');
+        append(log, new String(filler) + " ERROR\n*INFO* ok\n");
+        LogFileScanner scanner = new LogFileScanner(log, null, new String[]{"ERROR"});
+        assertEquals(1, scanner.scan().size());
+        assertEquals(log.length(), scanner.getOffset());
+    }
+
+    @Test
+    public void testMultiPatternMatcher() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(new String[]{"he", "she", "hers", "his"},
+                StandardCharsets.UTF_8);
+        assertTrue(matcher.matches("ushers"));
+        assertTrue(matcher.matches("this"));
+        assertFalse(matcher.matches("hi s"));
+        assertFalse(matcher.matches(""));
+        assertTrue(new MultiPatternMatcher(new String[]{"ÉRROR"}, StandardCharsets.UTF_8).matches("an ÉRROR"));
+        assertTrue(new MultiPatternMatcher(new String[]{""}, Charset.defaultCharset()).matches(""));
+        assertFalse(new MultiPatternMatcher(new String[0], Charset.defaultCharset()).matches("ERROR"));
+    }
+
+    private static void append(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(Charset.defaultCharset()), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+}
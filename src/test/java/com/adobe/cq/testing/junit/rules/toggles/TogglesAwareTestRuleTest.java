@@ -4,11 +4,18 @@ import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingClient;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExternalResource;
+import org.junit.rules.RuleChain;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
 
 import java.net.URI;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static spark.Spark.awaitInitialization;
 import static spark.Spark.awaitStop;
@@ -92,4 +99,62 @@ public class TogglesAwareTestRuleTest {
     public void testSkipIfNotRunNotSkip() {
         fail(); // Run condition is not met
     }
+
+    @Test
+    public void testClassRuleWaitsForTheClient() {
+        Result result = JUnitCore.runClasses(ClientSetByOuterRule.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(2, result.getRunCount());
+        assertEquals(1, result.getAssumptionFailureCount());
+    }
+
+    @Test
+    public void testClassRuleWithoutClient() {
+        Result result = JUnitCore.runClasses(ClientNeverSet.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(1, result.getRunCount());
+    }
+
+    public static class ClientSetByOuterRule {
+        private static volatile SlingClient client;
+
+        // the toggles rule is applied before the outer rule sets the client
+        @ClassRule
+        public static RuleChain rules = RuleChain.outerRule(new ExternalResource() {
+            @Override
+            protected void before() throws ClientException {
+                client = new SlingClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+            }
+        }).around(new TogglesAwareTestRule(() -> {
+            if (client == null) {
+                throw new IllegalStateException("The client is not initialised");
+            }
+            return client;
+        }));
+
+        @Rule
+        public TogglesAwareTestRule togglesAwareTestRule = new TogglesAwareTestRule(() -> client);
+
+        @Test
+        @RunIfToggleEnabled("a")
+        public void testRun() {
+        }
+
+        @Test
+        @RunIfToggleEnabled("dummy")
+        public void testSkip() {
+            fail();
+        }
+    }
+
+    public static class ClientNeverSet {
+        @ClassRule
+        public static TogglesAwareTestRule togglesAwareTestRule = new TogglesAwareTestRule(() -> {
+            throw new IllegalStateException("The client is not initialised");
+        });
+
+        @Test
+        public void testRun() {
+        }
+    }
 }
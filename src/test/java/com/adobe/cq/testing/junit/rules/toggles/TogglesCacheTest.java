@@ -0,0 +1,100 @@
+package com.adobe.cq.testing.junit.rules.toggles;
+
+import org.apache.sling.testing.clients.SlingClient;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.awaitStop;
+import static spark.Spark.get;
+import static spark.Spark.port;
+import static spark.Spark.stop;
+
+public class TogglesCacheTest {
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static volatile String enabled;
+
+    @BeforeClass
+    public static void startServer() {
+        port(0);
+        get("etc.clientlibs/toggles.json", (req, res) -> {
+            requests.incrementAndGet();
+            return "{\"enabled\":[" + enabled + "]}";
+        });
+        awaitInitialization();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        stop();
+        awaitStop();
+    }
+
+    @Before
+    public void reset() {
+        TogglesCache.clearAll();
+        requests.set(0);
+        enabled = "\"a\", \"b\"";
+    }
+
+    @Test
+    public void testRuleDownloadsTogglesOnce() throws Throwable {
+        TogglesAwareTestRule rule = new TogglesAwareTestRule(TogglesCacheTest::client);
+        rule.apply(new EmptyStatement(), Description.createSuiteDescription(TogglesCacheTest.class)).evaluate();
+        assertEquals(1, requests.get());
+
+        Description test = Description.createTestDescription(TogglesCacheTest.class, "test",
+                TogglesCacheTest.class.getDeclaredMethod("annotated").getAnnotations());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(rule.shouldRunTest(test));
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testStaleSnapshotRefreshedInBackground() throws Exception {
+        TogglesCache cache = new TogglesCache(client(), 100);
+        assertTrue(cache.isEnabled("a"));
+        assertFalse(cache.isEnabled("c"));
+
+        enabled = "\"c\"";
+        Thread.sleep(150);
+        // the stale snapshot is returned while it is refreshed
+        assertTrue(cache.isEnabled("a"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!cache.isEnabled("c")) {
+            assertTrue("Toggles not refreshed after 5s", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @RunIfToggleEnabled("a")
+    public void annotated() {
+    }
+
+    private static SlingClient client() {
+        try {
+            return new SlingClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class EmptyStatement extends Statement {
+        @Override
+        public void evaluate() {
+        }
+    }
+}
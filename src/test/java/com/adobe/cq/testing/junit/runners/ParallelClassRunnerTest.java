@@ -0,0 +1,95 @@
+package com.adobe.cq.testing.junit.runners;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.ExternalResource;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelClassRunnerTest {
+
+    private static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+    private static final InheritableThreadLocal<String> CLASS_VALUE = new InheritableThreadLocal<>();
+    private static final CountDownLatch ALL_STARTED = new CountDownLatch(4);
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    @Test
+    public void testMethodsRunInParallel() {
+        Result result = JUnitCore.runClasses(Methods.class);
+        assertTrue(String.valueOf(result.getFailures()), result.wasSuccessful());
+        assertEquals(5, result.getRunCount());
+
+        assertEquals("before", EVENTS.get(0));
+        assertEquals("serial", EVENTS.get(EVENTS.size() - 2));
+        assertEquals("after", EVENTS.get(EVENTS.size() - 1));
+    }
+
+    @RunWith(ParallelClassRunner.class)
+    @ParallelClassRunner.Configuration(threads = 4)
+    public static class Methods {
+
+        @ClassRule
+        public static ExternalResource classRule = new ExternalResource() {
+            @Override
+            protected void before() {
+                EVENTS.add("before");
+                CLASS_VALUE.set("class");
+            }
+
+            @Override
+            protected void after() {
+                EVENTS.add("after");
+            }
+        };
+
+        private void parallel() throws InterruptedException {
+            RUNNING.incrementAndGet();
+            try {
+                assertEquals("class", CLASS_VALUE.get());
+                ALL_STARTED.countDown();
+                // only completes if the 4 methods run at the same time
+                assertTrue(ALL_STARTED.await(5, TimeUnit.SECONDS));
+                EVENTS.add("parallel");
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        }
+
+        @Test
+        public void test1() throws InterruptedException {
+            parallel();
+        }
+
+        @Test
+        public void test2() throws InterruptedException {
+            parallel();
+        }
+
+        @Test
+        public void test3() throws InterruptedException {
+            parallel();
+        }
+
+        @Test
+        public void test4() throws InterruptedException {
+            parallel();
+        }
+
+        @Test
+        @Serial
+        public void testSerial() {
+            assertEquals(0, RUNNING.get());
+            EVENTS.add("serial");
+        }
+    }
+}
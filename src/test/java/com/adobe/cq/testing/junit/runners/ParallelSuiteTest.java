@@ -0,0 +1,106 @@
+package com.adobe.cq.testing.junit.runners;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.model.TestTimedOutException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelSuiteTest {
+
+    private static final List<String> STARTED = new CopyOnWriteArrayList<>();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File history;
+
+    @Before
+    public void setHistory() {
+        history = new File(folder.getRoot(), "durations.properties");
+        System.setProperty(ParallelSuite.HISTORY_PROP, history.getPath());
+        STARTED.clear();
+    }
+
+    @After
+    public void clearHistory() {
+        System.clearProperty(ParallelSuite.HISTORY_PROP);
+    }
+
+    @Test
+    public void testLongestFirst() throws Exception {
+        Result first = JUnitCore.runClasses(SerialSuite.class);
+        assertTrue(first.wasSuccessful());
+        assertEquals(Arrays.asList("Fast", "Slow"), STARTED);
+
+        Properties durations = new Properties();
+        try (InputStream in = new FileInputStream(history)) {
+            durations.load(in);
+        }
+        assertTrue(Long.parseLong(durations.getProperty(Slow.class.getName())) >= 200);
+
+        STARTED.clear();
+        Result second = JUnitCore.runClasses(SerialSuite.class);
+        assertTrue(second.wasSuccessful());
+        assertEquals(Arrays.asList("Slow", "Fast"), STARTED);
+    }
+
+    @Test
+    public void testTimeout() {
+        Result result = JUnitCore.runClasses(TimeoutSuite.class);
+        // the timeout of the class, then the interrupted test
+        assertEquals(2, result.getFailureCount());
+        assertTrue(result.getFailures().get(0).getException() instanceof TestTimedOutException);
+        assertTrue(result.getFailures().get(1).getException() instanceof InterruptedException);
+    }
+
+    @RunWith(ParallelSuite.class)
+    @Suite.SuiteClasses({Fast.class, Slow.class})
+    @ParallelSuite.Configuration(threads = 1)
+    public static class SerialSuite {
+    }
+
+    @RunWith(ParallelSuite.class)
+    @Suite.SuiteClasses({Fast.class, Hanging.class})
+    @ParallelSuite.Configuration(timeout = 200)
+    public static class TimeoutSuite {
+    }
+
+    public static class Fast {
+        @Test
+        public void test() {
+            STARTED.add("Fast");
+        }
+    }
+
+    public static class Slow {
+        @Test
+        public void test() throws InterruptedException {
+            STARTED.add("Slow");
+            Thread.sleep(200);
+        }
+    }
+
+    public static class Hanging {
+        @Test
+        public void test() throws InterruptedException {
+            Thread.sleep(60000);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.adobe.cq.testing.mock;
+
+import com.adobe.cq.testing.client.CQAssetsClient;
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.client.JobsClient;
+import com.adobe.cq.testing.client.PackageManagerClient;
+import com.adobe.cq.testing.client.TogglesClient;
+import com.adobe.cq.testing.polling.EventPoller;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.http.HttpStatus;
+import org.apache.sling.testing.clients.ClientException;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AemStandInServerTest {
+
+    private static AemStandInServer server;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new AemStandInServer().start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Before
+    public void reset() {
+        server.clearFaults();
+        server.resetCounters();
+        server.clearEvents();
+        server.getRepository().reset();
+    }
+
+    @Test
+    public void testCreateAndDeletePage() throws Exception {
+        CQClient client = new CQClient(server.getUrl(), "admin", "admin");
+
+        SlingHttpResponse response = client.createPage("page", "My Page", "/content", "/conf/templates/page");
+        assertEquals("/content/page", response.getSlingPath());
+        assertTrue(client.exists("/content/page"));
+
+        JsonNode page = client.doGetJson("/content/page", 1);
+        assertEquals("cq:Page", page.get("jcr:primaryType").textValue());
+        assertEquals("My Page", page.path("jcr:content").path("jcr:title").textValue());
+
+        client.deletePage(new String[]{"/content/page"}, true, false);
+        assertFalse(client.exists("/content/page"));
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    public void testSlingPost() throws Exception {
+        CQClient client = new CQClient(server.getUrl(), "admin", "admin");
+
+        client.setPropertyString("/content/node", "title", "one", HttpStatus.SC_CREATED);
+        client.setPropertyString("/content/node", "title", "two", HttpStatus.SC_OK);
+        assertEquals("two", client.doGetJson("/content/node", 0).get("title").textValue());
+        assertEquals("two", client.doGetJson("/content", -1).path("node").path("title").textValue());
+
+        client.deletePath("/content/node");
+        assertFalse(client.exists("/content/node"));
+    }
+
+    @Test
+    public void testJobsTogglesAndEvents() throws Exception {
+        server.setEnabledToggles("FT_1", "FT_2");
+        long since = System.currentTimeMillis() - 1;
+        server.recordEvent("com/adobe/test", "/content/event");
+
+        assertEquals(Arrays.asList("FT_1", "FT_2"),
+                new TogglesClient(server.getUrl(), "admin", "admin").getEnabledToggles());
+        assertTrue(new JobsClient(server.getUrl(), "admin", "admin").getJobsStatistics().getJobQueues().isEmpty());
+        JsonNode events = EventPoller.getEventsSince(new CQClient(server.getUrl(), "admin", "admin"), since);
+        assertTrue(EventPoller.containsEvent(events, "com/adobe/test", "/content/event"));
+    }
+
+    @Test
+    public void testPackageUpload() throws Exception {
+        PackageManagerClient client = new PackageManagerClient(server.getUrl(), "admin", "admin");
+
+        client.uploadPackage(new ByteArrayInputStream(new byte[512]), "test-package.zip");
+        assertTrue(server.getRepository().exists("/etc/packages/my_packages/test-package.zip"));
+    }
+
+    @Test
+    public void testDirectBinaryUpload() throws Exception {
+        server.setMaxPartSize(1024);
+        CQAssetsClient client = new CQClient(server.getUrl(), "admin", "admin").adaptTo(CQAssetsClient.class);
+
+        SlingHttpResponse response = client.uploadAsset("cricket.jpg", "/cricket.jpg", "image/jpeg", "/content/dam");
+        assertEquals("/content/dam/cricket.jpg", response.getSlingPath());
+        assertTrue(server.getUploadedBytes() > 0);
+        assertEquals(server.getUploadedBytes(), server.getRepository()
+                .getProperties("/content/dam/cricket.jpg/jcr:content/renditions/original/jcr:content")
+                .get(":jcr:data"));
+    }
+
+    @Test
+    public void testErrorInjection() throws Exception {
+        CQClient client = new CQClient(server.getUrl(), "admin", "admin");
+        server.failNext(AemStandInServer.WCM_COMMAND_PATH, 2, HttpStatus.SC_BAD_REQUEST);
+
+        client.createPageWithRetry("page", "Page", "/content", "", 5000, 10);
+        assertEquals(2, server.getInjectedErrorCount());
+        assertEquals(3, server.getRequestCount("POST", AemStandInServer.WCM_COMMAND_PATH));
+    }
+
+    @Test(expected = ClientException.class)
+    public void testInjectedErrorFailsRequest() throws Exception {
+        server.injectErrors("/content/always", 1, HttpStatus.SC_BAD_REQUEST);
+        new CQClient(server.getUrl(), "admin", "admin").doGet("/content/always.json", HttpStatus.SC_OK);
+    }
+}
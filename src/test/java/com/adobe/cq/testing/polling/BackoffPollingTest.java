@@ -0,0 +1,58 @@
+package com.adobe.cq.testing.polling;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BackoffPollingTest {
+
+    @Test
+    public void testExponentialIsCapped() {
+        Backoff backoff = Backoff.exponential(10, 80, 2, 0);
+        assertEquals(10, backoff.nextDelay(1));
+        assertEquals(20, backoff.nextDelay(2));
+        assertEquals(40, backoff.nextDelay(3));
+        assertEquals(80, backoff.nextDelay(4));
+        assertEquals(80, backoff.nextDelay(10));
+    }
+
+    @Test
+    public void testFastThenSlow() {
+        Backoff backoff = Backoff.fastThenSlow(5, 2, Backoff.exponential(10, 100, 3, 0));
+        assertEquals(5, backoff.nextDelay(1));
+        assertEquals(5, backoff.nextDelay(2));
+        assertEquals(10, backoff.nextDelay(3));
+        assertEquals(30, backoff.nextDelay(4));
+    }
+
+    @Test
+    public void testCountsAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        BackoffPolling polling = new BackoffPolling(() -> calls.incrementAndGet() >= 3);
+        polling.poll(5000, Backoff.fixed(1));
+        assertEquals(3, polling.getAttempts());
+        assertEquals(2, polling.getWastedAttempts());
+    }
+
+    @Test
+    public void testAttemptsAtDeadline() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        BackoffPolling polling = new BackoffPolling(() -> {
+            calls.incrementAndGet();
+            return false;
+        });
+        try {
+            polling.poll(200, Backoff.fixed(10000));
+            fail("Expected a timeout");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        assertEquals("A last attempt is done when the timeout expires", 2, calls.get());
+        assertTrue(polling.getWaited() < 5000);
+    }
+}
@@ -0,0 +1,90 @@
+package com.adobe.cq.testing.polling;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventLogReaderTest {
+
+    private static AemStandInServer server;
+    private static CQClient client;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new AemStandInServer().start();
+        client = new CQClient(server.getUrl(), "admin", "admin");
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Before
+    public void reset() {
+        server.clearEvents();
+    }
+
+    @Test
+    public void testUpdateOnlyReadsNewEvents() throws Exception {
+        EventLogReader reader = new EventLogReader(client, System.currentTimeMillis() - 1);
+        for (int i = 0; i < 3; i++) {
+            server.recordEvent("com/adobe/test", "/content/event-" + i);
+        }
+
+        assertEquals(3, reader.update());
+        assertEquals(0, reader.update());
+
+        server.recordEvent("com/adobe/test", "/content/event-3");
+        server.recordEvent("com/adobe/other", "/content/event-4");
+        assertEquals(2, reader.update());
+        assertEquals(5, reader.getEventCount());
+        assertTrue(reader.contains("com/adobe/test", "/content/event-0"));
+        assertTrue(reader.contains("com/adobe/other", "/content/event-4"));
+        assertFalse(reader.contains("com/adobe/test", "/content/event-4"));
+        assertTrue(reader.getCursor() >= reader.getReceived("com/adobe/test", "/content/event-3"));
+    }
+
+    @Test
+    public void testEventsBeforeSinceAreIgnored() throws Exception {
+        server.recordEvent("com/adobe/test", "/content/old");
+        Thread.sleep(5);
+        EventLogReader reader = new EventLogReader(client, EventPoller.getLatestEventTimestamp(client));
+        server.recordEvent("com/adobe/test", "/content/new");
+
+        assertEquals(1, reader.update());
+        assertFalse(reader.contains("com/adobe/test", "/content/old"));
+        assertTrue(reader.contains("com/adobe/test", "/content/new"));
+    }
+
+    @Test
+    public void testIndexIsBounded() throws Exception {
+        EventLogReader reader = new EventLogReader(client, 0, 2);
+        for (int i = 0; i < 3; i++) {
+            server.recordEvent("com/adobe/test", "/content/event-" + i);
+        }
+
+        assertEquals(3, reader.update());
+        assertFalse(reader.contains("com/adobe/test", "/content/event-0"));
+        assertTrue(reader.contains("com/adobe/test", "/content/event-2"));
+    }
+
+    @Test
+    public void testPollersShareReader() throws Exception {
+        EventLogReader reader = new EventLogReader(client, System.currentTimeMillis() - 1);
+        server.recordEvent("com/adobe/test", "/content/a");
+        server.recordEvent("com/adobe/test", "/content/b");
+
+        new EventPoller(reader, "com/adobe/test", "/content/a").poll(1000, 10);
+        server.resetCounters();
+        new EventPoller(reader, "com/adobe/test", "/content/b").poll(1000, 10);
+        assertEquals(0, server.getRequestCount());
+    }
+}
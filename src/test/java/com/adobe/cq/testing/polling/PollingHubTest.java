@@ -0,0 +1,114 @@
+package com.adobe.cq.testing.polling;
+
+import com.adobe.cq.testing.client.CQClient;
+import com.adobe.cq.testing.mock.AemStandInServer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PollingHubTest {
+
+    private final PollingHub hub = new PollingHub(2);
+
+    @After
+    public void close() {
+        hub.close();
+    }
+
+    @Test
+    public void testWaitersShareFetches() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        PollingHub.Resource<Integer> resource = PollingHub.Resource.of("counter", counter::incrementAndGet);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int expected = 3 + i % 3;
+            futures.add(hub.await(resource, value -> value >= expected, 5000, 10));
+        }
+        for (CompletableFuture<Integer> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS) >= 3);
+        }
+
+        assertTrue("Fetched " + counter.get() + " times", counter.get() < 10);
+        assertEquals(counter.get(), hub.getFetchCount());
+        Thread.sleep(50);
+        assertEquals(0, hub.getResourceCount());
+    }
+
+    @Test
+    public void testTimeoutReportsLastFailure() throws Exception {
+        PollingHub.Resource<String> resource = PollingHub.Resource.of("failing", () -> {
+            throw new IllegalStateException("not ready");
+        });
+        try {
+            hub.waitUntil(resource, value -> true, 100, 10);
+            fail("Expected a timeout");
+        } catch (TimeoutException e) {
+            assertEquals("not ready", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testEventLogWaiters() throws Exception {
+        try (AemStandInServer server = new AemStandInServer().start()) {
+            CQClient client = new CQClient(server.getUrl(), "admin", "admin");
+            long since = System.currentTimeMillis() - 1;
+
+            List<CompletableFuture<EventLogReader>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String path = "/content/page-" + i;
+                futures.add(hub.await(PollingHub.Resource.eventLog(client, since),
+                        reader -> reader.getReceived("com/adobe/test", path) > since, 5000, 20));
+            }
+            for (int i = 0; i < 5; i++) {
+                server.recordEvent("com/adobe/test", "/content/page-" + i);
+            }
+            for (CompletableFuture<EventLogReader> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(hub.getFetchCount(), server.getRequestCount("GET", AemStandInServer.EVENTS_PATH));
+        }
+    }
+
+    @Test
+    public void testEventLogReaderIsKeptAcrossWaits() throws Exception {
+        try (AemStandInServer server = new AemStandInServer().start()) {
+            CQClient client = new CQClient(server.getUrl(), "admin", "admin");
+            server.recordEvent("com/adobe/test", "/content/before");
+            Thread.sleep(5);
+            long since = System.currentTimeMillis();
+            Thread.sleep(5);
+
+            server.recordEvent("com/adobe/test", "/content/first");
+            EventLogReader first = hub.waitUntil(PollingHub.Resource.eventLog(client, since),
+                    reader -> reader.getReceived("com/adobe/test", "/content/first") > since, 5000, 20);
+            Thread.sleep(50);
+            assertEquals(0, hub.getResourceCount());
+
+            // a new subscription reads the new events with the same reader
+            server.recordEvent("com/adobe/test", "/content/second");
+            EventLogReader second = hub.waitUntil(PollingHub.Resource.eventLog(client, since + 1),
+                    reader -> reader.getReceived("com/adobe/test", "/content/second") > since, 5000, 20);
+            assertSame(first, second);
+            assertEquals(2, second.getEventCount());
+
+            // an older since needs the events the reader skipped
+            EventLogReader older = hub.waitUntil(PollingHub.Resource.eventLog(client, 0),
+                    reader -> reader.getReceived("com/adobe/test", "/content/before") > 0, 5000, 20);
+            assertNotSame(first, older);
+            assertEquals(0, older.getSince());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.adobe.cq.testing.util;
+
+import com.adobe.cq.testing.polling.EventPoller;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.sling.testing.clients.SlingClient;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spark.Spark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.get;
+import static spark.Spark.port;
+
+public class JsonStreamUtilsTest {
+
+    private static final String EVENTS = "{\"status\":\"3 events\",\"stats\":{\"a\":[1,2,{\"b\":3}]},\"data\":["
+            + "{\"id\":\"1\",\"topic\":\"t/a\",\"received\":100},"
+            + "{\"id\":\"2\",\"topic\":\"t/b\",\"received\":300},"
+            + "{\"id\":\"3\",\"topic\":\"t/c\",\"received\":200}]}";
+
+    private static SlingClient client;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        port(0);
+        get("/system/console/events.json", (req, res) -> EVENTS);
+        awaitInitialization();
+        client = new SlingClient(URI.create(String.format("http://localhost:%d", port())), "", "");
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Test
+    public void testReadTree() throws Exception {
+        JsonNode root = JsonStreamUtils.readTree(client.doStreamGet("/system/console/events.json", null, null));
+        assertEquals(3, root.get("data").size());
+        assertEquals("3 events", root.get("status").textValue());
+    }
+
+    @Test
+    public void testReadValue() throws Exception {
+        Map<String, Object> root = JsonStreamUtils.readValue(
+                client.doStreamGet("/system/console/events.json", null, null),
+                new TypeReference<Map<String, Object>>() { });
+        assertEquals("3 events", root.get("status"));
+    }
+
+    @Test
+    public void testForEachElementStops() throws Exception {
+        List<String> ids = new ArrayList<>();
+        int count = JsonStreamUtils.forEachElement(client.doStreamGet("/system/console/events.json", null, null),
+                "data", event -> ids.add(event.get("id").textValue()) && ids.size() < 2);
+        assertEquals(2, count);
+        assertEquals("[1, 2]", ids.toString());
+    }
+
+    @Test
+    public void testStreamElements() throws Exception {
+        List<String> ids = new ArrayList<>();
+        try (Stream<JsonNode> events = JsonStreamUtils.streamElements(
+                client.doStreamGet("/system/console/events.json", null, null), "data")) {
+            events.forEach(event -> ids.add(event.get("id").textValue()));
+        }
+        assertEquals("[1, 2, 3]", ids.toString());
+
+        try (Stream<JsonNode> events = JsonStreamUtils.streamElements(
+                client.doStreamGet("/system/console/events.json", null, null), "data")) {
+            assertEquals("2", events.filter(event -> event.get("received").asLong() > 200).findFirst().get()
+                    .get("id").textValue());
+        }
+
+        try (Stream<JsonNode> events = JsonStreamUtils.streamElements(
+                client.doStreamGet("/system/console/events.json", null, null), "missing")) {
+            assertEquals(0, events.count());
+        }
+        // the connections were released
+        assertEquals(3, JsonStreamUtils.readTree(client.doStreamGet("/system/console/events.json", null, null))
+                .get("data").size());
+    }
+
+    @Test
+    public void testEventPoller() throws Exception {
+        assertEquals(300, EventPoller.getLatestEventTimestamp(client));
+        assertEquals(2, EventPoller.getEventsSince(client, 100).size());
+    }
+}
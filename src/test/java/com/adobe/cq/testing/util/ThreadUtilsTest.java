@@ -0,0 +1,137 @@
+package com.adobe.cq.testing.util;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadUtilsTest {
+
+    @Test
+    public void testPlatformThreads() {
+        ThreadFactory factory = ThreadUtils.newThreadFactory("test", true, false);
+        Thread first = factory.newThread(() -> { });
+        Thread second = factory.newThread(() -> { });
+        assertEquals("test-1", first.getName());
+        assertEquals("test-2", second.getName());
+        assertTrue(first.isDaemon());
+        assertFalse(ThreadUtils.newThreadFactory("test", false, false).newThread(() -> { }).isDaemon());
+    }
+
+    @Test
+    public void testVirtualThreadsDisabled() {
+        System.setProperty(ThreadUtils.VIRTUAL_THREADS_PROP, "false");
+        try {
+            assertFalse(ThreadUtils.useVirtualThreads());
+        } finally {
+            System.clearProperty(ThreadUtils.VIRTUAL_THREADS_PROP);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testVirtualThreadsUnsupported() {
+        Assume.assumeFalse(ThreadUtils.isVirtualThreadsSupported());
+        ThreadUtils.newThreadFactory("test", true, true);
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        Assume.assumeTrue(ThreadUtils.isVirtualThreadsSupported());
+        Thread thread = ThreadUtils.newThreadFactory("test", false, true).newThread(() -> { });
+        assertEquals("test-1", thread.getName());
+        assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    public void testThreadPerTaskBounded() throws Exception {
+        ExecutorService executor = new ThreadPerTaskExecutor(ThreadUtils.newThreadFactory("test", true, false), 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> started = new CopyOnWriteArrayList<>();
+        List<String> names = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            executor.execute(() -> {
+                started.add(index);
+                names.add(Thread.currentThread().getName());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        // a new thread for each task, started in submission order
+        assertEquals(10, names.stream().distinct().count());
+        assertTrue(started.indexOf(0) < 2);
+        assertTrue(started.indexOf(9) >= 8);
+    }
+
+    @Test
+    public void testThreadPerTaskShutdownNow() throws Exception {
+        ExecutorService executor = new ThreadPerTaskExecutor(ThreadUtils.newThreadFactory("test", true, false), 1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        executor.execute(() -> { });
+        assertEquals(1, executor.shutdownNow().size());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testScheduledThreadPerTask() throws Exception {
+        ScheduledThreadPoolExecutor executor = new ThreadPerTaskScheduledExecutor("test",
+                ThreadUtils.newThreadFactory("test-run", true, false), 0);
+        List<String> names = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch runs = new CountDownLatch(5);
+        ScheduledFuture<?> periodic = executor.scheduleWithFixedDelay(() -> {
+            if (running.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            names.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            runs.countDown();
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        assertEquals("done", executor.schedule(() -> "done", 10, TimeUnit.MILLISECONDS).get());
+
+        assertTrue(runs.await(10, TimeUnit.SECONDS));
+        periodic.cancel(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        // each run on its own thread, not on the timer
+        assertNotEquals(names.get(0), names.get(1));
+        assertTrue(names.get(0).startsWith("test-run-"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.adobe.cq.testing.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testRate() throws Exception {
+        TokenBucket bucket = TokenBucket.of(200);
+        long start = System.nanoTime();
+        for (int i = 0; i < 41; i++) {
+            bucket.acquire();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Took " + millis + "ms", millis >= 190);
+    }
+
+    @Test
+    public void testBurst() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.acquire());
+        }
+    }
+
+    @Test
+    public void testUnlimited() throws Exception {
+        TokenBucket bucket = TokenBucket.of(0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, bucket.acquire());
+        }
+    }
+}